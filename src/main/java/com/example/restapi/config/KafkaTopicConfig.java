@@ -3,14 +3,33 @@ package com.example.restapi.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 @ConfigurationProperties(prefix = "kafka")
 public class KafkaTopicConfig {
 
+    /**
+     * Concurrency value that sizes a topic's consumer threads to its partition count
+     */
+    public static final String AUTO_CONCURRENCY = "auto";
+
+    /**
+     * Largest number of topics in a correlation chain, bounded by the width of the per-key stage bitmask
+     */
+    public static final int MAX_CHAIN_STAGES = 32;
+
     private List<TopicConfig> topics;
 
+    private long partitionLookupTimeoutMs = 10000;
+
+    private MultiplexedConfig multiplexed = new MultiplexedConfig();
+
+    private BackpressureConfig backpressure = new BackpressureConfig();
+
+    private int correlationShards = 0;
+
     public List<TopicConfig> getTopics() {
         return topics;
     }
@@ -19,12 +38,312 @@ public class KafkaTopicConfig {
         this.topics = topics;
     }
 
+    public long getPartitionLookupTimeoutMs() {
+        return partitionLookupTimeoutMs;
+    }
+
+    public void setPartitionLookupTimeoutMs(long partitionLookupTimeoutMs) {
+        this.partitionLookupTimeoutMs = partitionLookupTimeoutMs;
+    }
+
+    /**
+     * Settings of the shared container that serves every pair with the multiplexed topology
+     */
+    public MultiplexedConfig getMultiplexed() {
+        return multiplexed;
+    }
+
+    public void setMultiplexed(MultiplexedConfig multiplexed) {
+        this.multiplexed = multiplexed;
+    }
+
+    /**
+     * Thresholds that pause consumption while persistence falls behind
+     */
+    public BackpressureConfig getBackpressure() {
+        return backpressure;
+    }
+
+    public void setBackpressure(BackpressureConfig backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Number of shards of the correlation engine used by the sharded processing mode;
+     * 0 means one shard per available processor
+     */
+    public int getCorrelationShards() {
+        return correlationShards;
+    }
+
+    public void setCorrelationShards(int correlationShards) {
+        if (correlationShards < 0) {
+            throw new IllegalArgumentException("Correlation shards must not be negative: " + correlationShards);
+        }
+        this.correlationShards = correlationShards;
+    }
+
+    private static String validateConcurrency(String concurrency) {
+        if (!AUTO_CONCURRENCY.equalsIgnoreCase(concurrency)) {
+            int threads;
+            try {
+                threads = Integer.parseInt(concurrency.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Concurrency must be a positive number or '" + AUTO_CONCURRENCY + "': " + concurrency);
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("Concurrency must be a positive number or '" + AUTO_CONCURRENCY + "': " + concurrency);
+            }
+        }
+        return concurrency.trim();
+    }
+
+    /**
+     * How records are handed to the listener: one at a time, or the whole poll at once
+     */
+    public enum ListenerMode {
+        RECORD,
+        BATCH
+    }
+
+    /**
+     * How record values are deserialized: decoded to a String up front, or consumed as raw
+     * UTF-8 bytes with the key of interest extracted straight from the bytes
+     */
+    public enum IngestMode {
+        STRING,
+        BYTES
+    }
+
+    /**
+     * How records from one partition are processed: strictly one after another, fanned out
+     * to virtual threads with ordering kept only per key of interest value, or handed to the
+     * correlation engine shard that owns the key of interest value
+     */
+    public enum ProcessingMode {
+        SEQUENTIAL,
+        KEY_PARALLEL,
+        SHARDED
+    }
+
+    /**
+     * How a pair is mapped onto consumer containers: one container and consumer group per topic,
+     * one container subscribed to both topics under the pair's consumer group, or a slot in the
+     * single multiplexed container shared by all low-volume pairs
+     */
+    public enum Topology {
+        DEDICATED,
+        SHARED,
+        MULTIPLEXED
+    }
+
+    /**
+     * Which clock a pair correlates on: the time records are processed, or the timestamp Kafka
+     * stored with each record, so replays and backfills reproduce the original timings
+     */
+    public enum TimeSemantics {
+        PROCESSING,
+        EVENT
+    }
+
+    /**
+     * What happens to an interesting event once it is correlated: the row is updated with the correlated
+     * message and removed later by the cleanup scheduler, or it is deleted straight away and the matched
+     * pair is handed to the pair's match output topic (or logged when it has none)
+     */
+    public enum OnMatch {
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * Partitions are paused once the database latency average or the pending persistence work
+     * crosses its high water mark, and resumed once both are back under their low water marks
+     */
+    public static class BackpressureConfig {
+        private boolean enabled = true;
+        private long latencyHighWaterMs = 1000;
+        private long latencyLowWaterMs = 200;
+        private int pendingHighWater = 10000;
+        private int pendingLowWater = 2000;
+        private long checkIntervalMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getLatencyHighWaterMs() {
+            return latencyHighWaterMs;
+        }
+
+        public void setLatencyHighWaterMs(long latencyHighWaterMs) {
+            this.latencyHighWaterMs = latencyHighWaterMs;
+        }
+
+        public long getLatencyLowWaterMs() {
+            return latencyLowWaterMs;
+        }
+
+        public void setLatencyLowWaterMs(long latencyLowWaterMs) {
+            this.latencyLowWaterMs = latencyLowWaterMs;
+        }
+
+        public int getPendingHighWater() {
+            return pendingHighWater;
+        }
+
+        public void setPendingHighWater(int pendingHighWater) {
+            this.pendingHighWater = pendingHighWater;
+        }
+
+        public int getPendingLowWater() {
+            return pendingLowWater;
+        }
+
+        public void setPendingLowWater(int pendingLowWater) {
+            this.pendingLowWater = pendingLowWater;
+        }
+
+        public long getCheckIntervalMs() {
+            return checkIntervalMs;
+        }
+
+        public void setCheckIntervalMs(long checkIntervalMs) {
+            this.checkIntervalMs = checkIntervalMs;
+        }
+
+        @Override
+        public String toString() {
+            return "BackpressureConfig{" +
+                    "enabled=" + enabled +
+                    ", latencyHighWaterMs=" + latencyHighWaterMs +
+                    ", latencyLowWaterMs=" + latencyLowWaterMs +
+                    ", pendingHighWater=" + pendingHighWater +
+                    ", pendingLowWater=" + pendingLowWater +
+                    ", checkIntervalMs=" + checkIntervalMs +
+                    '}';
+        }
+    }
+
+    public static class MultiplexedConfig {
+        private String consumerGroup = "kafka-correlation-monitor-multiplexed";
+        private ListenerMode listenerMode = ListenerMode.RECORD;
+        private IngestMode ingestMode = IngestMode.STRING;
+        private String concurrency = "1";
+        private ProcessingMode processingMode = ProcessingMode.SEQUENTIAL;
+
+        public String getConsumerGroup() {
+            return consumerGroup;
+        }
+
+        public void setConsumerGroup(String consumerGroup) {
+            this.consumerGroup = consumerGroup;
+        }
+
+        public ListenerMode getListenerMode() {
+            return listenerMode;
+        }
+
+        public void setListenerMode(ListenerMode listenerMode) {
+            this.listenerMode = listenerMode;
+        }
+
+        public IngestMode getIngestMode() {
+            return ingestMode;
+        }
+
+        public void setIngestMode(IngestMode ingestMode) {
+            this.ingestMode = ingestMode;
+        }
+
+        /**
+         * Number of consumer threads of the multiplexed container, or "auto" to match the largest partition count
+         */
+        public String getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(String concurrency) {
+            this.concurrency = validateConcurrency(concurrency);
+        }
+
+        public boolean isAutoConcurrency() {
+            return AUTO_CONCURRENCY.equalsIgnoreCase(concurrency);
+        }
+
+        public ProcessingMode getProcessingMode() {
+            return processingMode;
+        }
+
+        public void setProcessingMode(ProcessingMode processingMode) {
+            this.processingMode = processingMode;
+        }
+
+        @Override
+        public String toString() {
+            return "MultiplexedConfig{" +
+                    "consumerGroup='" + consumerGroup + '\'' +
+                    ", listenerMode=" + listenerMode +
+                    ", ingestMode=" + ingestMode +
+                    ", concurrency='" + concurrency + '\'' +
+                    ", processingMode=" + processingMode +
+                    '}';
+        }
+    }
+
+    /**
+     * A further stage of a correlation chain: its topic and the key of interest its records carry
+     */
+    public static class StageConfig {
+        private String topic;
+        private String keyOfInterest;
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        public String getKeyOfInterest() {
+            return keyOfInterest;
+        }
+
+        public void setKeyOfInterest(String keyOfInterest) {
+            this.keyOfInterest = keyOfInterest;
+        }
+
+        @Override
+        public String toString() {
+            return "StageConfig{" +
+                    "topic='" + topic + '\'' +
+                    ", keyOfInterest='" + keyOfInterest + '\'' +
+                    '}';
+        }
+    }
+
     public static class TopicConfig {
         private String name;
         private String consumerGroup;
         private String correlatedTopic;
         private String keyOfInterest;
         private String correlatedKeyOfInterest;
+        private ListenerMode listenerMode = ListenerMode.RECORD;
+        private IngestMode ingestMode = IngestMode.STRING;
+        private String concurrency = "1";
+        private ProcessingMode processingMode = ProcessingMode.SEQUENTIAL;
+        private Topology topology = Topology.DEDICATED;
+        private long correlationTimeoutSeconds = 0;
+        private TimeSemantics timeSemantics = TimeSemantics.PROCESSING;
+        private long correlationWindowSeconds = 0;
+        private List<StageConfig> nextStages = new ArrayList<>();
+        private OnMatch onMatch = OnMatch.UPDATE;
+        private String matchOutputTopic;
 
         public String getName() {
             return name;
@@ -66,6 +385,158 @@ public class KafkaTopicConfig {
             this.correlatedKeyOfInterest = correlatedKeyOfInterest;
         }
 
+        public ListenerMode getListenerMode() {
+            return listenerMode;
+        }
+
+        public void setListenerMode(ListenerMode listenerMode) {
+            this.listenerMode = listenerMode;
+        }
+
+        public IngestMode getIngestMode() {
+            return ingestMode;
+        }
+
+        public void setIngestMode(IngestMode ingestMode) {
+            this.ingestMode = ingestMode;
+        }
+
+        /**
+         * Number of consumer threads per topic of the pair, or "auto" to match each topic's partition count
+         */
+        public String getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(String concurrency) {
+            this.concurrency = validateConcurrency(concurrency);
+        }
+
+        public boolean isAutoConcurrency() {
+            return AUTO_CONCURRENCY.equalsIgnoreCase(concurrency);
+        }
+
+        public ProcessingMode getProcessingMode() {
+            return processingMode;
+        }
+
+        public void setProcessingMode(ProcessingMode processingMode) {
+            this.processingMode = processingMode;
+        }
+
+        public Topology getTopology() {
+            return topology;
+        }
+
+        public void setTopology(Topology topology) {
+            this.topology = topology;
+        }
+
+        /**
+         * Seconds an interesting event may wait for its correlated message before it counts as expired;
+         * 0 uses scheduler.monitor.age-threshold-seconds
+         */
+        public long getCorrelationTimeoutSeconds() {
+            return correlationTimeoutSeconds;
+        }
+
+        public void setCorrelationTimeoutSeconds(long correlationTimeoutSeconds) {
+            if (correlationTimeoutSeconds < 0) {
+                throw new IllegalArgumentException("Correlation timeout must not be negative: " + correlationTimeoutSeconds);
+            }
+            this.correlationTimeoutSeconds = correlationTimeoutSeconds;
+        }
+
+        public TimeSemantics getTimeSemantics() {
+            return timeSemantics;
+        }
+
+        public void setTimeSemantics(TimeSemantics timeSemantics) {
+            this.timeSemantics = timeSemantics;
+        }
+
+        public boolean isEventTime() {
+            return timeSemantics == TimeSemantics.EVENT;
+        }
+
+        /**
+         * Largest gap, in seconds of the pair's time semantics, between an interesting event and the
+         * correlated message that may still match it; 0 matches regardless of age
+         */
+        public long getCorrelationWindowSeconds() {
+            return correlationWindowSeconds;
+        }
+
+        public void setCorrelationWindowSeconds(long correlationWindowSeconds) {
+            if (correlationWindowSeconds < 0) {
+                throw new IllegalArgumentException("Correlation window must not be negative: " + correlationWindowSeconds);
+            }
+            this.correlationWindowSeconds = correlationWindowSeconds;
+        }
+
+        /**
+         * Stages that follow the correlated topic; any turns the pair into a chain of
+         * name → correlated-topic → next stages, tracked in memory per key of interest value
+         */
+        public List<StageConfig> getNextStages() {
+            return nextStages;
+        }
+
+        public void setNextStages(List<StageConfig> nextStages) {
+            List<StageConfig> stages = nextStages != null ? nextStages : new ArrayList<>();
+            if (stages.size() + 2 > MAX_CHAIN_STAGES) {
+                throw new IllegalArgumentException("A correlation chain has at most " + MAX_CHAIN_STAGES + " stages: " + (stages.size() + 2));
+            }
+            this.nextStages = stages;
+        }
+
+        public OnMatch getOnMatch() {
+            return onMatch;
+        }
+
+        public void setOnMatch(OnMatch onMatch) {
+            this.onMatch = onMatch != null ? onMatch : OnMatch.UPDATE;
+        }
+
+        public boolean isDeleteOnMatch() {
+            return onMatch == OnMatch.DELETE;
+        }
+
+        /**
+         * Topic that receives each matched pair when the pair deletes on match; without one the pair is only logged
+         */
+        public String getMatchOutputTopic() {
+            return matchOutputTopic;
+        }
+
+        public void setMatchOutputTopic(String matchOutputTopic) {
+            this.matchOutputTopic = matchOutputTopic;
+        }
+
+        public boolean isChain() {
+            return !nextStages.isEmpty();
+        }
+
+        /**
+         * Number of topics in the rule: two for a pair, more for a chain
+         */
+        public int getStageCount() {
+            return nextStages.size() + 2;
+        }
+
+        /**
+         * Topics of the rule in stage order: the main topic, the correlated topic, then the next stages
+         */
+        public List<String> getTopicNames() {
+            List<String> topicNames = new ArrayList<>(nextStages.size() + 2);
+            topicNames.add(name);
+            topicNames.add(correlatedTopic);
+            for (StageConfig stage : nextStages) {
+                topicNames.add(stage.getTopic());
+            }
+            return topicNames;
+        }
+
         @Override
         public String toString() {
             return "TopicConfig{" +
@@ -74,6 +545,17 @@ public class KafkaTopicConfig {
                     ", correlatedTopic='" + correlatedTopic + '\'' +
                     ", keyOfInterest='" + keyOfInterest + '\'' +
                     ", correlatedKeyOfInterest='" + correlatedKeyOfInterest + '\'' +
+                    ", listenerMode=" + listenerMode +
+                    ", ingestMode=" + ingestMode +
+                    ", concurrency='" + concurrency + '\'' +
+                    ", processingMode=" + processingMode +
+                    ", topology=" + topology +
+                    ", correlationTimeoutSeconds=" + correlationTimeoutSeconds +
+                    ", timeSemantics=" + timeSemantics +
+                    ", correlationWindowSeconds=" + correlationWindowSeconds +
+                    ", nextStages=" + nextStages +
+                    ", onMatch=" + onMatch +
+                    ", matchOutputTopic='" + matchOutputTopic + '\'' +
                     '}';
         }
     }
@@ -4,13 +4,17 @@ import com.example.restapi.constants.ApiConstants;
 import com.example.restapi.config.KafkaTopicConfig;
 import com.example.restapi.service.DynamicKafkaConsumerService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 @RestController
 @RequestMapping(ApiConstants.KAFKA_API_PATH + "/consumers")
@@ -18,26 +22,25 @@ import java.util.Map;
 public class KafkaConsumerController {
 
     private final DynamicKafkaConsumerService dynamicKafkaConsumerService;
-    private final KafkaTopicConfig kafkaTopicConfig;
 
     @Autowired
-    public KafkaConsumerController(DynamicKafkaConsumerService dynamicKafkaConsumerService, 
-                                 KafkaTopicConfig kafkaTopicConfig) {
+    public KafkaConsumerController(DynamicKafkaConsumerService dynamicKafkaConsumerService) {
         this.dynamicKafkaConsumerService = dynamicKafkaConsumerService;
-        this.kafkaTopicConfig = kafkaTopicConfig;
     }
 
     @GetMapping("/status")
     @Operation(
         summary = "Get Kafka consumers status",
-        description = "Returns the status of all configured Kafka consumers"
+        description = "Returns the status of all configured Kafka consumers, including consumer thread counts per container"
     )
     public ResponseEntity<Map<String, Object>> getConsumersStatus() {
         Map<String, Object> response = new HashMap<>();
+        List<KafkaTopicConfig.TopicConfig> pairs = dynamicKafkaConsumerService.getPairs();
         
         response.put("status", "ACTIVE");
-        response.put("totalConsumers", kafkaTopicConfig.getTopics().size());
-        response.put("consumers", kafkaTopicConfig.getTopics());
+        response.put("totalConsumers", pairs.size());
+        response.put("consumers", pairs);
+        response.put("containers", dynamicKafkaConsumerService.getContainerStatus());
         response.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(response);
@@ -46,13 +49,78 @@ public class KafkaConsumerController {
     @GetMapping("/topics")
     @Operation(
         summary = "Get configured Kafka topics",
-        description = "Returns the list of configured Kafka topics for consumption"
+        description = "Returns the list of Kafka topic pairs currently consumed, including pairs added at runtime"
     )
     public ResponseEntity<Map<String, Object>> getConfiguredTopics() {
         Map<String, Object> response = new HashMap<>();
+        List<KafkaTopicConfig.TopicConfig> pairs = dynamicKafkaConsumerService.getPairs();
         
-        response.put("topics", kafkaTopicConfig.getTopics());
-        response.put("count", kafkaTopicConfig.getTopics().size());
+        response.put("topics", pairs);
+        response.put("count", pairs.size());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/backpressure")
+    @Operation(
+        summary = "Get Kafka consumers backpressure",
+        description = "Returns the database latency average, pending persistence work and, per topic, whether it is paused by backpressure and for how long"
+    )
+    public ResponseEntity<Map<String, Object>> getBackpressure() {
+        Map<String, Object> response = new HashMap<>(dynamicKafkaConsumerService.getBackpressureStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/chains")
+    @Operation(
+        summary = "Get correlation chain status",
+        description = "Returns, per correlation chain, the keys waiting for further stages and the chains completed or expired"
+    )
+    public ResponseEntity<Map<String, Object>> getChains() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("chains", dynamicKafkaConsumerService.getChainStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/watermarks")
+    @Operation(
+        summary = "Get event time watermarks",
+        description = "Returns, per pair correlating on event time, its watermark, correlation window and the events expired behind it"
+    )
+    public ResponseEntity<Map<String, Object>> getWatermarks() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("watermarks", dynamicKafkaConsumerService.getWatermarkStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/latency")
+    @Operation(
+        summary = "Get correlation latency",
+        description = "Returns, per pair, the p50, p90, p99 and max time from an interesting event to its correlated message over a rolling window"
+    )
+    public ResponseEntity<Map<String, Object>> getLatency() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("latency", dynamicKafkaConsumerService.getLatencyStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/key-filter")
+    @Operation(
+        summary = "Get pending key filter statistics",
+        description = "Returns the lookups, definite misses, hits and false positives of the Bloom filters over pending key values, and each filter's size"
+    )
+    public ResponseEntity<Map<String, Object>> getKeyFilter() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("keyFilter", dynamicKafkaConsumerService.getKeyFilterStatus());
         response.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(response);
@@ -69,7 +137,7 @@ public class KafkaConsumerController {
         try {
             response.put("status", "UP");
             response.put("message", "Kafka consumers are active and listening");
-            response.put("activeConsumers", kafkaTopicConfig.getTopics().size());
+            response.put("activeConsumers", dynamicKafkaConsumerService.getPairs().size());
             response.put("timestamp", System.currentTimeMillis());
             
             return ResponseEntity.ok(response);
@@ -83,4 +151,87 @@ public class KafkaConsumerController {
             return ResponseEntity.status(503).body(response);
         }
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/pairs")
+    @Operation(
+        summary = "Add a topic pair",
+        description = "Starts consuming a new topic / correlated topic pair without restarting the other consumers"
+    )
+    public ResponseEntity<Map<String, Object>> addPair(@RequestBody KafkaTopicConfig.TopicConfig topicConfig) {
+        try {
+            dynamicKafkaConsumerService.addPair(topicConfig);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Topic pair added successfully");
+            response.put("pair", topicConfig);
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            
+        } catch (IllegalArgumentException e) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Invalid topic pair", e.getMessage());
+        } catch (IllegalStateException e) {
+            return errorResponse(HttpStatus.CONFLICT, "Topic pair conflict", e.getMessage());
+        } catch (Exception e) {
+            return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to add topic pair", e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/pairs/{name}")
+    @Operation(
+        summary = "Remove a topic pair",
+        description = "Stops the consumers of a topic pair; other pairs keep consuming"
+    )
+    public ResponseEntity<Map<String, Object>> removePair(
+            @Parameter(description = "Main topic of the pair", example = "user-events")
+            @PathVariable String name) {
+        return pairAction(name, "removed", dynamicKafkaConsumerService::removePair);
+    }
+
+    @PostMapping("/pairs/{name}/pause")
+    @Operation(
+        summary = "Pause a topic pair",
+        description = "Pauses both consumers of a topic pair; partitions stay assigned so no rebalance is triggered"
+    )
+    public ResponseEntity<Map<String, Object>> pausePair(
+            @Parameter(description = "Main topic of the pair", example = "user-events")
+            @PathVariable String name) {
+        return pairAction(name, "paused", dynamicKafkaConsumerService::pausePair);
+    }
+
+    @PostMapping("/pairs/{name}/resume")
+    @Operation(
+        summary = "Resume a topic pair",
+        description = "Resumes both consumers of a paused topic pair"
+    )
+    public ResponseEntity<Map<String, Object>> resumePair(
+            @Parameter(description = "Main topic of the pair", example = "user-events")
+            @PathVariable String name) {
+        return pairAction(name, "resumed", dynamicKafkaConsumerService::resumePair);
+    }
+
+    private ResponseEntity<Map<String, Object>> pairAction(String name, String action,
+                                                           Predicate<String> operation) {
+        try {
+            if (!operation.test(name)) {
+                return errorResponse(HttpStatus.NOT_FOUND, "Topic pair not found", "No topic pair found with name: " + name);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Topic pair " + action + " successfully");
+            response.put("pair", name);
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to update topic pair", e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> errorResponse(HttpStatus status, String error, String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", error);
+        errorResponse.put("message", message);
+        errorResponse.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
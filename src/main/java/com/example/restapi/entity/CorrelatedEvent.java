@@ -0,0 +1,108 @@
+package com.example.restapi.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Interesting event that has been correlated, with its correlated message. Rows are moved here from
+ * {@code pending_events} and keep the id they were given there.
+ */
+@Entity
+@Table(name = "correlated_events")
+public class CorrelatedEvent {
+
+    @Id
+    private Long id;
+
+    @Column(name = "topic_name", nullable = false, length = 100)
+    private String topicName;
+
+    @Column(name = "key_of_interest_name", nullable = false, length = 100)
+    private String keyOfInterestName;
+
+    @Column(name = "key_of_interest_value", nullable = false, length = 500)
+    private String keyOfInterestValue;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "correlated_message", length = 1000)
+    private String correlatedMessage;
+
+    @Column(name = "correlation_timestamp", nullable = false)
+    private Instant correlationTimestamp;
+
+    // Default constructor
+    public CorrelatedEvent() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public void setTopicName(String topicName) {
+        this.topicName = topicName;
+    }
+
+    public String getKeyOfInterestName() {
+        return keyOfInterestName;
+    }
+
+    public void setKeyOfInterestName(String keyOfInterestName) {
+        this.keyOfInterestName = keyOfInterestName;
+    }
+
+    public String getKeyOfInterestValue() {
+        return keyOfInterestValue;
+    }
+
+    public void setKeyOfInterestValue(String keyOfInterestValue) {
+        this.keyOfInterestValue = keyOfInterestValue;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getCorrelatedMessage() {
+        return correlatedMessage;
+    }
+
+    public void setCorrelatedMessage(String correlatedMessage) {
+        this.correlatedMessage = correlatedMessage;
+    }
+
+    public Instant getCorrelationTimestamp() {
+        return correlationTimestamp;
+    }
+
+    public void setCorrelationTimestamp(Instant correlationTimestamp) {
+        this.correlationTimestamp = correlationTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "CorrelatedEvent{" +
+                "id=" + id +
+                ", topicName='" + topicName + '\'' +
+                ", keyOfInterestName='" + keyOfInterestName + '\'' +
+                ", keyOfInterestValue='" + keyOfInterestValue + '\'' +
+                ", createdAt=" + createdAt +
+                ", correlatedMessage='" + correlatedMessage + '\'' +
+                ", correlationTimestamp=" + correlationTimestamp +
+                '}';
+    }
+}
@@ -1,14 +1,32 @@
 package com.example.restapi.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
 import java.time.Instant;
 
+/**
+ * Read model over {@code pending_events} and {@code correlated_events}, for the REST API.
+ * Events are written through {@link PendingEvent} and moved to {@link CorrelatedEvent} once correlated.
+ */
 @Entity
-@Table(name = "interesting_events")
+@Immutable
+@Subselect(InterestingEvent.EVENTS_SQL)
+@Synchronize({"pending_events", "correlated_events"})
 public class InterestingEvent {
 
+    /**
+     * Pending and correlated events as one relation, in the shape of the former interesting_events table
+     */
+    public static final String EVENTS_SQL = "SELECT pe.id, pe.topic_name, pe.key_of_interest_name, pe.key_of_interest_value, " +
+        "pe.created_at, CAST(NULL AS VARCHAR(1000)) AS correlated_message, FALSE AS is_correlated, " +
+        "CAST(NULL AS TIMESTAMP) AS correlation_timestamp FROM pending_events pe " +
+        "UNION ALL SELECT ce.id, ce.topic_name, ce.key_of_interest_name, ce.key_of_interest_value, ce.created_at, " +
+        "ce.correlated_message, TRUE AS is_correlated, ce.correlation_timestamp FROM correlated_events ce";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "topic_name", nullable = false, length = 100)
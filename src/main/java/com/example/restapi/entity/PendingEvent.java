@@ -0,0 +1,93 @@
+package com.example.restapi.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Interesting event still waiting for its correlated message. Only the columns matching needs are kept,
+ * so the table and its key index stay small however many correlated events are kept.
+ */
+@Entity
+@Table(name = "pending_events")
+public class PendingEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic_name", nullable = false, length = 100)
+    private String topicName;
+
+    @Column(name = "key_of_interest_name", nullable = false, length = 100)
+    private String keyOfInterestName;
+
+    @Column(name = "key_of_interest_value", nullable = false, length = 500)
+    private String keyOfInterestValue;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Default constructor
+    public PendingEvent() {
+    }
+
+    // Constructor with parameters
+    public PendingEvent(String topicName, String keyOfInterestName, String keyOfInterestValue, Instant createdAt) {
+        this.topicName = topicName;
+        this.keyOfInterestName = keyOfInterestName;
+        this.keyOfInterestValue = keyOfInterestValue;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public void setTopicName(String topicName) {
+        this.topicName = topicName;
+    }
+
+    public String getKeyOfInterestName() {
+        return keyOfInterestName;
+    }
+
+    public void setKeyOfInterestName(String keyOfInterestName) {
+        this.keyOfInterestName = keyOfInterestName;
+    }
+
+    public String getKeyOfInterestValue() {
+        return keyOfInterestValue;
+    }
+
+    public void setKeyOfInterestValue(String keyOfInterestValue) {
+        this.keyOfInterestValue = keyOfInterestValue;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingEvent{" +
+                "id=" + id +
+                ", topicName='" + topicName + '\'' +
+                ", keyOfInterestName='" + keyOfInterestName + '\'' +
+                ", keyOfInterestValue='" + keyOfInterestValue + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.restapi.repository;
+
+import com.example.restapi.entity.CorrelatedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Correlated events; rows are moved in by {@link InterestingEventRepository#correlateById} and the
+ * claims of {@link PendingEventClaims}
+ */
+@Repository
+public interface CorrelatedEventRepository extends JpaRepository<CorrelatedEvent, Long> {
+}
@@ -1,18 +1,25 @@
 package com.example.restapi.repository;
 
 import com.example.restapi.entity.InterestingEvent;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface InterestingEventRepository extends JpaRepository<InterestingEvent, Long> {
+public interface InterestingEventRepository extends JpaRepository<InterestingEvent, Long>, PendingEventClaims {
 
     /**
      * Find interesting events by topic name with pagination
@@ -44,7 +51,8 @@ public interface InterestingEventRepository extends JpaRepository<InterestingEve
     /**
      * Find interesting events with offset-based pagination
      */
-    @Query(value = "SELECT * FROM interesting_events ORDER BY created_at DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    @Query(value = "SELECT * FROM (" + InterestingEvent.EVENTS_SQL + ") ie ORDER BY created_at DESC LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
     List<InterestingEvent> findAllWithOffset(@Param("offset") int offset, @Param("limit") int limit);
 
     /**
@@ -64,27 +72,132 @@ public interface InterestingEventRepository extends JpaRepository<InterestingEve
     long countByKeyOfInterestName(String keyOfInterestName);
 
     /**
-     * Find interesting events by key name and value for correlation matching
+     * Id, topic, key name, key value and creation time of every pending event, oldest first,
+     * for loading the correlation index
+     */
+    @Query("SELECT pe.id, pe.topicName, pe.keyOfInterestName, pe.keyOfInterestValue, pe.createdAt FROM PendingEvent pe " +
+           "ORDER BY pe.createdAt ASC, pe.id ASC")
+    List<Object[]> findUncorrelatedForIndex();
+
+    /**
+     * Key name and value of every pending event, streamed for building the pending key filters;
+     * must be consumed and closed within a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT pe.keyOfInterestName, pe.keyOfInterestValue FROM PendingEvent pe")
+    Stream<Object[]> streamUncorrelatedKeys();
+
+    /**
+     * Topic name and creation time of a pending event, checked against its key since the off-heap
+     * correlation index only knows a hash of it
+     */
+    @Query("SELECT pe.topicName, pe.createdAt FROM PendingEvent pe WHERE pe.id = :id AND pe.keyOfInterestName = :keyName " +
+           "AND pe.keyOfInterestValue = :keyValue")
+    List<Object[]> findPendingById(@Param("id") Long id, @Param("keyName") String keyName, @Param("keyValue") String keyValue);
+
+    /**
+     * Id, topic and creation time of the most recent pending events for the key created at or after
+     * {@code notBefore}
+     */
+    @Query("SELECT pe.id, pe.topicName, pe.createdAt FROM PendingEvent pe WHERE pe.keyOfInterestName = :keyName " +
+           "AND pe.keyOfInterestValue = :keyValue AND pe.createdAt >= :notBefore " +
+           "ORDER BY pe.createdAt DESC, pe.id DESC")
+    List<Object[]> findMostRecentForCorrelation(@Param("keyName") String keyName, @Param("keyValue") String keyValue,
+                                                @Param("notBefore") Instant notBefore, Pageable pageable);
+
+    /**
+     * Delete a single pending event that has just been matched. Of two concurrent matches for the same
+     * event only one deletes it, so this is also how a match claims its event.
+     *
+     * @return 1 if the event was deleted, 0 if it no longer exists, was already correlated or has another key
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PendingEvent pe WHERE pe.id = :id AND pe.keyOfInterestName = :keyName " +
+           "AND pe.keyOfInterestValue = :keyValue")
+    int deleteUncorrelatedById(@Param("id") Long id, @Param("keyName") String keyName, @Param("keyValue") String keyValue);
+
+    /**
+     * Reserve an id for an event stored straight into correlated_events, from the sequence that generates
+     * pending_events ids
+     */
+    @Query(value = "CALL NEXT VALUE FOR event_id_seq", nativeQuery = true)
+    Long reserveEventId();
+
+    /**
+     * Insert the correlated row of an event, under the id it was given by pending_events
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO correlated_events (id, topic_name, key_of_interest_name, key_of_interest_value, created_at, " +
+                   "correlated_message, correlation_timestamp) VALUES (:id, :topicName, :keyName, :keyValue, :createdAt, " +
+                   ":correlatedMessage, :correlationTimestamp)", nativeQuery = true)
+    int insertCorrelated(@Param("id") Long id, @Param("topicName") String topicName, @Param("keyName") String keyName,
+                         @Param("keyValue") String keyValue, @Param("createdAt") Instant createdAt,
+                         @Param("correlatedMessage") String correlatedMessage,
+                         @Param("correlationTimestamp") Instant correlationTimestamp);
+
+    /**
+     * Move a single pending event to correlated_events with its correlated message, in one transaction:
+     * the delete claims the event, then its row is inserted from the values the caller already holds.
+     * The key is checked as well, since the off-heap correlation index only knows a hash of it.
+     *
+     * @return 1 if the event was correlated, 0 if it no longer exists, was already correlated or has another key
+     */
+    @Transactional
+    default int correlateById(Long id, String topicName, String keyName, String keyValue, Instant createdAt,
+                              String correlatedMessage, Instant correlationTimestamp) {
+        if (deleteUncorrelatedById(id, keyName, keyValue) != 1) {
+            return 0;
+        }
+        return insertCorrelated(id, topicName, keyName, keyValue, createdAt, correlatedMessage, correlationTimestamp);
+    }
+
+    /**
+     * Delete a pending event by id
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PendingEvent pe WHERE pe.id = :id")
+    int deletePendingById(@Param("id") Long id);
+
+    /**
+     * Delete a correlated event by id
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CorrelatedEvent ce WHERE ce.id = :id")
+    int deleteCorrelatedById(@Param("id") Long id);
+
+    /**
+     * Count correlated events
      */
-    @Query("SELECT ie FROM InterestingEvent ie WHERE ie.keyOfInterestName = :keyName AND ie.keyOfInterestValue = :keyValue AND ie.isCorrelated = false ORDER BY ie.createdAt DESC")
-    List<InterestingEvent> findByKeyNameAndValueForCorrelation(@Param("keyName") String keyName, @Param("keyValue") String keyValue);
+    @Query("SELECT COUNT(ce) FROM CorrelatedEvent ce")
+    long countCorrelated();
 
     /**
-     * Count interesting events where isCorrelated is true
+     * Delete up to {@code limit} correlated events, lowest ids first, with one bulk statement that loads no entity
+     *
+     * @return the number of events deleted; fewer than {@code limit} means no correlated event is left
      */
-    long countByIsCorrelatedTrue();
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM correlated_events WHERE id IN (SELECT ce.id FROM correlated_events ce " +
+                   "ORDER BY ce.id LIMIT :limit)", nativeQuery = true)
+    int deleteCorrelatedChunk(@Param("limit") int limit);
 
     /**
-     * Delete interesting events where isCorrelated is true
+     * Count pending events of a topic created before the specified timestamp
      */
-    long deleteByIsCorrelatedTrue();
+    @Query("SELECT COUNT(pe) FROM PendingEvent pe WHERE pe.topicName = :topicName AND pe.createdAt < :createdAt")
+    long countPendingByTopicCreatedBefore(@Param("topicName") String topicName, @Param("createdAt") Instant createdAt);
 
     /**
-     * Find uncorrelated events older than specified timestamp, grouped by topic name
+     * Find pending events older than specified timestamp, grouped by topic name
      */
-    @Query("SELECT ie.topicName, COUNT(ie) FROM InterestingEvent ie " +
-           "WHERE ie.isCorrelated = false AND ie.createdAt < :threshold " +
-           "GROUP BY ie.topicName " +
-           "HAVING COUNT(ie) > 0")
+    @Query("SELECT pe.topicName, COUNT(pe) FROM PendingEvent pe " +
+           "WHERE pe.createdAt < :threshold " +
+           "GROUP BY pe.topicName " +
+           "HAVING COUNT(pe) > 0")
     List<Object[]> findUncorrelatedEventsOlderThanGroupedByTopic(@Param("threshold") Instant threshold);
-} 
\ No newline at end of file
+} 
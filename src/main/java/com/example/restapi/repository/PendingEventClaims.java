@@ -0,0 +1,35 @@
+package com.example.restapi.repository;
+
+import java.time.Instant;
+
+/**
+ * Set-based claims of pending events: the pending row is copied into correlated_events by one
+ * {@code INSERT ... SELECT}, which hands back the columns the caller needs, then deleted by id.
+ * The primary key of correlated_events lets only one of two concurrent claims of the same event succeed.
+ */
+public interface PendingEventClaims {
+
+    /**
+     * Pending event moved to correlated_events
+     */
+    record ClaimedEvent(Long id, String topicName, Instant createdAt) {
+    }
+
+    /**
+     * Move the most recent pending event for the key created at or after {@code notBefore} to
+     * correlated_events with its correlated message
+     *
+     * @return the claimed event, or null if no pending event of the key is left in the window
+     */
+    ClaimedEvent claimMostRecent(String keyName, String keyValue, Instant notBefore, String correlatedMessage,
+                                 Instant correlationTimestamp);
+
+    /**
+     * Move a single pending event to correlated_events with its correlated message. The key is checked
+     * as well, since the off-heap correlation index only knows a hash of it.
+     *
+     * @return the claimed event, or null if it no longer exists, was already correlated or has another key
+     */
+    ClaimedEvent claimById(Long id, String keyName, String keyValue, String correlatedMessage,
+                           Instant correlationTimestamp);
+}
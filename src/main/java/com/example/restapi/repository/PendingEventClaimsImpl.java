@@ -0,0 +1,104 @@
+package com.example.restapi.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * JDBC implementation of {@link PendingEventClaims}, run in the caller's transaction
+ */
+public class PendingEventClaimsImpl implements PendingEventClaims {
+
+    private static final String CLAIM_COLUMNS = "INSERT INTO correlated_events (id, topic_name, key_of_interest_name, " +
+        "key_of_interest_value, created_at, correlated_message, correlation_timestamp) " +
+        "SELECT id, topic_name, key_of_interest_name, key_of_interest_value, created_at, ?, ? FROM pending_events ";
+
+    static final String CLAIM_MOST_RECENT_SQL = CLAIM_COLUMNS +
+        "WHERE id = (SELECT pe.id FROM pending_events pe WHERE pe.key_of_interest_name = ? " +
+        "AND pe.key_of_interest_value = ? AND pe.created_at >= ? ORDER BY pe.created_at DESC, pe.id DESC LIMIT 1)";
+
+    static final String CLAIM_BY_ID_SQL = CLAIM_COLUMNS +
+        "WHERE id = ? AND key_of_interest_name = ? AND key_of_interest_value = ?";
+
+    private static final String PENDING_DELETE_SQL = "DELETE FROM pending_events WHERE id = ?";
+
+    private static final String CORRELATED_DELETE_SQL = "DELETE FROM correlated_events WHERE id = ?";
+
+    private static final String[] CLAIMED_COLUMNS = {"ID", "TOPIC_NAME", "CREATED_AT"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PendingEventClaimsImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public ClaimedEvent claimMostRecent(String keyName, String keyValue, Instant notBefore, String correlatedMessage,
+                                        Instant correlationTimestamp) {
+        while (true) {
+            ClaimedEvent claimed;
+            try {
+                claimed = insertClaim(CLAIM_MOST_RECENT_SQL, correlatedMessage, correlationTimestamp,
+                    keyName, keyValue, Timestamp.from(notBefore));
+            } catch (DuplicateKeyException e) {
+                // A concurrent match claimed the same event first, the next one is now the most recent
+                continue;
+            }
+            if (claimed == null || deletePending(claimed)) {
+                return claimed;
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public ClaimedEvent claimById(Long id, String keyName, String keyValue, String correlatedMessage,
+                                  Instant correlationTimestamp) {
+        ClaimedEvent claimed;
+        try {
+            claimed = insertClaim(CLAIM_BY_ID_SQL, correlatedMessage, correlationTimestamp, id, keyName, keyValue);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+        return claimed == null || deletePending(claimed) ? claimed : null;
+    }
+
+    private ClaimedEvent insertClaim(String sql, String correlatedMessage, Instant correlationTimestamp,
+                                     Object... criteria) {
+        return jdbcTemplate.execute((ConnectionCallback<ClaimedEvent>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, CLAIMED_COLUMNS)) {
+                ps.setString(1, correlatedMessage);
+                ps.setTimestamp(2, Timestamp.from(correlationTimestamp));
+                for (int i = 0; i < criteria.length; i++) {
+                    ps.setObject(i + 3, criteria[i]);
+                }
+                if (ps.executeUpdate() == 0) {
+                    return null;
+                }
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    return new ClaimedEvent(keys.getLong(1), keys.getString(2), keys.getTimestamp(3).toInstant());
+                }
+            }
+        });
+    }
+
+    /**
+     * Delete the pending row of a claimed event, or take the claim back if the row was deleted meanwhile
+     * by a match of a pair that deletes on match
+     */
+    private boolean deletePending(ClaimedEvent claimed) {
+        if (jdbcTemplate.update(PENDING_DELETE_SQL, claimed.id()) == 1) {
+            return true;
+        }
+        jdbcTemplate.update(CORRELATED_DELETE_SQL, claimed.id());
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.restapi.repository;
+
+import com.example.restapi.entity.PendingEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Inserts of pending events; correlation queries live in {@link InterestingEventRepository}
+ */
+@Repository
+public interface PendingEventRepository extends JpaRepository<PendingEvent, Long> {
+}
@@ -0,0 +1,227 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory state of correlation chains (order → payment → shipment → delivery, ...).
+ * <p>
+ * Each key of interest value seen on a chain has one compact state: a bitmask of the stages it has
+ * reached and the epoch millisecond at which each stage arrived. A record advances its key's state with a
+ * single atomic map operation; stages may arrive in any order and a repeated stage keeps its first
+ * timestamp. Once every bit is set the chain is complete, its per-stage timings are logged and the state is
+ * dropped. States that do not complete within the rule's correlation timeout are dropped by a periodic
+ * sweep and counted as expired, with the stages that never arrived.
+ * <p>
+ * Chains keep no rows in pending_events, so a key costs one small object instead of one row per pair.
+ */
+@Component
+public class ChainCorrelationTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChainCorrelationTracker.class);
+
+    private final ConcurrentMap<ChainKey, ChainState> states = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ChainStats> stats = new ConcurrentHashMap<>();
+    private final long defaultTimeoutSeconds;
+    private final Clock clock;
+
+    @Autowired
+    public ChainCorrelationTracker(@Value("${scheduler.monitor.age-threshold-seconds:300}") long defaultTimeoutSeconds) {
+        this(defaultTimeoutSeconds, Clock.systemUTC());
+    }
+
+    ChainCorrelationTracker(long defaultTimeoutSeconds, Clock clock) {
+        this.defaultTimeoutSeconds = defaultTimeoutSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Record that a stage of a chain was reached for a key of interest value
+     *
+     * @return true if this record completed the chain for the key
+     */
+    public boolean advance(TopicRoute route, String keyOfInterestValue) {
+        KafkaTopicConfig.TopicConfig chain = route.getTopicConfig();
+        int stages = chain.getStageCount();
+        int stage = route.getStageIndex();
+        long now = clock.millis();
+        ChainStats chainStats = stats.computeIfAbsent(chain.getName(), name -> new ChainStats());
+        ChainState[] completed = new ChainState[1];
+        boolean[] duplicate = new boolean[1];
+
+        states.compute(new ChainKey(chain.getName(), keyOfInterestValue), (key, state) -> {
+            if (state == null) {
+                state = new ChainState(stages, timeoutMillis(chain));
+                chainStats.pending.increment();
+            }
+            if (!state.reach(stage, now)) {
+                duplicate[0] = true;
+                return state;
+            }
+            if (state.isComplete()) {
+                completed[0] = state;
+                return null;
+            }
+            return state;
+        });
+
+        if (duplicate[0]) {
+            chainStats.duplicates.increment();
+            logger.debug("Chain '{}' already reached stage {} ('{}') for value: '{}'",
+                chain.getName(), stage, route.getTopic(), keyOfInterestValue);
+            return false;
+        }
+        if (completed[0] == null) {
+            logger.info("Chain '{}' reached stage {} ('{}') for value: '{}'", chain.getName(), stage, route.getTopic(), keyOfInterestValue);
+            return false;
+        }
+        chainStats.pending.decrement();
+        chainStats.completed.increment();
+        logger.info("CHAIN CORRELATION COMPLETE! Chain: '{}', Key: '{}', Value: '{}', Stages: {}, Duration: {} ms",
+            chain.getName(), chain.getKeyOfInterest(), keyOfInterestValue,
+            stageTimings(chain, completed[0]), completed[0].lastMillis() - completed[0].firstMillis());
+        return true;
+    }
+
+    /**
+     * Drop chains that did not complete within their timeout
+     */
+    @Scheduled(fixedDelayString = "${scheduler.monitor.chain-sweep-interval-seconds:10}000")
+    public void expireIncompleteChains() {
+        long now = clock.millis();
+        for (ChainKey key : states.keySet()) {
+            ChainState[] expired = new ChainState[1];
+            // Decided inside the key's compute, so a stage arriving at the same time is not lost
+            states.computeIfPresent(key, (k, state) -> {
+                if (now - state.firstMillis() < state.timeoutMillis) {
+                    return state;
+                }
+                expired[0] = state;
+                return null;
+            });
+            if (expired[0] != null) {
+                ChainStats chainStats = stats.get(key.chainName());
+                chainStats.pending.decrement();
+                chainStats.expired.increment();
+                logger.warn("Chain '{}' for value: '{}' did not complete within {} seconds; missing stages: {}",
+                    key.chainName(), key.keyOfInterestValue(), expired[0].timeoutMillis / 1000, expired[0].missingStages());
+            }
+        }
+    }
+
+    /**
+     * Pending, completed, expired and duplicate stage counts per chain, for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new TreeMap<>();
+        stats.forEach((chainName, chainStats) -> {
+            Map<String, Object> chainStatus = new LinkedHashMap<>();
+            chainStatus.put("pending", chainStats.pending.sum());
+            chainStatus.put("completed", chainStats.completed.sum());
+            chainStatus.put("expired", chainStats.expired.sum());
+            chainStatus.put("duplicateStages", chainStats.duplicates.sum());
+            status.put(chainName, chainStatus);
+        });
+        return status;
+    }
+
+    /**
+     * Timeout of a chain: its correlation timeout, or the monitor age threshold
+     */
+    long timeoutMillis(KafkaTopicConfig.TopicConfig chain) {
+        long seconds = chain.getCorrelationTimeoutSeconds() > 0 ? chain.getCorrelationTimeoutSeconds() : defaultTimeoutSeconds;
+        return Duration.ofSeconds(seconds).toMillis();
+    }
+
+    private static List<String> stageTimings(KafkaTopicConfig.TopicConfig chain, ChainState state) {
+        List<String> topics = chain.getTopicNames();
+        List<String> timings = new ArrayList<>(topics.size());
+        for (int stage = 0; stage < topics.size(); stage++) {
+            timings.add(topics.get(stage) + "@" + Instant.ofEpochMilli(state.stageMillis[stage]));
+        }
+        return timings;
+    }
+
+    private record ChainKey(String chainName, String keyOfInterestValue) {
+    }
+
+    private static final class ChainStats {
+        private final LongAdder pending = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+    }
+
+    /**
+     * Stages reached by one key: bit i of the mask is set once stage i arrived, at stageMillis[i].
+     * Only touched inside the map's compute for its key.
+     */
+    private static final class ChainState {
+
+        private final long[] stageMillis;
+        private final int completeMask;
+        private final long timeoutMillis;
+        private int reachedMask;
+        private long firstMillis = Long.MAX_VALUE;
+
+        private ChainState(int stages, long timeoutMillis) {
+            this.stageMillis = new long[stages];
+            this.completeMask = stages == Integer.SIZE ? -1 : (1 << stages) - 1;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        boolean reach(int stage, long millis) {
+            int bit = 1 << stage;
+            if ((reachedMask & bit) != 0) {
+                return false;
+            }
+            reachedMask |= bit;
+            stageMillis[stage] = millis;
+            firstMillis = Math.min(firstMillis, millis);
+            return true;
+        }
+
+        boolean isComplete() {
+            return reachedMask == completeMask;
+        }
+
+        long firstMillis() {
+            return firstMillis;
+        }
+
+        long lastMillis() {
+            long last = 0;
+            for (long millis : stageMillis) {
+                last = Math.max(last, millis);
+            }
+            return last;
+        }
+
+        List<Integer> missingStages() {
+            List<Integer> missing = new ArrayList<>();
+            for (int stage = 0; stage < stageMillis.length; stage++) {
+                if ((reachedMask & (1 << stage)) == 0) {
+                    missing.add(stage);
+                }
+            }
+            return missing;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.restapi.service;
+
+import com.example.restapi.repository.InterestingEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * In-memory index of interesting events still waiting for their correlated message, keyed by
+ * (key of interest name, key of interest value).
+ * <p>
+ * The index is loaded from the database at startup and then kept in step with every insert
+ * (including events still queued in the write-behind stage), correlation and delete, so a correlated
+ * record finds its match with a hash lookup instead of a query, and a record without a pending match
+ * never touches the database. Within a key the most recent event is matched first, as the correlation
+ * query did. The index assumes this instance is the only writer of the pending_events table.
+ * <p>
+ * With the {@code off-heap} store, committed events live in an {@link OffHeapPendingEventStore} instead of
+ * on the heap; only events still queued for write-behind are kept on the heap until they are flushed.
+ * If the off-heap store fills up the index disables itself and correlation falls back to the database query.
+ * <p>
+ * Every event on the heap has its correlation deadline tracked by the {@link CorrelationTimeoutWheel}.
+ */
+@Component
+public class CorrelationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationIndex.class);
+
+    /**
+     * Value of {@code persistence.correlation-index.store} that keeps committed events off the heap
+     */
+    public static final String OFF_HEAP_STORE = "off-heap";
+
+    private final InterestingEventRepository interestingEventRepository;
+    private final boolean enabled;
+    private final ConcurrentMap<Key, Deque<Entry>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final OffHeapPendingEventStore offHeapStore;
+    private final CorrelationTimeoutWheel timeoutWheel;
+    private volatile boolean overflowed;
+
+    @Autowired
+    public CorrelationIndex(InterestingEventRepository interestingEventRepository,
+                            @Value("${persistence.correlation-index.enabled:true}") boolean enabled,
+                            @Value("${persistence.correlation-index.store:heap}") String store,
+                            @Value("${persistence.correlation-index.off-heap.file:./data/correlation-index.bin}") String offHeapFile,
+                            @Value("${persistence.correlation-index.off-heap.capacity:4194304}") long offHeapCapacity,
+                            CorrelationTimeoutWheel timeoutWheel) {
+        this(interestingEventRepository, enabled, enabled && OFF_HEAP_STORE.equalsIgnoreCase(store)
+            ? openOffHeapStore(Path.of(offHeapFile), offHeapCapacity)
+            : null, timeoutWheel);
+    }
+
+    CorrelationIndex(InterestingEventRepository interestingEventRepository, boolean enabled) {
+        this(interestingEventRepository, enabled, null, null);
+    }
+
+    CorrelationIndex(InterestingEventRepository interestingEventRepository, boolean enabled,
+                     OffHeapPendingEventStore offHeapStore, CorrelationTimeoutWheel timeoutWheel) {
+        this.interestingEventRepository = interestingEventRepository;
+        this.enabled = enabled;
+        this.offHeapStore = offHeapStore;
+        this.timeoutWheel = timeoutWheel;
+    }
+
+    private static OffHeapPendingEventStore openOffHeapStore(Path file, long capacity) {
+        try {
+            return OffHeapPendingEventStore.open(file, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open off-heap pending event store: " + file, e);
+        }
+    }
+
+    /**
+     * Load every uncorrelated event, oldest first, before the consumers start.
+     * An off-heap store restored from a clean shutdown is used as is.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        if (offHeapStore != null && offHeapStore.isRestored()) {
+            logger.info("Restored {} uncorrelated interesting events into the correlation index from the off-heap store",
+                offHeapStore.size());
+            return;
+        }
+        List<Object[]> uncorrelated = interestingEventRepository.findUncorrelatedForIndex();
+        for (Object[] row : uncorrelated) {
+            add(Entry.persisted((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (Instant) row[4]));
+        }
+        logger.info("Loaded {} uncorrelated interesting events into the correlation index", uncorrelated.size());
+    }
+
+    /**
+     * Whether correlations are matched through the index; false once an off-heap store overflowed
+     */
+    public boolean isEnabled() {
+        return enabled && !overflowed;
+    }
+
+    /**
+     * Whether the timeout wheel sees every pending event, so its expired counts can replace the monitor query.
+     * Events in the off-heap store are not tracked.
+     */
+    public boolean tracksTimeouts() {
+        return isEnabled() && offHeapStore == null && timeoutWheel != null && timeoutWheel.isEnabled();
+    }
+
+    /**
+     * Register an event that is waiting for its correlated message
+     */
+    public void add(Entry entry) {
+        if (offHeapStore != null && entry.pendingWrite == null) {
+            addOffHeap(entry.key, entry.id, entry.createdAt);
+            return;
+        }
+        if (timeoutWheel != null) {
+            entry.timeout = timeoutWheel.schedule(entry.topicName, entry.createdAt);
+        }
+        pending.compute(entry.key, (key, entries) -> {
+            Deque<Entry> target = entries != null ? entries : new ArrayDeque<>();
+            target.addLast(entry);
+            return target;
+        });
+        size.incrementAndGet();
+    }
+
+    /**
+     * Remove and return the most recent event waiting for the key, or null if none is pending
+     */
+    public Entry claimMostRecent(String keyOfInterestName, String keyOfInterestValue) {
+        return claimMostRecent(keyOfInterestName, keyOfInterestValue, null);
+    }
+
+    /**
+     * Remove and return the most recent event waiting for the key that was created at or after
+     * notBefore, or null if none is pending
+     *
+     * @param notBefore start of the correlation window, or null to accept any event
+     */
+    public Entry claimMostRecent(String keyOfInterestName, String keyOfInterestValue, Instant notBefore) {
+        Key key = new Key(keyOfInterestName, keyOfInterestValue);
+        Entry[] claimed = new Entry[1];
+        pending.computeIfPresent(key, (k, entries) -> {
+            if (notBefore == null) {
+                claimed[0] = entries.pollLast();
+            } else {
+                // Under event time the most recently added event is not necessarily the youngest: pick the
+                // in-window event created last, ties going to the highest id, as the correlation query does
+                Entry youngest = null;
+                for (Entry candidate : entries) {
+                    if ((candidate.createdAt == null || !candidate.createdAt.isBefore(notBefore))
+                            && (youngest == null || isYounger(candidate, youngest))) {
+                        youngest = candidate;
+                    }
+                }
+                if (youngest != null) {
+                    entries.remove(youngest);
+                    claimed[0] = youngest;
+                }
+            }
+            return entries.isEmpty() ? null : entries;
+        });
+        if (claimed[0] != null) {
+            size.decrementAndGet();
+            cancelTimeout(claimed[0]);
+            return claimed[0];
+        }
+        if (offHeapStore != null) {
+            // Queued events on the heap are always newer than the committed ones off the heap
+            OffHeapPendingEventStore.Claimed stored = offHeapStore.claimMostRecent(
+                OffHeapPendingEventStore.keyHash(keyOfInterestName, keyOfInterestValue));
+            if (stored != null && notBefore != null && stored.createdAtMillis() < notBefore.toEpochMilli()) {
+                // Only the most recent committed event is considered, as the correlation query does
+                addOffHeap(key, stored.id(), Instant.ofEpochMilli(stored.createdAtMillis()));
+                return null;
+            }
+            if (stored != null) {
+                return new Entry(key, null, Instant.ofEpochMilli(stored.createdAtMillis()), stored.id(), null);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether a pending event sorts before another in {@code created_at DESC, id DESC} order. An event
+     * without a creation time counts as created now, and one still queued for write-behind, without an
+     * id yet, as newer than any inserted one.
+     */
+    private static boolean isYounger(Entry candidate, Entry other) {
+        if (candidate.createdAt == null || other.createdAt == null) {
+            return candidate.createdAt == null && other.createdAt != null;
+        }
+        int byCreatedAt = candidate.createdAt.compareTo(other.createdAt);
+        if (byCreatedAt != 0) {
+            return byCreatedAt > 0;
+        }
+        Long candidateId = candidate.id();
+        Long otherId = other.id();
+        if (candidateId == null || otherId == null) {
+            return candidateId == null && otherId != null;
+        }
+        return candidateId > otherId;
+    }
+
+    /**
+     * Move a write-behind entry whose row has been committed into the off-heap store, unless it was
+     * claimed in the meantime. It is added before it leaves the heap so a lookup never misses it.
+     */
+    void flushed(Entry entry) {
+        Long id = entry.id();
+        if (offHeapStore == null || id == null) {
+            return;
+        }
+        addOffHeap(entry.key, id, entry.createdAt);
+        if (removeIf(entry.key, candidate -> candidate == entry) == null) {
+            // Claimed while it was being flushed; the correlation is already stored for this row
+            offHeapStore.remove(OffHeapPendingEventStore.keyHash(entry.key.keyOfInterestName(), entry.key.keyOfInterestValue()), id);
+        }
+    }
+
+    /**
+     * Remove an entry, e.g. because its insert failed
+     */
+    public void remove(Entry entry) {
+        removeIf(entry.key, candidate -> candidate == entry);
+    }
+
+    /**
+     * Remove the event with the given id, e.g. because it was deleted
+     */
+    public void remove(String keyOfInterestName, String keyOfInterestValue, Long id) {
+        Entry removed = removeIf(new Key(keyOfInterestName, keyOfInterestValue), candidate -> id.equals(candidate.id()));
+        if (removed == null && offHeapStore != null) {
+            offHeapStore.remove(OffHeapPendingEventStore.keyHash(keyOfInterestName, keyOfInterestValue), id);
+        }
+    }
+
+    /**
+     * Drop the heap entries of a main topic created before the cutoff; they can no longer be matched
+     * within their window. Their rows stay uncorrelated in the database. Off-heap entries are not scanned.
+     *
+     * @return the number of entries dropped
+     */
+    public int expireBefore(String topicName, Instant cutoff) {
+        int[] expired = new int[1];
+        for (Key key : pending.keySet()) {
+            pending.computeIfPresent(key, (k, entries) -> {
+                for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                    Entry candidate = iterator.next();
+                    if (topicName.equals(candidate.topicName) && candidate.createdAt != null && candidate.createdAt.isBefore(cutoff)) {
+                        iterator.remove();
+                        cancelTimeout(candidate);
+                        size.decrementAndGet();
+                        expired[0]++;
+                    }
+                }
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+        return expired[0];
+    }
+
+    public long size() {
+        return size.get() + (offHeapStore != null ? offHeapStore.size() : 0);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (offHeapStore != null) {
+            offHeapStore.close();
+        }
+    }
+
+    private void addOffHeap(Key key, Long id, Instant createdAt) {
+        long createdAtMillis = createdAt != null ? createdAt.toEpochMilli() : 0;
+        if (!offHeapStore.add(OffHeapPendingEventStore.keyHash(key.keyOfInterestName(), key.keyOfInterestValue()), id, createdAtMillis)
+                && !overflowed) {
+            overflowed = true;
+            logger.error("Off-heap correlation index is full at {} pending events (capacity: {} slots), " +
+                "falling back to correlation queries; raise persistence.correlation-index.off-heap.capacity",
+                offHeapStore.size(), offHeapStore.capacity());
+        }
+    }
+
+    /**
+     * Remove the first heap entry of the key matching the predicate
+     *
+     * @return the removed entry, or null if none matched
+     */
+    private Entry removeIf(Key key, Predicate<Entry> predicate) {
+        Entry[] removed = new Entry[1];
+        pending.computeIfPresent(key, (k, entries) -> {
+            for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                Entry candidate = iterator.next();
+                if (predicate.test(candidate)) {
+                    iterator.remove();
+                    removed[0] = candidate;
+                    break;
+                }
+            }
+            return entries.isEmpty() ? null : entries;
+        });
+        if (removed[0] != null) {
+            size.decrementAndGet();
+            cancelTimeout(removed[0]);
+        }
+        return removed[0];
+    }
+
+    private static void cancelTimeout(Entry entry) {
+        CorrelationTimeoutWheel.Timeout timeout = entry.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private record Key(String keyOfInterestName, String keyOfInterestValue) {
+    }
+
+    /**
+     * An event waiting for its correlated message: either a committed row with a known id, or an
+     * event still on its way through the write-behind stage
+     */
+    public static final class Entry {
+
+        private final Key key;
+        private final String topicName;
+        private final Instant createdAt;
+        private final Long id;
+        private final InterestingEventWriteBehind.PendingEvent pendingWrite;
+        private volatile CorrelationTimeoutWheel.Timeout timeout;
+
+        private Entry(Key key, String topicName, Instant createdAt, Long id, InterestingEventWriteBehind.PendingEvent pendingWrite) {
+            this.key = key;
+            this.topicName = topicName;
+            this.createdAt = createdAt;
+            this.id = id;
+            this.pendingWrite = pendingWrite;
+        }
+
+        public static Entry persisted(Long id, String topicName, String keyOfInterestName, String keyOfInterestValue, Instant createdAt) {
+            return new Entry(new Key(keyOfInterestName, keyOfInterestValue), topicName, createdAt, id, null);
+        }
+
+        static Entry queued(InterestingEventWriteBehind.PendingEvent pendingWrite) {
+            return new Entry(new Key(pendingWrite.keyOfInterestName(), pendingWrite.keyOfInterestValue()),
+                pendingWrite.topicName(), pendingWrite.createdAt(), null, pendingWrite);
+        }
+
+        /**
+         * Row id, or null while the event is still queued for write-behind
+         */
+        public Long id() {
+            return id != null ? id : pendingWrite != null ? pendingWrite.id() : null;
+        }
+
+        public String topicName() {
+            return topicName;
+        }
+
+        public Instant createdAt() {
+            return createdAt;
+        }
+
+        /**
+         * Write-behind event this entry was created for, or null for committed rows
+         */
+        InterestingEventWriteBehind.PendingEvent pendingWrite() {
+            return pendingWrite;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.restapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Correlation latency per pair: the time from an interesting event to the correlated message that
+ * matched it, recorded in memory at match time.
+ * <p>
+ * Each pair has a Micrometer timer, {@value #METER_NAME} tagged with the pair's name, publishing
+ * p50/p90/p99 and max over a rolling window. Percentiles come from a ring of HdrHistogram-based
+ * histograms that is rotated as the window moves, so recording is a lock-free histogram update and
+ * reading never touches the database. Under event time the latency is measured between the records'
+ * timestamps. A correlated message that arrived before its event counts as zero.
+ */
+@Component
+public class CorrelationLatencyRecorder {
+
+    public static final String METER_NAME = "correlation.latency";
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final Duration window;
+    private final int bufferLength;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CorrelationLatencyRecorder(MeterRegistry meterRegistry,
+                                      @Value("${metrics.correlation-latency.window-seconds:60}") long windowSeconds,
+                                      @Value("${metrics.correlation-latency.buffer-length:3}") int bufferLength) {
+        this.meterRegistry = meterRegistry;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.bufferLength = bufferLength;
+    }
+
+    /**
+     * Record the latency of a match on a pair
+     *
+     * @param topicName main topic of the pair
+     * @param createdAt when the interesting event was created
+     * @param correlatedAt when the correlation was stored, on the same clock
+     */
+    public void record(String topicName, Instant createdAt, Instant correlatedAt) {
+        if (topicName == null || createdAt == null || correlatedAt == null) {
+            return;
+        }
+        long latencyMillis = Math.max(0, correlatedAt.toEpochMilli() - createdAt.toEpochMilli());
+        timer(topicName).record(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Latency percentiles and max in milliseconds over the rolling window, and the total number of
+     * matches since startup, per pair
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new TreeMap<>();
+        timers.forEach((topicName, timer) -> {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> pairStatus = new LinkedHashMap<>();
+            // The timer's count is cumulative, unlike the windowed percentiles next to it
+            pairStatus.put("totalCount", snapshot.count());
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                pairStatus.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+            }
+            pairStatus.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+            pairStatus.put("windowSeconds", window.toSeconds());
+            status.put(topicName, pairStatus);
+        });
+        return status;
+    }
+
+    private Timer timer(String topicName) {
+        Timer timer = timers.get(topicName);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(topicName, name -> Timer.builder(METER_NAME)
+            .description("Time from an interesting event to the correlated message that matched it")
+            .tag("pair", name)
+            .publishPercentiles(PERCENTILES)
+            .distributionStatisticExpiry(window)
+            .distributionStatisticBufferLength(bufferLength)
+            .register(meterRegistry));
+    }
+}
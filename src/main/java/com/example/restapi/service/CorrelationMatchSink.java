@@ -0,0 +1,128 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Destination of the matched pairs of pairs configured with {@code on-match: delete}.
+ * <p>
+ * Such pairs never update a correlated row: the interesting event is deleted (or never inserted) as soon
+ * as its correlated message is found, so nothing reaches correlated_events and the cleanup scheduler
+ * has nothing to remove for them. The match itself is kept by publishing it as a JSON record, keyed by
+ * the key of interest value, to the pair's {@code match-output-topic}, or by logging it when the pair has
+ * no output topic.
+ */
+@Component
+public class CorrelationMatchSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationMatchSink.class);
+
+    private final TopicRoutingTable topicRoutingTable;
+    private final KafkaService kafkaService;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+
+    @Autowired
+    public CorrelationMatchSink(TopicRoutingTable topicRoutingTable, KafkaService kafkaService) {
+        this.topicRoutingTable = topicRoutingTable;
+        this.kafkaService = kafkaService;
+    }
+
+    /**
+     * Whether the pair with the given main topic deletes its interesting events on match
+     */
+    public boolean deletesOnMatch(String topicName) {
+        KafkaTopicConfig.TopicConfig pair = topicRoutingTable.pair(topicName);
+        return pair != null && pair.isDeleteOnMatch();
+    }
+
+    /**
+     * Whether a pair whose interesting events carry the given key of interest deletes them on match
+     */
+    public boolean deletesOnMatchForKey(String keyOfInterestName) {
+        for (TopicRoute route : topicRoutingTable.routes()) {
+            if (route.getRole() == TopicRoute.Role.MAIN && route.getTopicConfig().isDeleteOnMatch()
+                    && Objects.equals(route.getKeyName(), keyOfInterestName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hand a matched pair whose interesting event was deleted to the pair's output topic, or log it
+     */
+    public void emit(String topicName, String keyOfInterestName, String keyOfInterestValue, Instant createdAt,
+                     String correlatedMessage, Instant correlatedAt) {
+        emitted.increment();
+        KafkaTopicConfig.TopicConfig pair = topicRoutingTable.pair(topicName);
+        String outputTopic = pair != null ? pair.getMatchOutputTopic() : null;
+        if (outputTopic == null || outputTopic.isBlank()) {
+            logger.info("CORRELATED PAIR - Original Topic: '{}', Key: '{}', Value: '{}', Created: {}, " +
+                "Correlated Message: '{}', Correlation Time: {}",
+                topicName, keyOfInterestName, keyOfInterestValue, createdAt, correlatedMessage, correlatedAt);
+            return;
+        }
+        try {
+            kafkaService.sendMessage(outputTopic, keyOfInterestValue,
+                    toJson(topicName, keyOfInterestName, keyOfInterestValue, createdAt, correlatedMessage, correlatedAt))
+                .whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        publishFailures.increment();
+                    } else {
+                        published.increment();
+                    }
+                });
+        } catch (Exception e) {
+            publishFailures.increment();
+            logger.error("Error publishing correlated pair to topic '{}' - Original Topic: '{}', Key: '{}', Value: '{}', " +
+                "Correlated Message: '{}'", outputTopic, topicName, keyOfInterestName, keyOfInterestValue, correlatedMessage, e);
+        }
+    }
+
+    /**
+     * Emitted, published and failed counts, for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("emitted", emitted.sum());
+        status.put("published", published.sum());
+        status.put("publishFailures", publishFailures.sum());
+        return status;
+    }
+
+    private String toJson(String topicName, String keyOfInterestName, String keyOfInterestValue, Instant createdAt,
+                          String correlatedMessage, Instant correlatedAt) {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            generator.writeStartObject();
+            generator.writeStringField("topicName", topicName);
+            generator.writeStringField("keyOfInterestName", keyOfInterestName);
+            generator.writeStringField("keyOfInterestValue", keyOfInterestValue);
+            generator.writeStringField("createdAt", createdAt != null ? createdAt.toString() : null);
+            generator.writeStringField("correlatedMessage", correlatedMessage);
+            generator.writeStringField("correlationTimestamp", correlatedAt != null ? correlatedAt.toString() : null);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Hashed timing wheel that tracks the correlation deadline of every pending interesting event.
+ * <p>
+ * A timeout is scheduled when an event enters the correlation index and cancelled when it is correlated
+ * or deleted, both in O(1). A single worker thread advances the wheel one tick at a time and fires the
+ * timeouts of the current bucket as soon as their deadline has passed, keeping a per-topic count of events
+ * that are past their pair's deadline and still uncorrelated. The count goes down again when such an event
+ * is correlated late or deleted, so it always matches what the periodic monitor query would report.
+ * <p>
+ * Deadlines are accurate to one tick. Scheduling and cancelling only enqueue the timeout; the bucket lists
+ * are touched by the worker thread alone.
+ */
+@Component
+public class CorrelationTimeoutWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationTimeoutWheel.class);
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final boolean enabled;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Function<String, Duration> deadlineResolver;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, LongAdder> expiredPending = new ConcurrentHashMap<>();
+    private final AtomicLong expiredTotal = new AtomicLong();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean running;
+    private long tick;
+
+    @Autowired
+    public CorrelationTimeoutWheel(TopicRoutingTable topicRoutingTable,
+                                   @Value("${scheduler.monitor.timing-wheel.enabled:true}") boolean enabled,
+                                   @Value("${scheduler.monitor.timing-wheel.tick-ms:100}") long tickMs,
+                                   @Value("${scheduler.monitor.timing-wheel.wheel-size:512}") int wheelSize,
+                                   @Value("${scheduler.monitor.age-threshold-seconds:300}") long defaultTimeoutSeconds) {
+        this(enabled, tickMs, wheelSize, topic -> {
+            KafkaTopicConfig.TopicConfig pair = topicRoutingTable.pair(topic);
+            if (pair != null && pair.isEventTime()) {
+                // Event time deadlines follow the pair's watermark, not the wall clock
+                return null;
+            }
+            long seconds = pair != null ? pair.getCorrelationTimeoutSeconds() : 0;
+            return Duration.ofSeconds(seconds > 0 ? seconds : defaultTimeoutSeconds);
+        });
+    }
+
+    CorrelationTimeoutWheel(boolean enabled, long tickMs, int wheelSize, Function<String, Duration> deadlineResolver) {
+        this.enabled = enabled;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        int buckets = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+        this.deadlineResolver = deadlineResolver;
+        this.startNanos = System.nanoTime();
+        if (enabled) {
+            running = true;
+            worker = Thread.ofPlatform().name("correlation-timeout-wheel").daemon().start(this::run);
+        } else {
+            worker = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Schedule the correlation deadline of an event created at the given time on the given main topic
+     *
+     * @return the timeout to cancel once the event is correlated, or null if the wheel is disabled or the
+     *         topic's pair correlates on event time
+     */
+    public Timeout schedule(String topicName, Instant createdAt) {
+        if (!enabled || topicName == null) {
+            return null;
+        }
+        Duration timeout = deadlineResolver.apply(topicName);
+        if (timeout == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        long remainingNanos = Duration.between(now, (createdAt != null ? createdAt : now).plus(timeout)).toNanos();
+        Timeout handle = new Timeout(this, topicName, System.nanoTime() + remainingNanos);
+        scheduled.add(handle);
+        return handle;
+    }
+
+    /**
+     * Number of uncorrelated events past their deadline, per main topic
+     */
+    public Map<String, Long> getExpiredPendingCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        expiredPending.forEach((topic, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                counts.put(topic, value);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Number of events that ever passed their deadline, including ones correlated late since
+     */
+    public long getExpiredTotal() {
+        return expiredTotal.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos;
+            while (running && (sleepNanos = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+            try {
+                removeCancelled();
+                transferScheduled();
+                expire(wheel[(int) (tick & mask)]);
+            } catch (Exception e) {
+                logger.error("Unexpected error in correlation timeout wheel", (Object) e);
+            }
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long calculated = Math.max(0, (timeout.deadlineNanos - startNanos) / tickNanos);
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // Deadlines already in the past fire on the current tick
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            // A bucket is processed after its tick has ended, so its last-round timeouts are all due
+            if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                // The counter must exist before the event can be seen as expired, a cancel may decrement it right away
+                LongAdder expired = expiredPending.computeIfAbsent(timeout.topicName, topic -> new LongAdder());
+                if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+                    expired.increment();
+                    expiredTotal.incrementAndGet();
+                    logger.debug("Interesting event on topic '{}' passed its correlation deadline", timeout.topicName);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Deadline of one pending event
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final int EXPIRED_RESOLVED = 3;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final CorrelationTimeoutWheel wheel;
+        private final String topicName;
+        private final long deadlineNanos;
+        private volatile int state;
+
+        // Owned by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(CorrelationTimeoutWheel wheel, String topicName, long deadlineNanos) {
+            this.wheel = wheel;
+            this.topicName = topicName;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Stop tracking the event because it was correlated or deleted. If it had already expired it no
+         * longer counts as expired and pending.
+         */
+        public void cancel() {
+            if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                wheel.cancelled.add(this);
+            } else if (STATE.compareAndSet(this, EXPIRED, EXPIRED_RESOLVED)) {
+                wheel.expiredPending.computeIfAbsent(topicName, topic -> new LongAdder()).decrement();
+            }
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts that fall on one tick of the wheel
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                tail = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watermarks of the pairs that correlate on event time.
+ * <p>
+ * Records of such a pair are timed by the timestamp Kafka stored with them instead of the time they are
+ * processed. The pair's watermark is the lowest of the latest timestamps seen on each partition of its
+ * topics, so no partition is behind it: an interesting event created more than the pair's correlation
+ * window before the watermark can no longer be matched by a record still to come. A periodic sweep drops
+ * those events from the correlation index and counts them as expired. Expiry follows the records rather
+ * than the wall clock, so a backfill replays history at full speed and still matches and expires events
+ * as it did live.
+ * <p>
+ * The watermark is only defined once every topic of the pair has delivered a record, so a correlated topic
+ * whose consumer is still catching up does not let the main topic expire events early. A partition that
+ * stops receiving records holds its pair's watermark back until it receives one again.
+ */
+@Component
+public class CorrelationWatermarks {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationWatermarks.class);
+
+    private final TopicRoutingTable topicRoutingTable;
+    private final CorrelationIndex correlationIndex;
+    private final ConcurrentMap<String, PairWatermark> watermarks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CorrelationWatermarks(TopicRoutingTable topicRoutingTable, CorrelationIndex correlationIndex) {
+        this.topicRoutingTable = topicRoutingTable;
+        this.correlationIndex = correlationIndex;
+    }
+
+    /**
+     * Event time of a record of the route's topic, advancing its pair's watermark
+     *
+     * @param timestamp the record's timestamp, negative if it has none
+     * @return the record's event time, or null if the pair correlates on processing time or the record has no timestamp
+     */
+    public Instant observe(TopicRoute route, int partition, long timestamp) {
+        KafkaTopicConfig.TopicConfig pair = route.getTopicConfig();
+        if (!pair.isEventTime() || timestamp < 0) {
+            return null;
+        }
+        PairWatermark watermark = watermarks.get(pair.getName());
+        if (watermark == null || watermark.pair != pair) {
+            // First record of the pair, or the pair was replaced at runtime
+            watermark = watermarks.compute(pair.getName(), (name, current) ->
+                current != null && current.pair == pair ? current : new PairWatermark(pair));
+        }
+        watermark.advance(new TopicPartition(route.getTopic(), partition), timestamp);
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    /**
+     * Whether the pair with the given main topic correlates on event time
+     */
+    public boolean isEventTime(String topicName) {
+        KafkaTopicConfig.TopicConfig pair = topicRoutingTable.pair(topicName);
+        return pair != null && pair.isEventTime();
+    }
+
+    /**
+     * Current watermark of a pair, or null until every topic of the pair has delivered a timestamped record
+     */
+    public Instant watermark(String topicName) {
+        PairWatermark watermark = watermarks.get(topicName);
+        return watermark != null ? watermark.watermark() : null;
+    }
+
+    /**
+     * Main topics of the event time pairs that have delivered records
+     */
+    public Set<String> getPairNames() {
+        return Set.copyOf(watermarks.keySet());
+    }
+
+    /**
+     * Drop indexed events that fell out of their pair's correlation window behind its watermark
+     */
+    @Scheduled(fixedDelayString = "${scheduler.monitor.watermark-sweep-interval-seconds:10}000")
+    public void expireBehindWatermarks() {
+        if (!correlationIndex.isEnabled()) {
+            return;
+        }
+        for (PairWatermark watermark : watermarks.values()) {
+            long windowSeconds = watermark.pair.getCorrelationWindowSeconds();
+            Instant current = watermark.watermark();
+            if (windowSeconds == 0 || current == null) {
+                continue;
+            }
+            Instant cutoff = current.minusSeconds(windowSeconds);
+            int expired = correlationIndex.expireBefore(watermark.pair.getName(), cutoff);
+            if (expired > 0) {
+                watermark.expired.add(expired);
+                logger.warn("Expired {} uncorrelated events of topic pair '{}' created before {}, more than {} seconds behind its watermark {}",
+                    expired, watermark.pair.getName(), cutoff, windowSeconds, current);
+            }
+        }
+    }
+
+    /**
+     * Watermark, window and expired count of every event time pair, for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new TreeMap<>();
+        watermarks.forEach((name, watermark) -> {
+            Map<String, Object> pairStatus = new LinkedHashMap<>();
+            pairStatus.put("watermark", watermark.watermark());
+            pairStatus.put("windowSeconds", watermark.pair.getCorrelationWindowSeconds());
+            pairStatus.put("partitions", watermark.latest.size());
+            pairStatus.put("expired", watermark.expired.sum());
+            status.put(name, pairStatus);
+        });
+        return status;
+    }
+
+    /**
+     * Latest timestamp per partition of one pair's topics
+     */
+    private static final class PairWatermark {
+
+        private final KafkaTopicConfig.TopicConfig pair;
+        private final ConcurrentMap<TopicPartition, AtomicLong> latest = new ConcurrentHashMap<>();
+        private final LongAdder expired = new LongAdder();
+
+        private PairWatermark(KafkaTopicConfig.TopicConfig pair) {
+            this.pair = pair;
+        }
+
+        void advance(TopicPartition partition, long timestamp) {
+            AtomicLong partitionLatest = latest.get(partition);
+            if (partitionLatest == null) {
+                partitionLatest = latest.computeIfAbsent(partition, p -> new AtomicLong(Long.MIN_VALUE));
+            }
+            partitionLatest.accumulateAndGet(timestamp, Math::max);
+        }
+
+        Instant watermark() {
+            long lowest = Long.MAX_VALUE;
+            Set<String> topics = new HashSet<>();
+            for (Map.Entry<TopicPartition, AtomicLong> partitionLatest : latest.entrySet()) {
+                topics.add(partitionLatest.getKey().topic());
+                lowest = Math.min(lowest, partitionLatest.getValue().get());
+            }
+            return topics.size() < pair.getTopicNames().size() ? null : Instant.ofEpochMilli(lowest);
+        }
+    }
+}
@@ -1,24 +1,42 @@
 package com.example.restapi.service;
 
 import com.example.restapi.config.KafkaTopicConfig;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
 import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 @Service
 public class DynamicKafkaConsumerService {
@@ -28,110 +46,745 @@ public class DynamicKafkaConsumerService {
     @Autowired
     private KafkaTopicConfig kafkaTopicConfig;
 
+    @Autowired
+    private TopicRoutingTable topicRoutingTable;
+
+    @Autowired
+    private JsonKeyExtractor jsonKeyExtractor;
+
     @Autowired
     private InterestingEventService interestingEventService;
 
     @Autowired
     private ConsumerFactory<String, String> consumerFactory;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final List<ConcurrentMessageListenerContainer<String, String>> containers = new ArrayList<>();
+    @Autowired
+    private ConsumerFactory<String, byte[]> byteArrayConsumerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PartitionCountResolver partitionCountResolver;
+
+    @Autowired
+    private KeyOrderedExecutor keyOrderedExecutor;
+
+    @Autowired
+    private ShardedCorrelationEngine shardedCorrelationEngine;
+
+    @Autowired
+    private CorrelationIndex correlationIndex;
+
+    @Autowired
+    private PersistenceBackpressure persistenceBackpressure;
+
+    @Autowired
+    private InterestingEventWriteBehind interestingEventWriteBehind;
+
+    @Autowired
+    private OrphanCorrelationBuffer orphanCorrelationBuffer;
+
+    @Autowired
+    private ChainCorrelationTracker chainCorrelationTracker;
+
+    @Autowired
+    private CorrelationWatermarks correlationWatermarks;
+
+    @Autowired
+    private CorrelationLatencyRecorder correlationLatencyRecorder;
+
+    @Autowired
+    private PendingKeyFilter pendingKeyFilter;
+
+    @Autowired
+    private CorrelationMatchSink correlationMatchSink;
+
+    /**
+     * Containers of each correlation pair, keyed by the pair's main topic.
+     * Pairs with the multiplexed topology own no container; they are served by {@link #multiplexedContainer}.
+     */
+    private final ConcurrentMap<String, PairContainers> pairs = new ConcurrentHashMap<>();
+
+    /**
+     * Multiplexed pairs that are paused; their partitions are paused inside the shared container
+     */
+    private final Set<String> pausedMultiplexedPairs = ConcurrentHashMap.newKeySet();
+
+    private volatile ConcurrentMessageListenerContainer<String, ?> multiplexedContainer;
+
+    /**
+     * Partitions currently paused by backpressure; only touched by {@link #applyBackpressure()}
+     */
+    private final Set<TopicPartition> backpressurePausedPartitions = new HashSet<>();
 
     @PostConstruct
     public void initializeConsumers() {
         logger.info("Initializing dynamic Kafka consumers for {} topics", kafkaTopicConfig.getTopics().size());
         
         List<KafkaTopicConfig.TopicConfig> topics = kafkaTopicConfig.getTopics();
+        
+        // Look up partition counts once for every topic that sizes its concurrency automatically
+        Map<String, Integer> partitionCounts = partitionCountResolver.partitionCounts(autoConcurrencyTopics(topics));
+        
         for (KafkaTopicConfig.TopicConfig topicConfig : topics) {
-            logger.info("Configuring consumer for topic: '{}' with correlated topic: '{}', consumer group: '{}', key of interest: '{}', correlated key of interest: '{}'", 
-                topicConfig.getName(), topicConfig.getCorrelatedTopic(), topicConfig.getConsumerGroup(), 
-                topicConfig.getKeyOfInterest(), topicConfig.getCorrelatedKeyOfInterest());
-            
-            // Create consumer for main topic
-            createConsumerForTopic(topicConfig.getName(), topicConfig.getConsumerGroup(), topicConfig, false);
-            
-            // Create consumer for correlated topic
-            createConsumerForTopic(topicConfig.getCorrelatedTopic(), topicConfig.getConsumerGroup() + "-correlated", topicConfig, true);
+            if (pairs.containsKey(topicConfig.getName())) {
+                logger.warn("Topic pair '{}' is configured more than once; ignoring duplicate configuration", topicConfig.getName());
+                continue;
+            }
+            try {
+                startPair(topicConfig, partitionCounts);
+            } catch (Exception e) {
+                logger.error("Error creating consumers for topic pair: '{}'", topicConfig.getName(), (Object) e);
+            }
+        }
+        
+        try {
+            restartMultiplexedContainer(partitionCounts);
+        } catch (Exception e) {
+            logger.error("Error creating multiplexed consumer for consumer group: '{}'", 
+                kafkaTopicConfig.getMultiplexed().getConsumerGroup(), (Object) e);
+        }
+        
+        logger.info("Dynamic Kafka consumers initialized successfully. Total containers: {}", containerCount());
+    }
+
+    /**
+     * Start consuming a new correlation pair at runtime, without touching the containers of other pairs.
+     * A multiplexed pair restarts the multiplexed container, so only that consumer group rebalances.
+     *
+     * Topics already consumed by another pair stay with that pair, which evaluates the new pair's rules
+     * on the records it consumes.
+     *
+     * @throws IllegalArgumentException if the pair configuration is incomplete
+     * @throws IllegalStateException if the pair already exists
+     */
+    public synchronized void addPair(KafkaTopicConfig.TopicConfig topicConfig) {
+        validate(topicConfig);
+        if (pairs.containsKey(topicConfig.getName())) {
+            throw new IllegalStateException("Topic pair '" + topicConfig.getName() + "' already exists");
+        }
+        
+        topicRoutingTable.addPair(topicConfig);
+        try {
+            startPair(topicConfig, partitionCountResolver.partitionCounts(autoConcurrencyTopics(List.of(topicConfig))));
+            if (isMultiplexed(topicConfig)) {
+                restartMultiplexedContainer(null);
+            }
+        } catch (RuntimeException e) {
+            PairContainers started = pairs.remove(topicConfig.getName());
+            if (started != null) {
+                stopContainers(started.containers);
+            }
+            topicRoutingTable.removePair(topicConfig.getName());
+            if (isMultiplexed(topicConfig)) {
+                restartMultiplexedContainerQuietly();
+            }
+            throw e;
+        }
+        logger.info("Added topic pair '{}' at runtime with topology {}", topicConfig.getName(), topicConfig.getTopology());
+    }
+
+    /**
+     * Stop consuming a correlation pair and drop its routes. Topics the pair consumed on behalf of other
+     * pairs are handed over to the next pair referencing them, whose containers are restarted.
+     *
+     * @return true if the pair existed
+     */
+    public synchronized boolean removePair(String name) {
+        PairContainers removed = pairs.remove(name);
+        if (removed == null) {
+            return false;
+        }
+        List<String> ownedTopics = ownedTopics(removed.topicConfig);
+        stopContainers(removed.containers);
+        topicRoutingTable.removePair(name);
+        
+        boolean restartMultiplexed = isMultiplexed(removed.topicConfig);
+        Set<String> newOwners = new LinkedHashSet<>();
+        for (String topic : ownedTopics) {
+            KafkaTopicConfig.TopicConfig owner = topicRoutingTable.owner(topic);
+            if (owner != null && pairs.containsKey(owner.getName())) {
+                newOwners.add(owner.getName());
+            }
+        }
+        for (String owner : newOwners) {
+            PairContainers pair = pairs.get(owner);
+            logger.info("Topic pair '{}' takes over topics of removed topic pair '{}'", owner, name);
+            if (isMultiplexed(pair.topicConfig)) {
+                restartMultiplexed = true;
+            } else {
+                restartPairQuietly(pair);
+            }
+        }
+        if (isMultiplexed(removed.topicConfig)) {
+            pausedMultiplexedPairs.remove(name);
+        }
+        if (restartMultiplexed) {
+            restartMultiplexedContainerQuietly();
+        }
+        logger.info("Removed topic pair '{}' at runtime", name);
+        return true;
+    }
+
+    /**
+     * Recreate the containers of a dedicated or shared pair after the topics it owns have changed,
+     * keeping the pair paused if it was
+     */
+    private void restartPairQuietly(PairContainers pair) {
+        boolean paused = !pair.containers.isEmpty()
+            && pair.containers.stream().allMatch(ConcurrentMessageListenerContainer::isPauseRequested);
+        stopContainers(pair.containers);
+        try {
+            startPair(pair.topicConfig, partitionCountResolver.partitionCounts(autoConcurrencyTopics(List.of(pair.topicConfig))));
+            if (paused) {
+                pairs.get(pair.topicConfig.getName()).containers.forEach(ConcurrentMessageListenerContainer::pause);
+            }
+        } catch (Exception e) {
+            pairs.put(pair.topicConfig.getName(), new PairContainers(pair.topicConfig, List.of()));
+            logger.error("Error restarting consumers for topic pair: '{}'", pair.topicConfig.getName(), (Object) e);
+        }
+    }
+
+    /**
+     * Pause a correlation pair; partitions stay assigned, so no rebalance is triggered.
+     * For a multiplexed pair only the partitions of its own topics are paused. Pausing the pair that owns
+     * a topic also holds back the rules of other pairs on that topic.
+     *
+     * @return true if the pair exists
+     */
+    public synchronized boolean pausePair(String name) {
+        PairContainers pair = pairs.get(name);
+        if (pair == null) {
+            return false;
+        }
+        if (isMultiplexed(pair.topicConfig)) {
+            pausedMultiplexedPairs.add(name);
+            setMultiplexedPairPaused(pair.topicConfig, true);
+        } else {
+            pair.containers.forEach(ConcurrentMessageListenerContainer::pause);
+        }
+        logger.info("Paused topic pair '{}'", name);
+        return true;
+    }
+
+    /**
+     * Resume a paused correlation pair
+     *
+     * @return true if the pair exists
+     */
+    public synchronized boolean resumePair(String name) {
+        PairContainers pair = pairs.get(name);
+        if (pair == null) {
+            return false;
+        }
+        if (isMultiplexed(pair.topicConfig)) {
+            pausedMultiplexedPairs.remove(name);
+            setMultiplexedPairPaused(pair.topicConfig, false);
+        } else {
+            pair.containers.forEach(ConcurrentMessageListenerContainer::resume);
+        }
+        logger.info("Resumed topic pair '{}'", name);
+        return true;
+    }
+
+    /**
+     * Configuration of every correlation pair currently consumed
+     */
+    public List<KafkaTopicConfig.TopicConfig> getPairs() {
+        List<KafkaTopicConfig.TopicConfig> configs = new ArrayList<>();
+        for (PairContainers pair : pairs.values()) {
+            configs.add(pair.topicConfig);
+        }
+        return configs;
+    }
+
+    /**
+     * Start the containers a pair owns. Multiplexed pairs are only registered here; they start
+     * consuming when the multiplexed container is (re)started.
+     */
+    private void startPair(KafkaTopicConfig.TopicConfig topicConfig, Map<String, Integer> partitionCounts) {
+        logger.info("Configuring consumer for topic: '{}' with correlated topic: '{}', consumer group: '{}', key of interest: '{}', correlated key of interest: '{}', listener mode: {}, ingest mode: {}, topology: {}", 
+            topicConfig.getName(), topicConfig.getCorrelatedTopic(), topicConfig.getConsumerGroup(), 
+            topicConfig.getKeyOfInterest(), topicConfig.getCorrelatedKeyOfInterest(), topicConfig.getListenerMode(),
+            topicConfig.getIngestMode(), topicConfig.getTopology());
+        if (topicConfig.isChain()) {
+            logger.info("Topic pair '{}' is a correlation chain: {}", topicConfig.getName(), String.join(" -> ", topicConfig.getTopicNames()));
         }
         
-        logger.info("Dynamic Kafka consumers initialized successfully. Total containers: {}", containers.size());
+        String mainTopic = topicConfig.getName();
+        List<String> topics = topicConfig.getTopicNames();
+        List<String> ownedTopics = ownedTopics(topicConfig);
+        for (String topic : topics) {
+            if (!ownedTopics.contains(topic)) {
+                KafkaTopicConfig.TopicConfig owner = topicRoutingTable.owner(topic);
+                logger.info("Topic '{}' of topic pair '{}' is consumed by topic pair '{}', which evaluates its rules", 
+                    topic, mainTopic, owner != null ? owner.getName() : null);
+            }
+        }
+        List<ConcurrentMessageListenerContainer<String, ?>> containers = new ArrayList<>();
+        try {
+            switch (topicConfig.getTopology()) {
+                case DEDICATED -> {
+                    // One consumer per topic: main, correlated, then any further chain stages
+                    for (int stage = 0; stage < topics.size(); stage++) {
+                        if (ownedTopics.contains(topics.get(stage))) {
+                            containers.add(createConsumer(pairSpec(topicConfig, TopicRoute.stageConsumerGroup(topicConfig, stage), 
+                                List.of(topics.get(stage)), partitionCounts)));
+                        }
+                    }
+                }
+                case SHARED -> {
+                    // One consumer group subscribed to every topic of the pair
+                    if (!ownedTopics.isEmpty()) {
+                        containers.add(createConsumer(pairSpec(topicConfig, topicConfig.getConsumerGroup(), 
+                            ownedTopics, partitionCounts)));
+                    }
+                }
+                case MULTIPLEXED -> logger.info("Topic pair '{}' is served by the multiplexed consumer group: '{}'", 
+                    mainTopic, kafkaTopicConfig.getMultiplexed().getConsumerGroup());
+            }
+        } catch (RuntimeException e) {
+            // Do not leave half a pair running
+            stopContainers(containers);
+            throw e;
+        }
+        pairs.put(mainTopic, new PairContainers(topicConfig, containers));
+    }
+
+    private ContainerSpec pairSpec(KafkaTopicConfig.TopicConfig topicConfig, String consumerGroup, List<String> topics,
+                                   Map<String, Integer> partitionCounts) {
+        return new ContainerSpec(consumerGroup, topics, topicConfig.getListenerMode(), topicConfig.getIngestMode(),
+            topicConfig.getProcessingMode(), resolveConcurrency(topicConfig.getConcurrency(), topics, partitionCounts));
+    }
+
+    /**
+     * Topics of a pair that its own containers consume: those no earlier pair references
+     */
+    private List<String> ownedTopics(KafkaTopicConfig.TopicConfig topicConfig) {
+        List<String> owned = new ArrayList<>();
+        for (String topic : topicConfig.getTopicNames()) {
+            if (topicRoutingTable.owner(topic) == topicConfig) {
+                owned.add(topic);
+            }
+        }
+        return owned;
     }
 
     /**
-     * Create a Kafka consumer container for a specific topic
+     * Replace the multiplexed container with one subscribed to the topics owned by multiplexed pairs.
+     * Only the multiplexed consumer group rebalances; dedicated and shared pairs are not touched.
+     *
+     * @param partitionCounts partition counts already looked up, or null to look them up when needed
      */
-    private void createConsumerForTopic(String topic, String consumerGroup, KafkaTopicConfig.TopicConfig topicConfig, boolean isCorrelated) {
+    private void restartMultiplexedContainer(Map<String, Integer> partitionCounts) {
+        ConcurrentMessageListenerContainer<String, ?> previous = multiplexedContainer;
+        multiplexedContainer = null;
+        if (previous != null) {
+            stopContainers(List.of(previous));
+        }
+        
+        List<String> topics = new ArrayList<>();
+        for (PairContainers pair : pairs.values()) {
+            if (isMultiplexed(pair.topicConfig)) {
+                topics.addAll(ownedTopics(pair.topicConfig));
+            }
+        }
+        if (topics.isEmpty()) {
+            return;
+        }
+        
+        KafkaTopicConfig.MultiplexedConfig multiplexed = kafkaTopicConfig.getMultiplexed();
+        if (partitionCounts == null) {
+            partitionCounts = multiplexed.isAutoConcurrency() ? partitionCountResolver.partitionCounts(topics) : Map.of();
+        }
+        ConcurrentMessageListenerContainer<String, ?> container = createConsumer(new ContainerSpec(
+            multiplexed.getConsumerGroup(), topics, multiplexed.getListenerMode(), multiplexed.getIngestMode(),
+            multiplexed.getProcessingMode(), resolveConcurrency(multiplexed.getConcurrency(), topics, partitionCounts)));
+        multiplexedContainer = container;
+        
+        // Pause requests live in the consumer containers, so re-apply them to the new ones
+        for (String name : pausedMultiplexedPairs) {
+            PairContainers pair = pairs.get(name);
+            if (pair != null) {
+                setMultiplexedPairPaused(pair.topicConfig, true);
+            }
+        }
+    }
+
+    private void restartMultiplexedContainerQuietly() {
+        try {
+            restartMultiplexedContainer(null);
+        } catch (Exception e) {
+            logger.error("Error restarting multiplexed consumer for consumer group: '{}'", 
+                kafkaTopicConfig.getMultiplexed().getConsumerGroup(), (Object) e);
+        }
+    }
+
+    /**
+     * Pause or resume every partition of a multiplexed pair's topics. The request is registered with
+     * each consumer of the multiplexed container, so it also applies to partitions that move between
+     * consumers on a later rebalance.
+     */
+    private void setMultiplexedPairPaused(KafkaTopicConfig.TopicConfig topicConfig, boolean paused) {
+        ConcurrentMessageListenerContainer<String, ?> container = multiplexedContainer;
+        if (container == null) {
+            return;
+        }
+        List<String> topics = ownedTopics(topicConfig);
+        Map<String, Integer> partitionCounts = partitionCountResolver.partitionCounts(topics);
+        
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (String topic : topics) {
+            Integer count = partitionCounts.get(topic);
+            for (int partition = 0; count != null && partition < count; partition++) {
+                partitions.add(new TopicPartition(topic, partition));
+            }
+        }
+        Collection<TopicPartition> assigned = container.getAssignedPartitions();
+        if (assigned != null) {
+            // Fall back to the current assignment for topics whose partition count is unknown
+            for (TopicPartition partition : assigned) {
+                if (topics.contains(partition.topic()) && !partitions.contains(partition)) {
+                    partitions.add(partition);
+                }
+            }
+        }
+        
+        for (KafkaMessageListenerContainer<String, ?> consumer : container.getContainers()) {
+            for (TopicPartition partition : partitions) {
+                if (paused) {
+                    consumer.pausePartition(partition);
+                } else {
+                    consumer.resumePartition(partition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pause the partitions of topics that feed the database while persistence is falling behind, and
+     * resume them once it has caught up. Paused partitions are still polled by the container, so the
+     * consumers keep heartbeating and stay within max.poll.interval.ms without fetching new records.
+     */
+    @Scheduled(fixedDelayString = "${kafka.backpressure.check-interval-ms:1000}")
+    public synchronized void applyBackpressure() {
+        if (!persistenceBackpressure.isEnabled()) {
+            return;
+        }
+        boolean overloaded = persistenceBackpressure.evaluate();
+        
+        // Never override an explicit pause of a multiplexed pair
+        Set<String> userPausedTopics = new HashSet<>();
+        for (String name : pausedMultiplexedPairs) {
+            PairContainers pair = pairs.get(name);
+            if (pair != null) {
+                userPausedTopics.addAll(ownedTopics(pair.topicConfig));
+            }
+        }
+        
+        List<KafkaMessageListenerContainer<String, ?>> consumers = new ArrayList<>();
+        for (ConcurrentMessageListenerContainer<String, ?> container : allContainers()) {
+            consumers.addAll(container.getContainers());
+        }
+        
+        if (overloaded) {
+            for (KafkaMessageListenerContainer<String, ?> consumer : consumers) {
+                Collection<TopicPartition> assigned = consumer.getAssignedPartitions();
+                if (assigned == null) {
+                    continue;
+                }
+                for (TopicPartition partition : assigned) {
+                    if (userPausedTopics.contains(partition.topic()) || !persistenceBackpressure.isActive(partition.topic())) {
+                        continue;
+                    }
+                    backpressurePausedPartitions.add(partition);
+                    if (!consumer.isPartitionPauseRequested(partition)) {
+                        consumer.pausePartition(partition);
+                    }
+                }
+            }
+        } else if (!backpressurePausedPartitions.isEmpty()) {
+            // Resume on every consumer: a partition may have moved to another consumer on a rebalance
+            for (KafkaMessageListenerContainer<String, ?> consumer : consumers) {
+                for (TopicPartition partition : backpressurePausedPartitions) {
+                    if (!userPausedTopics.contains(partition.topic())) {
+                        consumer.resumePartition(partition);
+                    }
+                }
+            }
+            backpressurePausedPartitions.clear();
+        }
+        
+        Set<String> pausedTopics = new HashSet<>();
+        for (TopicPartition partition : backpressurePausedPartitions) {
+            pausedTopics.add(partition.topic());
+        }
+        for (TopicRoute route : topicRoutingTable.routes()) {
+            persistenceBackpressure.setTopicPaused(route.getTopic(), pausedTopics.contains(route.getTopic()));
+        }
+    }
+
+    /**
+     * Backpressure signals, per topic pause time, write-behind queue depth and pairs emitted by pairs that
+     * delete on match, for the consumers backpressure endpoint
+     */
+    public Map<String, Object> getBackpressureStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(persistenceBackpressure.getStatus());
+        status.put("writeBehind", interestingEventWriteBehind.getStatus());
+        status.put("correlationEngine", shardedCorrelationEngine.getStatus());
+        status.put("orphanBuffer", orphanCorrelationBuffer.getStatus());
+        status.put("matchSink", correlationMatchSink.getStatus());
+        return status;
+    }
+
+    /**
+     * Watermark and expired counts of every pair correlating on event time, for the watermarks endpoint
+     */
+    public Map<String, Object> getWatermarkStatus() {
+        return correlationWatermarks.getStatus();
+    }
+
+    /**
+     * Correlation latency percentiles of every pair over the rolling window, for the latency endpoint
+     */
+    public Map<String, Object> getLatencyStatus() {
+        return correlationLatencyRecorder.getStatus();
+    }
+
+    /**
+     * Lookup, miss and false positive counts of the pending key filters, for the key filter endpoint
+     */
+    public Map<String, Object> getKeyFilterStatus() {
+        return pendingKeyFilter.getStatus();
+    }
+
+    /**
+     * Pending, completed and expired counts of every correlation chain, for the chains endpoint
+     */
+    public Map<String, Object> getChainStatus() {
+        return chainCorrelationTracker.getStatus();
+    }
+
+    private List<ConcurrentMessageListenerContainer<String, ?>> allContainers() {
+        List<ConcurrentMessageListenerContainer<String, ?>> containers = new ArrayList<>();
+        for (PairContainers pair : pairs.values()) {
+            containers.addAll(pair.containers);
+        }
+        ConcurrentMessageListenerContainer<String, ?> multiplexed = multiplexedContainer;
+        if (multiplexed != null) {
+            containers.add(multiplexed);
+        }
+        return containers;
+    }
+
+    private static boolean isMultiplexed(KafkaTopicConfig.TopicConfig topicConfig) {
+        return topicConfig.getTopology() == KafkaTopicConfig.Topology.MULTIPLEXED;
+    }
+
+    private static void validate(KafkaTopicConfig.TopicConfig topicConfig) {
+        if (topicConfig == null) {
+            throw new IllegalArgumentException("Topic pair configuration is required");
+        }
+        requireText(topicConfig.getName(), "name");
+        requireText(topicConfig.getConsumerGroup(), "consumerGroup");
+        requireText(topicConfig.getCorrelatedTopic(), "correlatedTopic");
+        requireText(topicConfig.getKeyOfInterest(), "keyOfInterest");
+        requireText(topicConfig.getCorrelatedKeyOfInterest(), "correlatedKeyOfInterest");
+        for (KafkaTopicConfig.StageConfig stage : topicConfig.getNextStages()) {
+            requireText(stage.getTopic(), "nextStages.topic");
+            requireText(stage.getKeyOfInterest(), "nextStages.keyOfInterest");
+        }
+        if (new HashSet<>(topicConfig.getTopicNames()).size() != topicConfig.getStageCount()) {
+            throw new IllegalArgumentException(topicConfig.isChain()
+                ? "Every topic of a correlation chain must be different"
+                : "Topic and correlated topic must be different");
+        }
+        if (topicConfig.getMatchOutputTopic() != null && topicConfig.getTopicNames().contains(topicConfig.getMatchOutputTopic())) {
+            throw new IllegalArgumentException("Match output topic must not be one of the pair's own topics");
+        }
+    }
+
+    private static void requireText(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Topic pair field '" + field + "' is required");
+        }
+    }
+
+    private Set<String> autoConcurrencyTopics(List<KafkaTopicConfig.TopicConfig> topics) {
+        boolean multiplexedAuto = kafkaTopicConfig.getMultiplexed().isAutoConcurrency();
+        Set<String> autoConcurrencyTopics = new LinkedHashSet<>();
+        for (KafkaTopicConfig.TopicConfig topicConfig : topics) {
+            if (isMultiplexed(topicConfig) ? multiplexedAuto : topicConfig.isAutoConcurrency()) {
+                autoConcurrencyTopics.addAll(topicConfig.getTopicNames());
+            }
+        }
+        return autoConcurrencyTopics;
+    }
+
+    private int containerCount() {
+        int count = multiplexedContainer != null ? 1 : 0;
+        for (PairContainers pair : pairs.values()) {
+            count += pair.containers.size();
+        }
+        return count;
+    }
+
+    /**
+     * Number of consumer threads for a container: the configured value, or in auto mode the largest
+     * partition count among its topics (consumers beyond that would never be assigned a partition)
+     */
+    private static int resolveConcurrency(String concurrency, List<String> topics, Map<String, Integer> partitionCounts) {
+        if (!KafkaTopicConfig.AUTO_CONCURRENCY.equalsIgnoreCase(concurrency)) {
+            return Integer.parseInt(concurrency);
+        }
+        int threads = 0;
+        for (String topic : topics) {
+            Integer partitions = partitionCounts.get(topic);
+            if (partitions != null && partitions > threads) {
+                threads = partitions;
+            }
+        }
+        if (threads < 1) {
+            logger.warn("Partition count unknown for topics: {}, falling back to a single consumer thread", topics);
+            return 1;
+        }
+        return threads;
+    }
+
+    /**
+     * Create and start a Kafka consumer container
+     */
+    private ConcurrentMessageListenerContainer<String, ?> createConsumer(ContainerSpec spec) {
         try {
             // Create container properties
-            ContainerProperties containerProperties = new ContainerProperties(topic);
+            ContainerProperties containerProperties = new ContainerProperties(spec.topics().toArray(new String[0]));
             containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
-            containerProperties.setGroupId(consumerGroup);
-
-            // Create the container
-            ConcurrentMessageListenerContainer<String, String> container = new ConcurrentMessageListenerContainer<>(
-                consumerFactory, containerProperties);
+            containerProperties.setGroupId(spec.consumerGroup());
+            if (spec.isKeyParallel() || (interestingEventWriteBehind.isEnabled() 
+                    && spec.listenerMode() == KafkaTopicConfig.ListenerMode.RECORD)) {
+                // Records are acknowledged out of order, from virtual threads, correlation shards or once the write-behind
+                // stage has committed their rows; the container only commits up to the highest contiguous
+                // acknowledged offset and keeps the consumer paused (still polling, so heartbeats continue)
+                // until every record of the previous poll is acknowledged
+                containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+                containerProperties.setAsyncAcks(true);
+            }
+            if (!spec.isKeyParallel() && spec.processingMode() != KafkaTopicConfig.ProcessingMode.SEQUENTIAL) {
+                logger.warn("Processing mode {} is ignored for topics: {} in {} listener mode", 
+                    spec.processingMode(), spec.topics(), spec.listenerMode());
+            }
 
-            // Set the message listener
-            container.setupMessageListener(new DynamicMessageListener(topicConfig, isCorrelated));
+            // Create the container; the byte array ingest mode keeps values as raw UTF-8 bytes
+            ConcurrentMessageListenerContainer<String, ?> container = 
+                spec.ingestMode() == KafkaTopicConfig.IngestMode.BYTES
+                    ? createContainer(byteArrayConsumerFactory, containerProperties, spec)
+                    : createContainer(consumerFactory, containerProperties, spec);
+            container.setConcurrency(spec.concurrency());
 
             // Start the container
             container.start();
 
-            // Store the container for cleanup
-            containers.add(container);
+            logger.info("Created dynamic consumer for topics: {} with consumer group: '{}' (listener mode: {}, processing mode: {}, concurrency: {})", 
+                spec.topics(), spec.consumerGroup(), spec.listenerMode(), spec.processingMode(), spec.concurrency());
+            return container;
 
-            logger.info("Created dynamic consumer for topic: '{}' with consumer group: '{}' (correlated: {})", 
-                topic, consumerGroup, isCorrelated);
+        } catch (RuntimeException e) {
+            logger.error("Error creating consumer for topics: {} with consumer group: '{}'", spec.topics(), spec.consumerGroup(), (Object) e);
+            throw e;
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Error creating consumer for topic: '{}' with consumer group: '{}'", topic, consumerGroup, (Object) e);
+    private <V> ConcurrentMessageListenerContainer<String, V> createContainer(ConsumerFactory<String, V> factory, 
+            ContainerProperties containerProperties, ContainerSpec spec) {
+        ConcurrentMessageListenerContainer<String, V> container = new ConcurrentMessageListenerContainer<>(
+            factory, containerProperties);
+
+        // Set the message listener; batch listeners receive the whole poll in a single call
+        if (spec.listenerMode() == KafkaTopicConfig.ListenerMode.BATCH) {
+            container.setupMessageListener(new DynamicBatchMessageListener<V>(spec.consumerGroup()));
+        } else if (spec.isKeyParallel()) {
+            container.setupMessageListener(new KeyParallelMessageListener<V>(spec.processingMode()));
+        } else {
+            container.setupMessageListener(new DynamicMessageListener<V>());
         }
+        return container;
     }
 
     /**
-     * Dynamic message listener implementation
+     * Topics, consumer group and processing options of one consumer container.
+     * The listeners look a record's rules up in the routing table's immutable snapshot, so rules added
+     * by a later pair on a topic the container already consumes apply without a restart.
      */
-    private class DynamicMessageListener implements AcknowledgingMessageListener<String, String> {
+    private record ContainerSpec(String consumerGroup, List<String> topics, KafkaTopicConfig.ListenerMode listenerMode,
+                                 KafkaTopicConfig.IngestMode ingestMode, KafkaTopicConfig.ProcessingMode processingMode,
+                                 int concurrency) {
 
-        private final KafkaTopicConfig.TopicConfig topicConfig;
-        private final boolean isCorrelated;
+        /**
+         * Whether records are handed off the consumer thread, to virtual threads or correlation shards
+         */
+        boolean isKeyParallel() {
+            return processingMode != KafkaTopicConfig.ProcessingMode.SEQUENTIAL
+                && listenerMode == KafkaTopicConfig.ListenerMode.RECORD;
+        }
+    }
 
-        public DynamicMessageListener(KafkaTopicConfig.TopicConfig topicConfig, boolean isCorrelated) {
-            this.topicConfig = topicConfig;
-            this.isCorrelated = isCorrelated;
+    /**
+     * Acknowledge a record whose topic is no longer routed, e.g. after its pair was removed
+     */
+    private static void skipUnrouted(ConsumerRecord<String, ?> record) {
+        logger.warn("No route for topic: '{}', skipping record at partition: {} offset: {}", 
+            record.topic(), record.partition(), record.offset());
+    }
+
+    /**
+     * Acknowledge a record; we still acknowledge after processing errors to prevent infinite reprocessing
+     */
+    private static void acknowledge(ConsumerRecord<String, ?> record, Acknowledgment acknowledgment) {
+        try {
+            acknowledgment.acknowledge();
+            logger.debug("Message acknowledged for topic: {} partition: {} offset: {}", 
+                record.topic(), record.partition(), record.offset());
+        } catch (Exception ackException) {
+            logger.error("Error acknowledging message for topic: {} partition: {} offset: {}", 
+                record.topic(), record.partition(), record.offset(), (Object) ackException);
         }
+    }
+
+    /**
+     * Dynamic message listener implementation
+     */
+    private class DynamicMessageListener<V> implements AcknowledgingMessageListener<String, V> {
 
         @Override
-        public void onMessage(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        public void onMessage(ConsumerRecord<String, V> record, Acknowledgment acknowledgment) {
+            TopicRules rules = topicRoutingTable.rules(record.topic());
+            if (rules == null) {
+                skipUnrouted(record);
+                acknowledgment.acknowledge();
+                return;
+            }
+            TopicRoute route = rules.primary();
+            String consumerGroup = route.getConsumerGroup();
             try {
-                String topic = record.topic();
-                String key = record.key();
-                String value = record.value();
-                int partition = record.partition();
-                long offset = record.offset();
-                String consumerGroup = isCorrelated ? topicConfig.getConsumerGroup() + "-correlated" : topicConfig.getConsumerGroup();
-                
-                logger.info("Consumer Group: '{}' | Topic: '{}' | Partition: {} | Offset: {} | Key: '{}' | Message: '{}'", 
-                    consumerGroup, topic, partition, offset, key, value);
-                
-                // Extract and log keys of interest from JSON message
-                extractAndLogKeysOfInterest(topic, value, consumerGroup);
+                CompletableFuture<Void> persisted = processRecord(record, rules, null);
                 
-                logger.debug("Message processed successfully for topic: {} with consumer group: {}", topic, consumerGroup);
-                
-                // Acknowledge the message after successful processing
-                acknowledgment.acknowledge();
-                logger.debug("Message acknowledged for topic: {} with consumer group: {}", topic, consumerGroup);
+                // Acknowledge the message after successful processing; with write-behind, once its row is committed
+                if (persisted.isDone()) {
+                    acknowledgment.acknowledge();
+                    logger.debug("Message acknowledged for topic: {} with consumer group: {}", record.topic(), consumerGroup);
+                } else {
+                    persisted.whenComplete((result, failure) -> acknowledge(record, acknowledgment));
+                }
                 
             } catch (Exception e) {
-                logger.error("Error processing message for topic: {} (correlated: {})", record.topic(), isCorrelated, (Object) e);
+                logger.error("Error processing message for topic: {} (correlated: {})", record.topic(), route.isCorrelated(), (Object) e);
                 // In a real application, you might want to implement dead letter queue logic here
                 // Note: We still acknowledge the message even on error to prevent infinite reprocessing
                 // In a production environment, you might want to implement retry logic or dead letter queue
                 try {
                     acknowledgment.acknowledge();
-                    logger.debug("Message acknowledged after error for topic: {} with consumer group: {}", record.topic(), 
-                        isCorrelated ? topicConfig.getConsumerGroup() + "-correlated" : topicConfig.getConsumerGroup());
+                    logger.debug("Message acknowledged after error for topic: {} with consumer group: {}", record.topic(), consumerGroup);
                 } catch (Exception ackException) {
                     logger.error("Error acknowledging message after processing error", (Object) ackException);
                 }
@@ -140,92 +793,432 @@ public class DynamicKafkaConsumerService {
     }
 
     /**
-     * Extract and log keys of interest from JSON message
+     * Batch message listener implementation.
+     * Processes every record returned by a poll (up to max-poll-records) inside a single
+     * database transaction and acknowledges the whole batch once the transaction has committed.
      */
-    private void extractAndLogKeysOfInterest(String topic, String message, String consumerGroup) {
-        try {
-            // Find the topic configuration
-            KafkaTopicConfig.TopicConfig topicConfig = kafkaTopicConfig.getTopics().stream()
-                .filter(config -> config.getName().equals(topic) || config.getCorrelatedTopic().equals(topic))
-                .findFirst()
-                .orElse(null);
-
-            if (topicConfig == null) {
-                logger.warn("No topic configuration found for topic: {}", topic);
+    private class DynamicBatchMessageListener<V> implements BatchAcknowledgingMessageListener<String, V> {
+
+        private final String consumerGroup;
+
+        public DynamicBatchMessageListener(String consumerGroup) {
+            this.consumerGroup = consumerGroup;
+        }
+
+        @Override
+        public void onMessage(List<ConsumerRecord<String, V>> records, Acknowledgment acknowledgment) {
+            logger.debug("Consumer Group: '{}' | Received batch of {} records", consumerGroup, records.size());
+            
+            // Rows queued for write-behind are inserted outside the batch transaction
+            List<CompletableFuture<Void>> queuedWrites = new ArrayList<>();
+            // Per record, the rules whose work was handed outside the transaction and survives a rollback
+            Map<ConsumerRecord<String, V>, BitSet> queuedRoutes = new IdentityHashMap<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> records.forEach(record ->
+                    process(record, queuedWrites, queuedRoutes.computeIfAbsent(record, queued -> new BitSet()), false)));
+                logger.debug("Batch of {} records committed in a single transaction for consumer group: {}", records.size(), consumerGroup);
+            } catch (Exception e) {
+                // One failing record rolls back the whole batch; replay record by record so the
+                // healthy records are still persisted, each in its own transaction
+                logger.error("Error processing batch of {} records for consumer group: {}, falling back to per-record processing", 
+                    records.size(), consumerGroup, (Object) e);
+                for (ConsumerRecord<String, V> record : records) {
+                    try {
+                        // Records the first pass never reached are processed in full
+                        process(record, queuedWrites, queuedRoutes.computeIfAbsent(record, queued -> new BitSet()), true);
+                    } catch (Exception recordException) {
+                        logger.error("Error processing message for topic: {}", record.topic(), (Object) recordException);
+                    }
+                }
+            }
+            
+            // Only acknowledge once the queued rows are durable
+            if (!queuedWrites.isEmpty()) {
+                CompletableFuture.allOf(queuedWrites.toArray(new CompletableFuture[0])).join();
+            }
+            
+            // Acknowledge the whole batch once; we still acknowledge on error to prevent infinite reprocessing
+            try {
+                acknowledgment.acknowledge();
+                logger.debug("Batch of {} records acknowledged for consumer group: {}", records.size(), consumerGroup);
+            } catch (Exception ackException) {
+                logger.error("Error acknowledging batch for consumer group: {}", consumerGroup, (Object) ackException);
+            }
+        }
+
+        private void process(ConsumerRecord<String, V> record, List<CompletableFuture<Void>> queuedWrites,
+                             BitSet queuedRoutes, boolean replay) {
+            TopicRules rules = topicRoutingTable.rules(record.topic());
+            if (rules == null) {
+                if (!replay) {
+                    skipUnrouted(record);
+                }
                 return;
             }
+            CompletableFuture<Void> persisted = processRecord(record, rules, queuedRoutes);
+            if (!persisted.isDone()) {
+                queuedWrites.add(persisted);
+            }
+        }
+    }
+
+    /**
+     * Key parallel message listener implementation.
+     * The keys of interest of every rule are extracted on the consumer thread and the database work of
+     * each rule is handed to virtual threads, ordered only per key of interest value, or to the correlation
+     * shard owning the key. Each record is acknowledged once the work of all its rules has completed; the
+     * container turns these out-of-order acknowledgments into contiguous commits.
+     */
+    private class KeyParallelMessageListener<V> implements AcknowledgingMessageListener<String, V> {
+
+        private final KafkaTopicConfig.ProcessingMode processingMode;
+
+        public KeyParallelMessageListener(KafkaTopicConfig.ProcessingMode processingMode) {
+            this.processingMode = processingMode;
+            if (processingMode == KafkaTopicConfig.ProcessingMode.SHARDED) {
+                shardedCorrelationEngine.start();
+            }
+        }
 
-            // Parse JSON message
-            JsonNode jsonNode = objectMapper.readTree(message);
+        @Override
+        public void onMessage(ConsumerRecord<String, V> record, Acknowledgment acknowledgment) {
+            TopicRules rules = topicRoutingTable.rules(record.topic());
+            if (rules == null) {
+                skipUnrouted(record);
+                acknowledgment.acknowledge();
+                return;
+            }
+            logRecord(record, rules.primary());
             
-            // Determine which key to extract based on whether this is the main topic or correlated topic
-            String keyOfInterest = null;
-            String keyName = null;
+            String[] keysOfInterest = extractKeysOfInterest(rules, record.value());
+            List<CompletableFuture<Void>> persisted = new ArrayList<>(rules.getRoutes().size());
+            for (int i = 0; keysOfInterest != null && i < rules.getRoutes().size(); i++) {
+                String keyOfInterest = rules.keyOf(keysOfInterest, i);
+                if (keyOfInterest != null) {
+                    persisted.add(submit(rules.getRoutes().get(i), keyOfInterest, record));
+                }
+            }
             
-            if (topic.equals(topicConfig.getName())) {
-                // Main topic
-                keyName = topicConfig.getKeyOfInterest();
-                if (keyName != null && jsonNode.has(keyName)) {
-                    keyOfInterest = jsonNode.get(keyName).asText();
-                    logger.info("Consumer Group: '{}' | Topic: '{}' | Key of Interest '{}': '{}'", 
-                        consumerGroup, topic, keyName, keyOfInterest);
-                    
-                    // Persist interesting event to database
-                    try {
-                        interestingEventService.saveInterestingEvent(topic, keyName, keyOfInterest);
+            if (persisted.isEmpty()) {
+                // Nothing to persist, so nothing to wait for
+                acknowledge(record, acknowledgment);
+                return;
+            }
+            // Acknowledged once every rule's work has completed, whether or not it failed
+            allOf(persisted).whenComplete((result, failure) -> acknowledge(record, acknowledgment));
+        }
+
+        private CompletableFuture<Void> submit(TopicRoute route, String key, ConsumerRecord<String, V> record) {
+            persistenceBackpressure.persistenceStarted(route.getTopic());
+            CompletableFuture<Void> persisted;
+            if (processingMode == KafkaTopicConfig.ProcessingMode.SHARDED) {
+                // Both sides of a pair hash the key events are stored under, so they land on the same shard.
+                // Queued write-behind events are visible to the correlation index, so with the index the
+                // shard moves on without waiting for the insert; without it the next task needs the row
+                persisted = shardedCorrelationEngine.submit(route.getOriginalKeyName(), key, () -> {
+                    CompletableFuture<Void> handled = handleKeyOfInterest(route, key, record);
+                    return correlationIndex.isEnabled() ? handled : CompletableFuture.completedFuture(handled.join());
+                });
+            } else {
+                // Order by the key events are stored under, so both sides of a pair serialise on the same key
+                String orderingKey = route.getOriginalKeyName() + '\u0000' + key;
+                // The task waits for a write-behind insert, so the next task for the key sees the committed row
+                persisted = keyOrderedExecutor.submit(orderingKey, () -> handleKeyOfInterest(route, key, record).join());
+            }
+            return persisted.whenComplete((result, failure) -> {
+                persistenceBackpressure.persistenceFinished(route.getTopic());
+                if (failure != null) {
+                    logger.error("Error processing message for topic: {} (correlated: {})", 
+                        record.topic(), route.isCorrelated(), (Object) failure);
+                }
+            });
+        }
+    }
+
+    /**
+     * Log a single record, extract the keys of every rule of its topic in one pass and hand each key
+     * found to its rule
+     *
+     * @param queuedRoutes within a batch, the rules whose work was handed outside the batch transaction: rules
+     *                     already set are skipped, as when a failed batch is replayed, and rules handed off now
+     *                     are added; null outside a batch
+     * @return a future completed once the record's database work is durable for every rule
+     */
+    private CompletableFuture<Void> processRecord(ConsumerRecord<String, ?> record, TopicRules rules, BitSet queuedRoutes) {
+        logRecord(record, rules.primary());
+        
+        String[] keysOfInterest = extractKeysOfInterest(rules, record.value());
+        List<CompletableFuture<Void>> persisted = new ArrayList<>(rules.getRoutes().size());
+        for (int i = 0; keysOfInterest != null && i < rules.getRoutes().size(); i++) {
+            TopicRoute route = rules.getRoutes().get(i);
+            String keyOfInterest = rules.keyOf(keysOfInterest, i);
+            if (keyOfInterest == null || (queuedRoutes != null && queuedRoutes.get(i))) {
+                continue;
+            }
+            CompletableFuture<Void> routePersisted = persistKeyOfInterest(route, keyOfInterest, record);
+            if (queuedRoutes != null && (!routePersisted.isDone()
+                    || (route.getRole() == TopicRoute.Role.MAIN && interestingEventWriteBehind.isEnabled()))) {
+                // Queued for write-behind, or matched an event that is, so a rollback does not undo it
+                queuedRoutes.set(i);
+            }
+            persisted.add(routePersisted);
+        }
+        
+        logger.debug("Message processed successfully for topic: {} with consumer group: {}", record.topic(), rules.primary().getConsumerGroup());
+        return allOf(persisted);
+    }
+
+    private void logRecord(ConsumerRecord<String, ?> record, TopicRoute route) {
+        String topic = record.topic();
+        String consumerGroup = route.getConsumerGroup();
+        Object payload = record.value();
+        
+        if (payload instanceof byte[] bytes) {
+            // Byte array ingest: avoid decoding the whole payload just for logging
+            logger.info("Consumer Group: '{}' | Topic: '{}' | Partition: {} | Offset: {} | Key: '{}' | Message size: {} bytes", 
+                consumerGroup, topic, record.partition(), record.offset(), record.key(), bytes.length);
+            if (logger.isTraceEnabled()) {
+                logger.trace("Consumer Group: '{}' | Topic: '{}' | Offset: {} | Message: '{}'", 
+                    consumerGroup, topic, record.offset(), decode(bytes));
+            }
+        } else {
+            logger.info("Consumer Group: '{}' | Topic: '{}' | Partition: {} | Offset: {} | Key: '{}' | Message: '{}'", 
+                consumerGroup, topic, record.partition(), record.offset(), record.key(), payload);
+        }
+    }
+
+    /**
+     * Hand a key of interest to its rule, tracking the work for persistence backpressure
+     */
+    private CompletableFuture<Void> persistKeyOfInterest(TopicRoute route, String keyOfInterest, ConsumerRecord<String, ?> record) {
+        persistenceBackpressure.persistenceStarted(route.getTopic());
+        CompletableFuture<Void> persisted;
+        try {
+            persisted = handleKeyOfInterest(route, keyOfInterest, record);
+        } catch (RuntimeException e) {
+            persistenceBackpressure.persistenceFinished(route.getTopic());
+            logger.error("Error handling key of interest for topic: {} and consumer group: {}", 
+                route.getTopic(), route.getConsumerGroup(), (Object) e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return persisted.whenComplete((result, failure) -> persistenceBackpressure.persistenceFinished(route.getTopic()));
+    }
+
+    /**
+     * Extract the keys of interest of every rule of the topic from a single parse of the message
+     *
+     * @return the extracted values, to be read with {@link TopicRules#keyOf}, or null if the message could not be parsed
+     */
+    private String[] extractKeysOfInterest(TopicRules rules, Object message) {
+        KeyPathSet keyPaths = rules.getKeyPaths();
+        if (keyPaths.size() == 0) {
+            return new String[0];
+        }
+        String[] keysOfInterest;
+        try {
+            // Stream the JSON message only up to the last key of interest any rule needs
+            keysOfInterest = extractKeys(message, keyPaths);
+        } catch (Exception e) {
+            logger.error("Error extracting keys of interest from JSON message for topic: {} and consumer group: {}", 
+                rules.getTopic(), rules.primary().getConsumerGroup(), (Object) e);
+            return null;
+        }
+        for (int i = 0; i < rules.getRoutes().size(); i++) {
+            TopicRoute route = rules.getRoutes().get(i);
+            if (route.getKeyName() != null) {
+                logKeyOfInterest(route, rules.keyOf(keysOfInterest, i));
+            }
+        }
+        return keysOfInterest;
+    }
+
+    private static void logKeyOfInterest(TopicRoute route, String keyOfInterest) {
+        // The route already knows whether this is the main topic, the correlated topic or a chain stage
+        String keyLabel = route.getRole() == TopicRoute.Role.STAGE ? "Stage " + route.getStageIndex() + " Key of Interest"
+            : route.isCorrelated() ? "Correlated Key of Interest" : "Key of Interest";
+        if (keyOfInterest != null) {
+            logger.info("Consumer Group: '{}' | Topic: '{}' | {} '{}': '{}'", 
+                route.getConsumerGroup(), route.getTopic(), keyLabel, route.getKeyName(), keyOfInterest);
+        } else {
+            logger.warn("Consumer Group: '{}' | Topic: '{}' | {} '{}' not found in JSON message", 
+                route.getConsumerGroup(), route.getTopic(), keyLabel, route.getKeyName());
+        }
+    }
+
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> futures) {
+        return switch (futures.size()) {
+            case 0 -> CompletableFuture.completedFuture(null);
+            case 1 -> futures.get(0);
+            default -> CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        };
+    }
+
+    /**
+     * Persist the key of interest (main topic), correlate it with a stored event (correlated topic)
+     * or advance the chain state of the key (chain stage). Pairs that correlate on event time are
+     * timed by the record's timestamp.
+     *
+     * @return a future completed once the database work is durable; errors are logged, never propagated
+     */
+    private CompletableFuture<Void> handleKeyOfInterest(TopicRoute route, String keyOfInterest, ConsumerRecord<String, ?> record) {
+        String topic = route.getTopic();
+        String keyName = route.getKeyName();
+        Object message = record.value();
+        Instant eventTime = correlationWatermarks.observe(route, record.partition(), record.timestamp());
+        
+        if (route.getRole() == TopicRoute.Role.STAGE) {
+            // Chains are tracked in memory, a stage never touches the database
+            chainCorrelationTracker.advance(route, keyOfInterest);
+        } else if (route.getRole() == TopicRoute.Role.MAIN && interestingEventWriteBehind.isEnabled()) {
+            // Queue the interesting event for the next group commit
+            return interestingEventWriteBehind.enqueue(topic, keyName, keyOfInterest, eventTime)
+                .handle((result, failure) -> {
+                    if (failure != null) {
+                        logger.error("Error persisting interesting event to database - Topic: '{}', Key: '{}', Value: '{}'", 
+                            topic, keyName, keyOfInterest, (Object) failure);
+                    } else {
                         logger.info("Persisted interesting event to database - Topic: '{}', Key: '{}', Value: '{}'", 
                             topic, keyName, keyOfInterest);
-                    } catch (Exception e) {
-                        logger.error("Error persisting interesting event to database - Topic: '{}', Key: '{}', Value: '{}'", 
-                            topic, keyName, keyOfInterest, (Object) e);
                     }
-                } else if (keyName != null) {
-                    logger.warn("Consumer Group: '{}' | Topic: '{}' | Key of Interest '{}' not found in JSON message", 
-                        consumerGroup, topic, keyName);
+                    return null;
+                });
+        } else if (route.getRole() == TopicRoute.Role.MAIN) {
+            // Persist interesting event to database
+            long start = System.nanoTime();
+            try {
+                interestingEventService.saveInterestingEvent(topic, keyName, keyOfInterest, eventTime);
+                logger.info("Persisted interesting event to database - Topic: '{}', Key: '{}', Value: '{}'", 
+                    topic, keyName, keyOfInterest);
+            } catch (Exception e) {
+                logger.error("Error persisting interesting event to database - Topic: '{}', Key: '{}', Value: '{}'", 
+                    topic, keyName, keyOfInterest, (Object) e);
+            } finally {
+                persistenceBackpressure.recordLatency(System.nanoTime() - start);
+            }
+        } else {
+            // Check for correlation with existing interesting events
+            // We need to look for the original key name, not the correlated key name
+            String originalKeyName = route.getOriginalKeyName();
+            long start = System.nanoTime();
+            try {
+                // The correlated payload is only decoded if a match is actually stored
+                Supplier<String> correlatedMessage = () -> decode(message);
+                long windowSeconds = route.getTopicConfig().getCorrelationWindowSeconds();
+                CompletableFuture<Void> correlated = interestingEventService.checkAndUpdateCorrelation(originalKeyName,
+                    keyOfInterest, correlatedMessage, eventTime, windowSeconds > 0 ? Duration.ofSeconds(windowSeconds) : null);
+                logger.info("Checked correlation for original key: '{}' with value: '{}' from correlated topic: '{}'", 
+                    originalKeyName, keyOfInterest, topic);
+                if (!correlated.isDone()) {
+                    // Matched an event still queued for write-behind, durable once its insert commits
+                    return correlated.handle((result, failure) -> {
+                        if (failure != null) {
+                            logger.error("Error storing correlation for original key: '{}' with value: '{}' from correlated topic: '{}'", 
+                                originalKeyName, keyOfInterest, topic, (Object) failure);
+                        }
+                        return null;
+                    });
                 }
-            } else if (topic.equals(topicConfig.getCorrelatedTopic())) {
-                // Correlated topic
-                keyName = topicConfig.getCorrelatedKeyOfInterest();
-                if (keyName != null && jsonNode.has(keyName)) {
-                    keyOfInterest = jsonNode.get(keyName).asText();
-                    logger.info("Consumer Group: '{}' | Topic: '{}' | Correlated Key of Interest '{}': '{}'", 
-                        consumerGroup, topic, keyName, keyOfInterest);
-                    
-                    // Check for correlation with existing interesting events
-                    // We need to look for the original key name, not the correlated key name
-                    String originalKeyName = topicConfig.getKeyOfInterest();
-                    try {
-                        interestingEventService.checkAndUpdateCorrelation(originalKeyName, keyOfInterest, message);
-                        logger.info("Checked correlation for original key: '{}' with value: '{}' from correlated topic: '{}'", 
-                            originalKeyName, keyOfInterest, topic);
-                    } catch (Exception e) {
-                        logger.error("Error checking correlation for original key: '{}' with value: '{}' from correlated topic: '{}'", 
-                            originalKeyName, keyOfInterest, topic, (Object) e);
-                    }
-                } else if (keyName != null) {
-                    logger.warn("Consumer Group: '{}' | Topic: '{}' | Correlated Key of Interest '{}' not found in JSON message", 
-                        consumerGroup, topic, keyName);
+            } catch (Exception e) {
+                logger.error("Error checking correlation for original key: '{}' with value: '{}' from correlated topic: '{}'", 
+                    originalKeyName, keyOfInterest, topic, (Object) e);
+            } finally {
+                persistenceBackpressure.recordLatency(System.nanoTime() - start);
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private String[] extractKeys(Object message, KeyPathSet keyPaths) throws IOException {
+        if (message instanceof byte[] bytes) {
+            return jsonKeyExtractor.extractAll(bytes, keyPaths);
+        }
+        return jsonKeyExtractor.extractAll((String) message, keyPaths);
+    }
+
+    private static String decode(Object message) {
+        if (message instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return (String) message;
+    }
+
+    /**
+     * Runtime status of every consumer container, for the consumers status endpoint
+     */
+    public List<Map<String, Object>> getContainerStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (Map.Entry<String, PairContainers> pair : pairs.entrySet()) {
+            for (ConcurrentMessageListenerContainer<String, ?> container : pair.getValue().containers) {
+                Map<String, Object> containerStatus = containerStatus(container);
+                containerStatus.put("pair", pair.getKey());
+                containerStatus.put("paused", container.isPauseRequested());
+                status.add(containerStatus);
+            }
+        }
+        ConcurrentMessageListenerContainer<String, ?> multiplexed = multiplexedContainer;
+        if (multiplexed != null) {
+            Map<String, Object> containerStatus = containerStatus(multiplexed);
+            List<String> multiplexedPairs = new ArrayList<>();
+            for (PairContainers pair : pairs.values()) {
+                if (isMultiplexed(pair.topicConfig)) {
+                    multiplexedPairs.add(pair.topicConfig.getName());
                 }
             }
-            
-        } catch (Exception e) {
-            logger.error("Error extracting keys of interest from JSON message for topic: {} and consumer group: {}", 
-                topic, consumerGroup, (Object) e);
+            containerStatus.put("pairs", multiplexedPairs);
+            containerStatus.put("pausedPairs", new ArrayList<>(pausedMultiplexedPairs));
+            status.add(containerStatus);
         }
+        return status;
+    }
+
+    private static Map<String, Object> containerStatus(ConcurrentMessageListenerContainer<String, ?> container) {
+        Map<String, Object> containerStatus = new LinkedHashMap<>();
+        containerStatus.put("topics", container.getContainerProperties().getTopics());
+        containerStatus.put("consumerGroup", container.getContainerProperties().getGroupId());
+        containerStatus.put("concurrency", container.getConcurrency());
+        containerStatus.put("consumerThreads", container.isRunning() ? container.getContainers().size() : 0);
+        containerStatus.put("running", container.isRunning());
+        return containerStatus;
     }
 
     @PreDestroy
-    public void cleanup() {
-        logger.info("Stopping {} dynamic Kafka consumer containers", containers.size());
-        for (ConcurrentMessageListenerContainer<String, String> container : containers) {
+    public synchronized void cleanup() {
+        logger.info("Stopping {} dynamic Kafka consumer containers", containerCount());
+        for (PairContainers pair : pairs.values()) {
+            stopContainers(pair.containers);
+        }
+        pairs.clear();
+        ConcurrentMessageListenerContainer<String, ?> multiplexed = multiplexedContainer;
+        multiplexedContainer = null;
+        if (multiplexed != null) {
+            stopContainers(List.of(multiplexed));
+        }
+        logger.info("All dynamic Kafka consumer containers stopped");
+    }
+
+    private static void stopContainers(List<ConcurrentMessageListenerContainer<String, ?>> containers) {
+        for (ConcurrentMessageListenerContainer<String, ?> container : containers) {
             try {
                 container.stop();
-                logger.debug("Stopped container for topic: {}", container.getContainerProperties().getTopics());
+                logger.debug("Stopped container for topics: {}", (Object) container.getContainerProperties().getTopics());
             } catch (Exception e) {
                 logger.error("Error stopping container", (Object) e);
             }
         }
-        containers.clear();
-        logger.info("All dynamic Kafka consumer containers stopped");
     }
-} 
\ No newline at end of file
+
+    /**
+     * Configuration and owned containers of one correlation pair
+     */
+    private static final class PairContainers {
+
+        private final KafkaTopicConfig.TopicConfig topicConfig;
+        private final List<ConcurrentMessageListenerContainer<String, ?>> containers;
+
+        private PairContainers(KafkaTopicConfig.TopicConfig topicConfig,
+                               List<ConcurrentMessageListenerContainer<String, ?>> containers) {
+            this.topicConfig = topicConfig;
+            this.containers = List.copyOf(containers);
+        }
+    }
+}
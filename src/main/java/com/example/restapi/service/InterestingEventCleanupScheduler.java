@@ -7,47 +7,82 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes correlated events from the correlated_events table.
+ * <p>
+ * Rows are deleted in chunks of {@code chunk-size} with one bulk statement each, every chunk committed
+ * in its own transaction, so locks are held only for one chunk and no entity is loaded. While persistence
+ * backpressure is active the run stops after the current chunk and leaves the rest to the next run, so a
+ * burst of correlations never competes with ingest for the database.
+ */
 @Service
-@Transactional
 public class InterestingEventCleanupScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(InterestingEventCleanupScheduler.class);
 
     private final InterestingEventRepository interestingEventRepository;
+    private final PersistenceBackpressure persistenceBackpressure;
 
     @Value("${scheduler.cleanup.interval-seconds:60}")
     private int cleanupIntervalSeconds;
 
+    private final int chunkSize;
+
     @Autowired
-    public InterestingEventCleanupScheduler(InterestingEventRepository interestingEventRepository) {
+    public InterestingEventCleanupScheduler(InterestingEventRepository interestingEventRepository,
+                                            PersistenceBackpressure persistenceBackpressure,
+                                            @Value("${scheduler.cleanup.chunk-size:1000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Cleanup needs chunk-size > 0, got " + chunkSize);
+        }
         this.interestingEventRepository = interestingEventRepository;
+        this.persistenceBackpressure = persistenceBackpressure;
+        this.chunkSize = chunkSize;
     }
 
     /**
-     * Scheduled task to clean up correlated events from the interesting_events table
+     * Scheduled task to clean up correlated events from the correlated_events table
      * Runs every X seconds as configured in application.yml
      */
     @Scheduled(fixedDelayString = "${scheduler.cleanup.interval-seconds:60}000")
     public void cleanupCorrelatedEvents() {
+        logger.info("Starting cleanup of correlated events from correlated_events table...");
+        long start = System.nanoTime();
+        long deletedCount = 0;
+        int chunks = 0;
+        boolean yielded = false;
         try {
-            logger.info("Starting cleanup of correlated events from interesting_events table...");
-            
-            // Count records before deletion for logging
-            long recordsBeforeDeletion = interestingEventRepository.countByIsCorrelatedTrue();
-            
-            if (recordsBeforeDeletion > 0) {
-                // Delete all records where is_correlated = true
-                long deletedCount = interestingEventRepository.deleteByIsCorrelatedTrue();
-                
-                logger.info("Cleanup completed successfully. Deleted {} correlated event records from interesting_events table.", deletedCount);
-            } else {
-                logger.info("No correlated events found to clean up.");
-            }
-            
+            int deleted;
+            do {
+                deleted = interestingEventRepository.deleteCorrelatedChunk(chunkSize);
+                deletedCount += deleted;
+                chunks++;
+                if (deleted == chunkSize && persistenceBackpressure.isOverloaded()) {
+                    // Leave the rest to the next run while ingest needs the database
+                    yielded = true;
+                    break;
+                }
+            } while (deleted == chunkSize);
         } catch (Exception e) {
-            logger.error("Error during cleanup of correlated events: {}", e.getMessage(), e);
+            logger.error("Error during cleanup of correlated events after deleting {} records: {}", deletedCount, e.getMessage(), e);
+            return;
+        }
+
+        if (deletedCount == 0) {
+            logger.info("No correlated events found to clean up.");
+            return;
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long rowsPerSecond = deletedCount * 1000 / elapsedMillis;
+        if (yielded) {
+            logger.info("Cleanup paused while persistence is overloaded. Deleted {} correlated event records in {} chunks ({} rows/s); " +
+                "the rest is left for the next run.", deletedCount, chunks, rowsPerSecond);
+        } else {
+            logger.info("Cleanup completed successfully. Deleted {} correlated event records from correlated_events table " +
+                "in {} chunks ({} rows/s).", deletedCount, chunks, rowsPerSecond);
         }
     }
-} 
\ No newline at end of file
+}
@@ -11,6 +11,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -19,6 +21,9 @@ public class InterestingEventMonitorScheduler {
     private static final Logger logger = LoggerFactory.getLogger(InterestingEventMonitorScheduler.class);
 
     private final InterestingEventRepository interestingEventRepository;
+    private final CorrelationIndex correlationIndex;
+    private final CorrelationTimeoutWheel correlationTimeoutWheel;
+    private final CorrelationWatermarks correlationWatermarks;
 
     @Value("${scheduler.monitor.interval-seconds:30}")
     private int monitorIntervalSeconds;
@@ -27,16 +32,27 @@ public class InterestingEventMonitorScheduler {
     private int ageThresholdSeconds;
 
     @Autowired
-    public InterestingEventMonitorScheduler(InterestingEventRepository interestingEventRepository) {
+    public InterestingEventMonitorScheduler(InterestingEventRepository interestingEventRepository,
+                                            CorrelationIndex correlationIndex,
+                                            CorrelationTimeoutWheel correlationTimeoutWheel,
+                                            CorrelationWatermarks correlationWatermarks) {
         this.interestingEventRepository = interestingEventRepository;
+        this.correlationIndex = correlationIndex;
+        this.correlationTimeoutWheel = correlationTimeoutWheel;
+        this.correlationWatermarks = correlationWatermarks;
     }
 
     /**
      * Scheduled task to monitor uncorrelated events older than the configured threshold
-     * Runs every X seconds as configured in application.yml
+     * Runs every X seconds as configured in application.yml.
+     * Pairs correlating on event time are measured against their watermark instead of the current time.
      */
     @Scheduled(fixedDelayString = "${scheduler.monitor.interval-seconds:30}000")
     public void monitorUncorrelatedEvents() {
+        if (correlationIndex.tracksTimeouts()) {
+            reportExpiredTimeouts();
+            return;
+        }
         try {
             logger.info("Starting monitoring of uncorrelated events older than {} seconds...", ageThresholdSeconds);
             
@@ -46,14 +62,25 @@ public class InterestingEventMonitorScheduler {
             // Find uncorrelated events older than threshold, grouped by topic
             List<Object[]> results = interestingEventRepository.findUncorrelatedEventsOlderThanGroupedByTopic(threshold);
             
-            if (!results.isEmpty()) {
-                logger.info("Found {} topics with uncorrelated events older than {} seconds:", results.size(), ageThresholdSeconds);
-                
-                for (Object[] result : results) {
-                    String topicName = (String) result[0];
-                    Long count = (Long) result[1];
-                    logger.info("Topic: '{}' - Uncorrelated events count: {}", topicName, count);
+            Map<String, Long> counts = new TreeMap<>();
+            for (Object[] result : results) {
+                String topicName = (String) result[0];
+                if (correlationWatermarks.isEventTime(topicName)) {
+                    // Created at the record's timestamp, so the wall clock says nothing about its age
+                    long count = countBehindWatermark(topicName);
+                    if (count > 0) {
+                        counts.put(topicName, count);
+                    }
+                } else {
+                    counts.put(topicName, (Long) result[1]);
                 }
+            }
+            
+            if (!counts.isEmpty()) {
+                logger.info("Found {} topics with uncorrelated events older than {} seconds:", counts.size(), ageThresholdSeconds);
+                
+                counts.forEach((topicName, count) ->
+                    logger.info("Topic: '{}' - Uncorrelated events count: {}", topicName, count));
             } else {
                 logger.info("No uncorrelated events found older than {} seconds.", ageThresholdSeconds);
             }
@@ -62,4 +89,38 @@ public class InterestingEventMonitorScheduler {
             logger.error("Error during monitoring of uncorrelated events: {}", e.getMessage(), e);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Report the events the timing wheel has seen pass their pair's deadline, without querying the table.
+     * The wheel does not track pairs correlating on event time, so those are counted against their watermark.
+     */
+    private void reportExpiredTimeouts() {
+        Map<String, Long> expired = new TreeMap<>(correlationTimeoutWheel.getExpiredPendingCounts());
+        for (String topicName : correlationWatermarks.getPairNames()) {
+            long count = countBehindWatermark(topicName);
+            if (count > 0) {
+                expired.put(topicName, count);
+            }
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Found {} topics with uncorrelated events past their correlation timeout:", expired.size());
+            expired.forEach((topicName, count) ->
+                logger.info("Topic: '{}' - Uncorrelated events count: {}", topicName, count));
+        } else {
+            logger.info("No uncorrelated events found past their correlation timeout.");
+        }
+    }
+
+    /**
+     * Uncorrelated events of an event time pair created more than the age threshold before its watermark,
+     * or 0 until the pair has a watermark
+     */
+    private long countBehindWatermark(String topicName) {
+        Instant watermark = correlationWatermarks.watermark(topicName);
+        if (watermark == null) {
+            return 0;
+        }
+        return interestingEventRepository.countPendingByTopicCreatedBefore(
+            topicName, watermark.minusSeconds(ageThresholdSeconds));
+    }
+}
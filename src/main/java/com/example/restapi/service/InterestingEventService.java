@@ -1,7 +1,10 @@
 package com.example.restapi.service;
 
 import com.example.restapi.entity.InterestingEvent;
+import com.example.restapi.entity.PendingEvent;
 import com.example.restapi.repository.InterestingEventRepository;
+import com.example.restapi.repository.PendingEventClaims;
+import com.example.restapi.repository.PendingEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,11 +12,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
@@ -22,19 +32,99 @@ public class InterestingEventService {
     private static final Logger logger = LoggerFactory.getLogger(InterestingEventService.class);
 
     private final InterestingEventRepository interestingEventRepository;
+    private final PendingEventRepository pendingEventRepository;
+    private final CorrelationIndex correlationIndex;
+    private final OrphanCorrelationBuffer orphanCorrelationBuffer;
+    private final CorrelationLatencyRecorder correlationLatencyRecorder;
+    private final PendingKeyFilter pendingKeyFilter;
+    private final CorrelationMatchSink correlationMatchSink;
 
     @Autowired
-    public InterestingEventService(InterestingEventRepository interestingEventRepository) {
+    public InterestingEventService(InterestingEventRepository interestingEventRepository,
+                                   PendingEventRepository pendingEventRepository, CorrelationIndex correlationIndex,
+                                   OrphanCorrelationBuffer orphanCorrelationBuffer,
+                                   CorrelationLatencyRecorder correlationLatencyRecorder,
+                                   PendingKeyFilter pendingKeyFilter,
+                                   CorrelationMatchSink correlationMatchSink) {
         this.interestingEventRepository = interestingEventRepository;
+        this.pendingEventRepository = pendingEventRepository;
+        this.correlationIndex = correlationIndex;
+        this.orphanCorrelationBuffer = orphanCorrelationBuffer;
+        this.correlationLatencyRecorder = correlationLatencyRecorder;
+        this.pendingKeyFilter = pendingKeyFilter;
+        this.correlationMatchSink = correlationMatchSink;
     }
 
     /**
-     * Save an interesting event to the database
+     * Save an interesting event to the database.
+     * If its correlated message already arrived, the event is stored correlated straight away, or not
+     * stored at all when its pair deletes on match.
      */
     public InterestingEvent saveInterestingEvent(String topicName, String keyOfInterestName, String keyOfInterestValue) {
+        return saveInterestingEvent(topicName, keyOfInterestName, keyOfInterestValue, null);
+    }
+
+    /**
+     * Save an interesting event created at the record's event time
+     *
+     * @param eventTime event time of the record, or null to stamp the event with the current time
+     */
+    public InterestingEvent saveInterestingEvent(String topicName, String keyOfInterestName, String keyOfInterestValue,
+                                                 Instant eventTime) {
         try {
             InterestingEvent event = new InterestingEvent(topicName, keyOfInterestName, keyOfInterestValue);
-            InterestingEvent savedEvent = interestingEventRepository.save(event);
+            if (eventTime != null) {
+                event.setCreatedAt(eventTime);
+            }
+            OrphanCorrelationBuffer.Orphan orphan = orphanCorrelationBuffer.claim(keyOfInterestName, keyOfInterestValue);
+            if (orphan != null && correlationMatchSink.deletesOnMatch(topicName)) {
+                // Matched before it was stored, so the returned event is never written
+                event.setCorrelatedMessage(orphan.correlatedMessage());
+                event.setIsCorrelated(true);
+                event.setCorrelationTimestamp(orphan.correlatedAt() != null ? orphan.correlatedAt() : Instant.now());
+                logger.info("CORRELATION MATCH FOUND! Event not stored, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                    "Correlated Message: '{}' (arrived first at {}), Correlation Time: {}",
+                    topicName, keyOfInterestName, keyOfInterestValue, orphan.correlatedMessage(), orphan.arrivedAt(),
+                    event.getCorrelationTimestamp());
+                correlationMatchSink.emit(topicName, keyOfInterestName, keyOfInterestValue, event.getCreatedAt(),
+                    orphan.correlatedMessage(), event.getCorrelationTimestamp());
+                correlationLatencyRecorder.record(topicName, event.getCreatedAt(), event.getCorrelationTimestamp());
+                return event;
+            }
+            if (orphan != null) {
+                event.setCorrelatedMessage(orphan.correlatedMessage());
+                event.setIsCorrelated(true);
+                event.setCorrelationTimestamp(orphan.correlatedAt() != null ? orphan.correlatedAt() : Instant.now());
+                // Give the message back if the insert does not commit
+                runOnRollback(() -> orphanCorrelationBuffer.park(keyOfInterestName, keyOfInterestValue,
+                    orphan.correlatedMessage(), orphan.correlatedAt()));
+            } else {
+                pendingKeyFilter.add(keyOfInterestName, keyOfInterestValue);
+            }
+            InterestingEvent savedEvent = event;
+            if (orphan != null) {
+                // Stored straight into correlated_events, under an id reserved from the pending events sequence
+                savedEvent.setId(interestingEventRepository.reserveEventId());
+                interestingEventRepository.insertCorrelated(savedEvent.getId(), topicName, keyOfInterestName,
+                    keyOfInterestValue, savedEvent.getCreatedAt(), savedEvent.getCorrelatedMessage(),
+                    savedEvent.getCorrelationTimestamp());
+                logger.info("CORRELATION MATCH FOUND! Event ID: {}, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                    "Correlated Message: '{}' (arrived first at {}), Correlation Time: {}",
+                    savedEvent.getId(), topicName, keyOfInterestName, keyOfInterestValue, orphan.correlatedMessage(),
+                    orphan.arrivedAt(), savedEvent.getCorrelationTimestamp());
+                runAfterCommit(() -> correlationLatencyRecorder.record(topicName, savedEvent.getCreatedAt(),
+                    savedEvent.getCorrelationTimestamp()));
+            } else {
+                PendingEvent pendingEvent = pendingEventRepository.save(
+                    new PendingEvent(topicName, keyOfInterestName, keyOfInterestValue, event.getCreatedAt()));
+                savedEvent.setId(pendingEvent.getId());
+                if (correlationIndex.isEnabled()) {
+                    CorrelationIndex.Entry entry = CorrelationIndex.Entry.persisted(savedEvent.getId(), topicName,
+                        keyOfInterestName, keyOfInterestValue, savedEvent.getCreatedAt());
+                    // Only committed rows can be correlated
+                    runAfterCommit(() -> correlationIndex.add(entry));
+                }
+            }
             
             logger.info("Saved interesting event - Topic: '{}', Key: '{}', Value: '{}', ID: {}", 
                 topicName, keyOfInterestName, keyOfInterestValue, savedEvent.getId());
@@ -134,8 +224,16 @@ public class InterestingEventService {
      * Delete interesting event by ID
      */
     public boolean deleteById(Long id) {
-        if (interestingEventRepository.existsById(id)) {
-            interestingEventRepository.deleteById(id);
+        Optional<InterestingEvent> event = interestingEventRepository.findById(id);
+        if (event.isPresent()) {
+            if (Boolean.TRUE.equals(event.get().getIsCorrelated())) {
+                interestingEventRepository.deleteCorrelatedById(id);
+            } else {
+                interestingEventRepository.deletePendingById(id);
+            }
+            if (correlationIndex.isEnabled()) {
+                correlationIndex.remove(event.get().getKeyOfInterestName(), event.get().getKeyOfInterestValue(), id);
+            }
             logger.info("Deleted interesting event with ID: {}", id);
             return true;
         }
@@ -144,31 +242,267 @@ public class InterestingEventService {
 
     /**
      * Check for correlation and update if match is found
+     *
+     * @return a future completed once the match is durable, see {@link #checkAndUpdateCorrelation(String, String, Supplier, Instant, Duration)}
      */
-    public void checkAndUpdateCorrelation(String keyName, String keyValue, String correlatedMessage) {
+    public CompletableFuture<Void> checkAndUpdateCorrelation(String keyName, String keyValue, String correlatedMessage) {
+        return checkAndUpdateCorrelation(keyName, keyValue, () -> correlatedMessage);
+    }
+
+    /**
+     * Check for correlation and update if match is found.
+     * The correlated message is only materialised when a match is actually stored.
+     * <p>
+     * With the correlation index enabled the match is looked up in memory and the database is only
+     * touched to store it, so this method does not open a transaction of its own.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<Void> checkAndUpdateCorrelation(String keyName, String keyValue,
+                                                             Supplier<String> correlatedMessageSupplier) {
+        return checkAndUpdateCorrelation(keyName, keyValue, correlatedMessageSupplier, null, null);
+    }
+
+    /**
+     * Check for correlation within a window and update if a match is found.
+     * Only events created no more than the window before the correlated message can match; the most
+     * recent event is the best candidate, so an older one is never matched in its place.
+     *
+     * @param correlatedAt event time of the correlated record, or null to correlate at the current time
+     * @param window largest gap between the event and the correlated message, or null for no limit
+     * @return a future completed once the match is durable; a match attached to an event still queued for
+     *         write-behind completes with the event's insert, and exceptionally if that insert fails
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<Void> checkAndUpdateCorrelation(String keyName, String keyValue,
+                                                             Supplier<String> correlatedMessageSupplier,
+                                                             Instant correlatedAt, Duration window) {
+        Instant notBefore = window != null ? (correlatedAt != null ? correlatedAt : Instant.now()).minus(window) : null;
+        if (correlationIndex.isEnabled()) {
+            return correlateFromIndex(keyName, keyValue, correlatedMessageSupplier, correlatedAt, notBefore);
+        }
+        if (!pendingKeyFilter.mightContain(keyName, keyValue)) {
+            // No event was ever inserted with this key since the filters were built
+            parkOrphan(keyName, keyValue, correlatedMessageSupplier, correlatedAt);
+            return CompletableFuture.completedFuture(null);
+        }
+        correlateFromQuery(keyName, keyValue, correlatedMessageSupplier, correlatedAt, notBefore);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Move the most recent pending event to correlated_events with one set-based claim. When a pair of
+     * the key deletes on match, the event is looked up first, since its pair decides whether it is deleted
+     * or moved. The lookup only reads pending_events, whose key index holds no correlated rows.
+     */
+    private void correlateFromQuery(String keyName, String keyValue, Supplier<String> correlatedMessageSupplier,
+                                    Instant correlatedAt, Instant notBefore) {
+        String correlatedMessage = null;
+        // Without a window every pending event can match
+        Instant from = notBefore != null ? notBefore : Instant.EPOCH;
         try {
-            List<InterestingEvent> matchingEvents = interestingEventRepository.findByKeyNameAndValueForCorrelation(keyName, keyValue);
-            
-            if (!matchingEvents.isEmpty()) {
-                InterestingEvent matchedEvent = matchingEvents.get(0); // Get the most recent match
-                
-                // Update the matched event with correlation data
-                matchedEvent.setCorrelatedMessage(correlatedMessage);
-                matchedEvent.setIsCorrelated(true);
-                matchedEvent.setCorrelationTimestamp(Instant.now());
-                
-                InterestingEvent updatedEvent = interestingEventRepository.save(matchedEvent);
-                
-                logger.info("CORRELATION MATCH FOUND! Event ID: {}, Original Topic: '{}', Key: '{}', Value: '{}', " +
-                    "Original Message: '{}', Correlated Message: '{}', Correlation Time: {}", 
-                    updatedEvent.getId(), updatedEvent.getTopicName(), updatedEvent.getKeyOfInterestName(), 
-                    updatedEvent.getKeyOfInterestValue(), updatedEvent.getCorrelatedMessage(), correlatedMessage, 
-                    updatedEvent.getCorrelationTimestamp());
+            if (!correlationMatchSink.deletesOnMatchForKey(keyName)) {
+                correlatedMessage = correlatedMessageSupplier.get();
+                Instant correlationTimestamp = correlatedAt != null ? correlatedAt : Instant.now();
+                PendingEventClaims.ClaimedEvent claimed = interestingEventRepository.claimMostRecent(keyName, keyValue,
+                    from, correlatedMessage, correlationTimestamp);
+                if (claimed != null) {
+                    claimed(claimed, keyName, keyValue, correlatedMessage, correlationTimestamp);
+                    return;
+                }
             } else {
-                logger.info("No correlation match found for key: '{}' with value: '{}'", keyName, keyValue);
+                List<Object[]> candidates;
+                while (!(candidates = interestingEventRepository.findMostRecentForCorrelation(keyName, keyValue,
+                        from, PageRequest.of(0, 1))).isEmpty()) {
+                    Long id = (Long) candidates.get(0)[0];
+                    String topicName = (String) candidates.get(0)[1];
+                    Instant createdAt = (Instant) candidates.get(0)[2];
+                    if (correlatedMessage == null) {
+                        correlatedMessage = correlatedMessageSupplier.get();
+                    }
+                    if (storeMatch(id, topicName, keyName, keyValue, createdAt, correlatedMessage,
+                            correlatedAt != null ? correlatedAt : Instant.now())) {
+                        return;
+                    }
+                    // Another record claimed the event first, try the next pending one
+                }
             }
+            pendingKeyFilter.falsePositive();
         } catch (Exception e) {
             logger.error("Error checking correlation for key: '{}' with value: '{}'", keyName, keyValue, e);
+            return;
         }
+        String materialised = correlatedMessage;
+        parkOrphan(keyName, keyValue, materialised != null ? () -> materialised : correlatedMessageSupplier, correlatedAt);
+    }
+
+    /**
+     * Log and time the match of an event moved to correlated_events by a set-based claim
+     */
+    private void claimed(PendingEventClaims.ClaimedEvent claimed, String keyName, String keyValue,
+                         String correlatedMessage, Instant correlationTimestamp) {
+        logger.info("CORRELATION MATCH FOUND! Event ID: {}, Original Topic: '{}', Key: '{}', Value: '{}', " +
+            "Correlated Message: '{}', Correlation Time: {}",
+            claimed.id(), claimed.topicName(), keyName, keyValue, correlatedMessage, correlationTimestamp);
+        runAfterCommit(() -> correlationLatencyRecorder.record(claimed.topicName(), claimed.createdAt(),
+            correlationTimestamp));
+    }
+
+    /**
+     * Store the match of a committed pending event: delete it and emit the pair if its pair deletes on
+     * match, otherwise move it to correlated_events with the correlated message
+     *
+     * @return false if the event no longer exists or was already correlated
+     */
+    private boolean storeMatch(Long id, String topicName, String keyName, String keyValue, Instant createdAt,
+                               String correlatedMessage, Instant correlationTimestamp) {
+        if (correlationMatchSink.deletesOnMatch(topicName)) {
+            if (interestingEventRepository.deleteUncorrelatedById(id, keyName, keyValue) != 1) {
+                return false;
+            }
+            logger.info("CORRELATION MATCH FOUND! Deleted Event ID: {}, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                "Correlated Message: '{}', Correlation Time: {}",
+                id, topicName, keyName, keyValue, correlatedMessage, correlationTimestamp);
+            runAfterCommit(() -> correlationMatchSink.emit(topicName, keyName, keyValue, createdAt, correlatedMessage,
+                correlationTimestamp));
+        } else {
+            if (interestingEventRepository.correlateById(id, topicName, keyName, keyValue, createdAt, correlatedMessage,
+                    correlationTimestamp) != 1) {
+                return false;
+            }
+            logger.info("CORRELATION MATCH FOUND! Event ID: {}, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                "Correlated Message: '{}', Correlation Time: {}",
+                id, topicName, keyName, keyValue, correlatedMessage, correlationTimestamp);
+        }
+        runAfterCommit(() -> correlationLatencyRecorder.record(topicName, createdAt, correlationTimestamp));
+        return true;
+    }
+
+    /**
+     * Claim the most recent pending event for the key from the index and store the correlation.
+     * An event still queued for write-behind takes the correlation with it into its insert, and the returned
+     * future follows that insert; one that is being flushed is moved once its row has been committed.
+     */
+    private CompletableFuture<Void> correlateFromIndex(String keyName, String keyValue,
+                                                       Supplier<String> correlatedMessageSupplier,
+                                                       Instant correlatedAt, Instant notBefore) {
+        String correlatedMessage = null;
+        CorrelationIndex.Entry match;
+        while ((match = correlationIndex.claimMostRecent(keyName, keyValue, notBefore)) != null) {
+            if (correlatedMessage == null) {
+                correlatedMessage = correlatedMessageSupplier.get();
+            }
+            Instant correlationTimestamp = correlatedAt != null ? correlatedAt : Instant.now();
+            try {
+                String topicName = match.topicName();
+                Instant createdAt = match.createdAt();
+                if (topicName == null && match.id() != null && !correlationMatchSink.deletesOnMatchForKey(keyName)) {
+                    // The off-heap store only keeps the id and creation time, the claim hands back the rest
+                    PendingEventClaims.ClaimedEvent claimed = interestingEventRepository.claimById(match.id(), keyName,
+                        keyValue, correlatedMessage, correlationTimestamp);
+                    if (claimed == null) {
+                        // No longer pending, try the next one
+                        continue;
+                    }
+                    claimed(claimed, keyName, keyValue, correlatedMessage, correlationTimestamp);
+                    CorrelationIndex.Entry restored = match;
+                    runOnRollback(() -> correlationIndex.add(restored));
+                    return CompletableFuture.completedFuture(null);
+                }
+                if (topicName == null && match.id() != null) {
+                    // A pair of the key deletes on match, the pair has to be read from the row first
+                    List<Object[]> pending = interestingEventRepository.findPendingById(match.id(), keyName, keyValue);
+                    if (pending.isEmpty()) {
+                        // No longer pending, try the next one
+                        continue;
+                    }
+                    topicName = (String) pending.get(0)[0];
+                    createdAt = (Instant) pending.get(0)[1];
+                }
+                InterestingEventWriteBehind.PendingEvent pendingWrite = match.pendingWrite();
+                boolean deleteOnMatch = correlationMatchSink.deletesOnMatch(topicName);
+                if (deleteOnMatch && pendingWrite != null && pendingWrite.discard()) {
+                    logger.info("CORRELATION MATCH FOUND! Queued event dropped, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                        "Correlated Message: '{}', Correlation Time: {}",
+                        topicName, keyName, keyValue, correlatedMessage, correlationTimestamp);
+                    correlationMatchSink.emit(topicName, keyName, keyValue, createdAt, correlatedMessage,
+                        correlationTimestamp);
+                    correlationLatencyRecorder.record(topicName, createdAt, correlationTimestamp);
+                    return CompletableFuture.completedFuture(null);
+                }
+                if (!deleteOnMatch && pendingWrite != null && pendingWrite.correlate(correlatedMessage, correlationTimestamp)) {
+                    logger.info("CORRELATION MATCH FOUND! Queued event, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                        "Correlated Message: '{}', Correlation Time: {}",
+                        topicName, keyName, keyValue, correlatedMessage, correlationTimestamp);
+                    // Durable, and timed, only once the event's insert has committed
+                    String correlatedTopic = topicName;
+                    Instant correlatedCreatedAt = createdAt;
+                    return pendingWrite.result().thenRun(() ->
+                        correlationLatencyRecorder.record(correlatedTopic, correlatedCreatedAt, correlationTimestamp));
+                }
+                Long id = match.id();
+                if (id == null && pendingWrite != null) {
+                    try {
+                        pendingWrite.result().join();
+                    } catch (CompletionException e) {
+                        // The event was never written, try the next pending one
+                        continue;
+                    }
+                    id = pendingWrite.id();
+                }
+                if (id != null && storeMatch(id, topicName, keyName, keyValue, createdAt, correlatedMessage,
+                        correlationTimestamp)) {
+                    CorrelationIndex.Entry claimed = match;
+                    runOnRollback(() -> correlationIndex.add(claimed));
+                    return CompletableFuture.completedFuture(null);
+                }
+            } catch (Exception e) {
+                // Keep the event pending so a later record can still correlate it
+                correlationIndex.add(match);
+                logger.error("Error checking correlation for key: '{}' with value: '{}'", keyName, keyValue, e);
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        String materialised = correlatedMessage;
+        parkOrphan(keyName, keyValue, materialised != null ? () -> materialised : correlatedMessageSupplier, correlatedAt);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Keep a correlated message without a pending event until its event arrives
+     */
+    private void parkOrphan(String keyName, String keyValue, Supplier<String> correlatedMessageSupplier, Instant correlatedAt) {
+        if (!orphanCorrelationBuffer.isEnabled()) {
+            logger.info("No correlation match found for key: '{}' with value: '{}'", keyName, keyValue);
+            return;
+        }
+        orphanCorrelationBuffer.park(keyName, keyValue, correlatedMessageSupplier.get(), correlatedAt);
+        logger.info("No correlation match found for key: '{}' with value: '{}', waiting for the interesting event", keyName, keyValue);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void runOnRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,507 @@
+package com.example.restapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind stage for interesting events.
+ * <p>
+ * Listener threads enqueue events into a bounded queue and get a future back. A single flusher thread
+ * drains the queue and inserts the events as one multi-row JDBC batch in one transaction, once
+ * {@code batch-size} events are waiting or {@code flush-interval-ms} after the first one arrived.
+ * Each future completes only after the transaction holding its row has committed, so callers can
+ * acknowledge the Kafka record once the row is durable. A full queue blocks the enqueuing thread for up
+ * to {@code enqueue-timeout-ms}, which throttles consumption when the database cannot keep up.
+ * <p>
+ * Queued events are registered in the {@link CorrelationIndex} straight away. A correlation that arrives
+ * while its event is still queued is written together with the insert, by moving the new row to
+ * {@code correlated_events} in the same transaction, and the correlated record is acknowledged with that
+ * insert; if the insert fails the correlation is parked in the {@link OrphanCorrelationBuffer} again. The
+ * generated ids of flushed rows are handed back to the index entries so later correlations can move them directly. An event whose correlated message is
+ * already waiting in the {@link OrphanCorrelationBuffer} is queued correlated.
+ * <p>
+ * For pairs that delete on match, a queued event that gets correlated is dropped from its batch instead,
+ * and an event whose correlated message is already waiting is never queued; both matches go to the
+ * {@link CorrelationMatchSink}.
+ */
+@Component
+public class InterestingEventWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterestingEventWriteBehind.class);
+
+    private static final String INSERT_SQL = "INSERT INTO pending_events " +
+        "(topic_name, key_of_interest_name, key_of_interest_value, created_at) VALUES (?, ?, ?, ?)";
+
+    static final String CORRELATED_INSERT_SQL = "INSERT INTO correlated_events " +
+        "(id, topic_name, key_of_interest_name, key_of_interest_value, created_at, correlated_message, correlation_timestamp) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    static final String PENDING_DELETE_SQL = "DELETE FROM pending_events WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PersistenceBackpressure persistenceBackpressure;
+    private final CorrelationIndex correlationIndex;
+    private final OrphanCorrelationBuffer orphanCorrelationBuffer;
+    private final CorrelationLatencyRecorder correlationLatencyRecorder;
+    private final PendingKeyFilter pendingKeyFilter;
+    private final CorrelationMatchSink correlationMatchSink;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutMs;
+    private final BlockingQueue<PendingEvent> queue;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public InterestingEventWriteBehind(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       PersistenceBackpressure persistenceBackpressure, CorrelationIndex correlationIndex,
+                                       OrphanCorrelationBuffer orphanCorrelationBuffer,
+                                       CorrelationLatencyRecorder correlationLatencyRecorder,
+                                       PendingKeyFilter pendingKeyFilter,
+                                       CorrelationMatchSink correlationMatchSink,
+                                       @Value("${persistence.write-behind.enabled:false}") boolean enabled,
+                                       @Value("${persistence.write-behind.batch-size:500}") int batchSize,
+                                       @Value("${persistence.write-behind.flush-interval-ms:5}") long flushIntervalMs,
+                                       @Value("${persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${persistence.write-behind.enqueue-timeout-ms:30000}") long enqueueTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.persistenceBackpressure = persistenceBackpressure;
+        this.correlationIndex = correlationIndex;
+        this.orphanCorrelationBuffer = orphanCorrelationBuffer;
+        this.correlationLatencyRecorder = correlationLatencyRecorder;
+        this.pendingKeyFilter = pendingKeyFilter;
+        this.correlationMatchSink = correlationMatchSink;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("interesting-event-writer").daemon().start(this::flushLoop);
+        logger.info("Started write-behind for interesting events (batch size: {}, flush interval: {} ms, queue capacity: {})",
+            batchSize, TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), queue.remainingCapacity());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue an interesting event for the next group commit
+     *
+     * @return a future completed once the event's row is committed, or completed exceptionally if it could not be written
+     */
+    public CompletableFuture<Void> enqueue(String topicName, String keyOfInterestName, String keyOfInterestValue) {
+        return enqueue(topicName, keyOfInterestName, keyOfInterestValue, null);
+    }
+
+    /**
+     * Queue an interesting event for the next group commit, created at the record's event time
+     *
+     * @param eventTime event time of the record, or null to stamp the event with the current time
+     * @return a future completed once the event's row is committed, or completed exceptionally if it could not be written
+     */
+    public CompletableFuture<Void> enqueue(String topicName, String keyOfInterestName, String keyOfInterestValue, Instant eventTime) {
+        PendingEvent event = new PendingEvent(topicName, keyOfInterestName, keyOfInterestValue,
+            eventTime != null ? eventTime : Instant.now());
+        if (!running) {
+            event.result.completeExceptionally(new IllegalStateException("Write-behind for interesting events is not running"));
+            return event.result;
+        }
+        event.orphan = orphanCorrelationBuffer.claim(keyOfInterestName, keyOfInterestValue);
+        if (event.orphan != null && correlationMatchSink.deletesOnMatch(topicName)) {
+            // Matched before it was stored, so there is no row to write
+            Instant correlationTimestamp = event.orphan.correlatedAt() != null ? event.orphan.correlatedAt() : Instant.now();
+            logger.info("CORRELATION MATCH FOUND! Event not stored, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                "Correlated Message: '{}' (arrived first at {})",
+                topicName, keyOfInterestName, keyOfInterestValue, event.orphan.correlatedMessage(), event.orphan.arrivedAt());
+            correlationMatchSink.emit(topicName, keyOfInterestName, keyOfInterestValue, event.createdAt,
+                event.orphan.correlatedMessage(), correlationTimestamp);
+            correlationLatencyRecorder.record(topicName, event.createdAt, correlationTimestamp);
+            event.result.complete(null);
+            return event.result;
+        }
+        if (event.orphan != null) {
+            event.correlate(event.orphan.correlatedMessage(),
+                event.orphan.correlatedAt() != null ? event.orphan.correlatedAt() : Instant.now());
+            logger.info("CORRELATION MATCH FOUND! Queued event, Original Topic: '{}', Key: '{}', Value: '{}', " +
+                "Correlated Message: '{}' (arrived first at {})",
+                topicName, keyOfInterestName, keyOfInterestValue, event.orphan.correlatedMessage(), event.orphan.arrivedAt());
+        } else {
+            pendingKeyFilter.add(keyOfInterestName, keyOfInterestValue);
+            if (correlationIndex.isEnabled()) {
+                event.indexEntry = CorrelationIndex.Entry.queued(event);
+                correlationIndex.add(event.indexEntry);
+            }
+        }
+        try {
+            if (!queue.offer(event, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                failedEvents.incrementAndGet();
+                fail(event, new IllegalStateException(
+                    "Write-behind queue for interesting events is full after " + enqueueTimeoutMs + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(event, e);
+        }
+        return event.result;
+    }
+
+    /**
+     * Queue depth and flush counters, for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("queued", queue.size());
+        status.put("flushes", flushes.get());
+        status.put("writtenEvents", writtenEvents.get());
+        status.put("failedEvents", failedEvents.get());
+        return status;
+    }
+
+    private void flushLoop() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Gather more events until the batch is full or the flush interval has passed
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: keep draining until the queue is empty
+                running = false;
+            } catch (Exception e) {
+                logger.error("Unexpected error in interesting event write-behind", (Object) e);
+                batch.forEach(event -> fail(event, e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert a batch in a single transaction; if that fails, retry each event in its own
+     * transaction so a single bad row does not fail the whole batch
+     */
+    void flush(List<PendingEvent> events) {
+        // From here on a correlation can no longer ride along with the insert
+        events.forEach(PendingEvent::startFlush);
+        // Events deleted on match while queued are not written at all
+        List<PendingEvent> batch = events.stream().anyMatch(PendingEvent::isDiscarded)
+            ? events.stream().filter(event -> !event.isDiscarded()).toList() : events;
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            batch.get(i).setValues(ps);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    },
+                    keyHolder);
+                List<Map<String, Object>> keys = keyHolder.getKeyList();
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).assignId(i < keys.size() ? generatedId(keys.get(i)) : null);
+                }
+                moveCorrelated(batch);
+            });
+            persistenceBackpressure.recordLatency(System.nanoTime() - start);
+            flushes.incrementAndGet();
+            writtenEvents.addAndGet(batch.size());
+            logger.debug("Flushed {} interesting events in one transaction", batch.size());
+            batch.forEach(this::written);
+        } catch (Exception e) {
+            logger.error("Error flushing batch of {} interesting events, falling back to per-event inserts", batch.size(), (Object) e);
+            for (PendingEvent event : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        KeyHolder keyHolder = new GeneratedKeyHolder();
+                        jdbcTemplate.update(connection -> {
+                            PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                            event.setValues(ps);
+                            return ps;
+                        }, keyHolder);
+                        event.assignId(keyHolder.getKeyList().isEmpty() ? null : generatedId(keyHolder.getKeyList().get(0)));
+                        moveCorrelated(List.of(event));
+                    });
+                    writtenEvents.incrementAndGet();
+                    written(event);
+                } catch (Exception eventException) {
+                    failedEvents.incrementAndGet();
+                    fail(event, eventException);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the just inserted rows of events correlated while queued to correlated_events, in the
+     * transaction of their insert
+     */
+    private void moveCorrelated(List<PendingEvent> events) {
+        List<Object[]> correlatedRows = new ArrayList<>();
+        List<Object[]> pendingIds = new ArrayList<>();
+        for (PendingEvent event : events) {
+            Object[] row = event.correlatedRow();
+            if (row == null) {
+                continue;
+            }
+            if (row[0] == null) {
+                throw new IllegalStateException("No generated id for correlated interesting event, cannot move it to correlated_events");
+            }
+            correlatedRows.add(row);
+            pendingIds.add(new Object[]{row[0]});
+        }
+        if (!correlatedRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(CORRELATED_INSERT_SQL, correlatedRows);
+            jdbcTemplate.batchUpdate(PENDING_DELETE_SQL, pendingIds);
+        }
+    }
+
+    private void written(PendingEvent event) {
+        if (event.indexEntry != null) {
+            correlationIndex.flushed(event.indexEntry);
+        }
+        if (event.orphan != null) {
+            correlationLatencyRecorder.record(event.topicName, event.createdAt, event.correlationTimestamp);
+        }
+        event.result.complete(null);
+    }
+
+    private void fail(PendingEvent event, Throwable cause) {
+        // No correlation can be attached from here on, so none is lost after the check below
+        event.startFlush();
+        if (event.indexEntry != null) {
+            correlationIndex.remove(event.indexEntry);
+        }
+        if (event.orphan != null) {
+            // The correlated message was not stored, let the next insert for the key pick it up
+            orphanCorrelationBuffer.park(event.keyOfInterestName, event.keyOfInterestValue, event.orphan.correlatedMessage(),
+                event.orphan.correlatedAt());
+        } else if (event.correlationTimestamp() != null) {
+            // Correlated while queued, and the correlated record was acknowledged with this insert
+            orphanCorrelationBuffer.park(event.keyOfInterestName, event.keyOfInterestValue, event.correlatedMessage(),
+                event.correlationTimestamp());
+        }
+        event.result.completeExceptionally(cause);
+    }
+
+    /**
+     * Generated id column of an inserted row; drivers differ in the case of the column label
+     */
+    private static Long generatedId(Map<String, Object> keys) {
+        for (Map.Entry<String, Object> key : keys.entrySet()) {
+            if ("id".equalsIgnoreCase(key.getKey()) && key.getValue() instanceof Number id) {
+                return id.longValue();
+            }
+        }
+        return keys.size() == 1 && keys.values().iterator().next() instanceof Number id ? id.longValue() : null;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        logger.info("Flushing {} queued interesting events before shutdown", queue.size());
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    static final class PendingEvent {
+        private final String topicName;
+        private final String keyOfInterestName;
+        private final String keyOfInterestValue;
+        private final Instant createdAt;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private CorrelationIndex.Entry indexEntry;
+        private OrphanCorrelationBuffer.Orphan orphan;
+
+        // Guarded by this: a correlation is only accepted until the flusher picks the event up
+        private boolean flushing;
+        private boolean discarded;
+        private String correlatedMessage;
+        private Instant correlationTimestamp;
+        private volatile Long id;
+
+        PendingEvent(String topicName, String keyOfInterestName, String keyOfInterestValue, Instant createdAt) {
+            this.topicName = topicName;
+            this.keyOfInterestName = keyOfInterestName;
+            this.keyOfInterestValue = keyOfInterestValue;
+            this.createdAt = createdAt;
+        }
+
+        String topicName() {
+            return topicName;
+        }
+
+        String keyOfInterestName() {
+            return keyOfInterestName;
+        }
+
+        String keyOfInterestValue() {
+            return keyOfInterestValue;
+        }
+
+        Instant createdAt() {
+            return createdAt;
+        }
+
+        /**
+         * Generated row id, or null until the event has been written
+         */
+        Long id() {
+            return id;
+        }
+
+        CompletableFuture<Void> result() {
+            return result;
+        }
+
+        /**
+         * Correlated message attached while queued, or null if none was
+         */
+        synchronized String correlatedMessage() {
+            return correlatedMessage;
+        }
+
+        /**
+         * Time of the correlation attached while queued, or null if none was
+         */
+        synchronized Instant correlationTimestamp() {
+            return correlationTimestamp;
+        }
+
+        void assignId(Long generatedId) {
+            id = generatedId;
+        }
+
+        /**
+         * Attach a correlation to an event that has not been flushed yet, so it is inserted already correlated
+         *
+         * @return false if the flusher has already picked the event up
+         */
+        synchronized boolean correlate(String correlatedMessage, Instant correlationTimestamp) {
+            if (flushing) {
+                return false;
+            }
+            this.correlatedMessage = correlatedMessage;
+            this.correlationTimestamp = correlationTimestamp;
+            return true;
+        }
+
+        /**
+         * Drop an event that has not been flushed yet, for a pair that deletes on match; its future completes
+         * straight away since there is nothing left to write
+         *
+         * @return false if the flusher has already picked the event up
+         */
+        boolean discard() {
+            synchronized (this) {
+                if (flushing) {
+                    return false;
+                }
+                discarded = true;
+            }
+            result.complete(null);
+            return true;
+        }
+
+        synchronized boolean isDiscarded() {
+            return discarded;
+        }
+
+        synchronized void startFlush() {
+            flushing = true;
+        }
+
+        synchronized void setValues(PreparedStatement ps) throws SQLException {
+            ps.setString(1, topicName);
+            ps.setString(2, keyOfInterestName);
+            ps.setString(3, keyOfInterestValue);
+            ps.setTimestamp(4, Timestamp.from(createdAt));
+        }
+
+        /**
+         * Row of correlated_events for an event correlated before it was flushed, or null if it is still pending
+         */
+        synchronized Object[] correlatedRow() {
+            if (correlationTimestamp == null) {
+                return null;
+            }
+            return new Object[]{id, topicName, keyOfInterestName, keyOfInterestValue, Timestamp.from(createdAt),
+                correlatedMessage, Timestamp.from(correlationTimestamp)};
+        }
+    }
+}
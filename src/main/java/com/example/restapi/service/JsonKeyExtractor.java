@@ -0,0 +1,199 @@
+package com.example.restapi.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Token-streaming extractor for the key of interest of a JSON message.
+ * The extractor follows a compiled {@link KeyPath} down the token stream: unrelated subtrees
+ * are skipped without being materialised and parsing stops as soon as the key is found,
+ * instead of building the whole {@code JsonNode} tree for every record.
+ * A {@link KeyPathSet} extracts several keys in the same single pass.
+ */
+@Component
+public class JsonKeyExtractor {
+
+    private final JsonFactory jsonFactory;
+
+    public JsonKeyExtractor() {
+        this(new JsonFactory());
+    }
+
+    public JsonKeyExtractor(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Extract the text value of a top-level field.
+     * Scalars are returned as their JSON text, objects and arrays as an empty string
+     * (the same as {@code JsonNode.asText()}); returns null if the field is not present
+     * or the message is not a JSON object.
+     */
+    public String extract(String json, String fieldName) throws IOException {
+        return extract(json, KeyPath.field(fieldName));
+    }
+
+    /**
+     * Extract the text value at a compiled key path; returns null if the path does not exist
+     */
+    public String extract(String json, KeyPath keyPath) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return extract(parser, keyPath);
+        }
+    }
+
+    /**
+     * Extract the text value of a top-level field straight from UTF-8 encoded bytes,
+     * without decoding the whole message to a String first
+     */
+    public String extract(byte[] json, String fieldName) throws IOException {
+        return extract(json, KeyPath.field(fieldName));
+    }
+
+    /**
+     * Extract the text value at a compiled key path straight from UTF-8 encoded bytes
+     */
+    public String extract(byte[] json, KeyPath keyPath) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return extract(parser, keyPath);
+        }
+    }
+
+    /**
+     * Extract the text values of every path of the set in a single pass; the value of path i is at index i,
+     * null where the path does not exist
+     */
+    public String[] extractAll(String json, KeyPathSet keyPaths) throws IOException {
+        if (keyPaths.size() == 1) {
+            return new String[] {extract(json, keyPaths.keyPath(0))};
+        }
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return extractAll(parser, keyPaths);
+        }
+    }
+
+    /**
+     * Extract the text values of every path of the set in a single pass straight from UTF-8 encoded bytes
+     */
+    public String[] extractAll(byte[] json, KeyPathSet keyPaths) throws IOException {
+        if (keyPaths.size() == 1) {
+            return new String[] {extract(json, keyPaths.keyPath(0))};
+        }
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return extractAll(parser, keyPaths);
+        }
+    }
+
+    private static String[] extractAll(JsonParser parser, KeyPathSet keyPaths) throws IOException {
+        String[] values = new String[keyPaths.size()];
+        int[] remaining = {keyPaths.size()};
+        JsonToken token = parser.nextToken();
+        if (token != null) {
+            visit(parser, token, keyPaths.root(), values, remaining);
+        }
+        return values;
+    }
+
+    /**
+     * Fill the slots ending at the trie node whose value starts at the current token, then descend into the
+     * fields and elements that lead to further paths. Stops reading as soon as every slot is filled.
+     */
+    private static void visit(JsonParser parser, JsonToken token, KeyPathSet.Node node, String[] values,
+                              int[] remaining) throws IOException {
+        for (int slot : node.slots()) {
+            if (values[slot] == null) {
+                values[slot] = textOf(parser, token);
+                remaining[0]--;
+            }
+        }
+        if (token == JsonToken.START_OBJECT) {
+            if (!node.hasChildren()) {
+                parser.skipChildren();
+                return;
+            }
+            while (remaining[0] > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                KeyPathSet.Node child = node.field(parser.currentName());
+                JsonToken valueToken = parser.nextToken();
+                if (child != null) {
+                    visit(parser, valueToken, child, values, remaining);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            if (!node.hasElements()) {
+                parser.skipChildren();
+                return;
+            }
+            for (int i = 0; remaining[0] > 0; i++) {
+                JsonToken elementToken = parser.nextToken();
+                if (elementToken == null || elementToken == JsonToken.END_ARRAY) {
+                    return;
+                }
+                KeyPathSet.Node child = node.element(i);
+                if (child != null) {
+                    visit(parser, elementToken, child, values, remaining);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static String extract(JsonParser parser, KeyPath keyPath) throws IOException {
+        JsonToken token = parser.nextToken();
+        for (int depth = 0; depth < keyPath.depth() && token != null; depth++) {
+            if (token == JsonToken.START_OBJECT) {
+                token = advanceToField(parser, keyPath.segment(depth));
+            } else if (token == JsonToken.START_ARRAY && keyPath.index(depth) >= 0) {
+                token = advanceToElement(parser, keyPath.index(depth));
+            } else {
+                return null;
+            }
+        }
+        return token != null ? textOf(parser, token) : null;
+    }
+
+    /**
+     * Move to the value of the named field of the current object, skipping the values of other fields
+     */
+    private static JsonToken advanceToField(JsonParser parser, String fieldName) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (fieldName.equals(name)) {
+                return valueToken;
+            }
+            // Skip the whole value of unrelated fields without materialising it
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    /**
+     * Move to the element at the given index of the current array, skipping the preceding elements
+     */
+    private static JsonToken advanceToElement(JsonParser parser, int index) throws IOException {
+        for (int i = 0; ; i++) {
+            JsonToken elementToken = parser.nextToken();
+            if (elementToken == null || elementToken == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (i == index) {
+                return elementToken;
+            }
+            parser.skipChildren();
+        }
+    }
+
+    private static String textOf(JsonParser parser, JsonToken valueToken) throws IOException {
+        if (valueToken == JsonToken.START_OBJECT || valueToken == JsonToken.START_ARRAY) {
+            return "";
+        }
+        return parser.getText();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.restapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on virtual threads while keeping tasks that share a key strictly ordered.
+ * Tasks for different keys run in parallel; a task for a key only starts once the previous
+ * task for that key has finished (successfully or not).
+ */
+@Component
+public class KeyOrderedExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public KeyOrderedExecutor() {
+        this(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("key-parallel-", 0).factory()));
+    }
+
+    KeyOrderedExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Submit a task ordered after every previously submitted task with the same key
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        inFlight.incrementAndGet();
+        CompletableFuture<Void> tail;
+        try {
+            tail = tails.compute(key, (k, previous) -> previous == null
+                ? CompletableFuture.runAsync(task, executor)
+                : previous.handle((result, failure) -> null).thenRunAsync(task, executor));
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        tail.whenComplete((result, failure) -> {
+            inFlight.decrementAndGet();
+            // Drop the chain once the last task for the key is done, so idle keys hold no memory
+            tails.remove(key, tail);
+        });
+        return tail;
+    }
+
+    /**
+     * Number of submitted tasks that have not completed yet
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Number of keys with at least one pending task
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down key ordered executor with {} tasks in flight", inFlight.get());
+        executor.close();
+    }
+}
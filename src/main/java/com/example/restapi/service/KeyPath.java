@@ -0,0 +1,132 @@
+package com.example.restapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled location of a key of interest inside a JSON message.
+ * <p>
+ * Expressions starting with {@code /} are JSON Pointers (RFC 6901), e.g. {@code /header/trace/requestId}
+ * or {@code /items/0/sku}; {@code ~1} and {@code ~0} escape {@code /} and {@code ~}. Any other
+ * expression is a plain top-level field name, which keeps existing configurations working unchanged.
+ * Paths are compiled once when routes are built, so the hot path only compares segments.
+ */
+public final class KeyPath {
+
+    private final String expression;
+    private final String[] segments;
+    private final int[] indexes;
+
+    private KeyPath(String expression, String[] segments, int[] indexes) {
+        this.expression = expression;
+        this.segments = segments;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Compile a key of interest expression
+     *
+     * @throws IllegalArgumentException if the JSON Pointer is malformed
+     */
+    public static KeyPath compile(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Key of interest expression must not be null");
+        }
+        if (!expression.startsWith("/")) {
+            return field(expression);
+        }
+
+        List<String> parsed = new ArrayList<>();
+        int start = 1;
+        while (start <= expression.length()) {
+            int end = expression.indexOf('/', start);
+            if (end < 0) {
+                end = expression.length();
+            }
+            parsed.add(unescape(expression, expression.substring(start, end)));
+            start = end + 1;
+        }
+
+        String[] segments = parsed.toArray(new String[0]);
+        int[] indexes = new int[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            indexes[i] = arrayIndex(segments[i]);
+        }
+        return new KeyPath(expression, segments, indexes);
+    }
+
+    /**
+     * Path to a single top-level field, taken literally
+     */
+    public static KeyPath field(String fieldName) {
+        return new KeyPath(fieldName, new String[] {fieldName}, new int[] {-1});
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public int depth() {
+        return segments.length;
+    }
+
+    /**
+     * Field name expected at the given depth
+     */
+    public String segment(int depth) {
+        return segments[depth];
+    }
+
+    /**
+     * Array index expected at the given depth, or -1 if the segment cannot address an array element
+     */
+    public int index(int depth) {
+        return indexes[depth];
+    }
+
+    public List<String> segments() {
+        return List.of(segments);
+    }
+
+    private static String unescape(String expression, String segment) {
+        if (segment.indexOf('~') < 0) {
+            return segment;
+        }
+        StringBuilder unescaped = new StringBuilder(segment.length());
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c != '~') {
+                unescaped.append(c);
+                continue;
+            }
+            char next = i + 1 < segment.length() ? segment.charAt(i + 1) : 0;
+            if (next == '0') {
+                unescaped.append('~');
+            } else if (next == '1') {
+                unescaped.append('/');
+            } else {
+                throw new IllegalArgumentException("Invalid escape sequence in JSON Pointer: '" + expression + "'");
+            }
+            i++;
+        }
+        return unescaped.toString();
+    }
+
+    private static int arrayIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9 || (segment.length() > 1 && segment.charAt(0) == '0')) {
+            return -1;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(segment);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
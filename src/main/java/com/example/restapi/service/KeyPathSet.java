@@ -0,0 +1,100 @@
+package com.example.restapi.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Several {@link KeyPath}s compiled into one trie, so a single pass over a JSON message extracts all of them.
+ * <p>
+ * Each path gets the slot of its position in the list it was compiled from; paths with the same
+ * expression share a trie node and are filled together. The streaming extractor descends only into
+ * fields and array elements that lead to at least one path and skips every other subtree.
+ */
+public final class KeyPathSet {
+
+    private final List<KeyPath> keyPaths;
+    private final Node root = new Node();
+
+    private KeyPathSet(List<KeyPath> keyPaths) {
+        this.keyPaths = List.copyOf(keyPaths);
+        for (int slot = 0; slot < keyPaths.size(); slot++) {
+            KeyPath keyPath = keyPaths.get(slot);
+            Node node = root;
+            for (int depth = 0; depth < keyPath.depth(); depth++) {
+                node = node.child(keyPath.segment(depth), keyPath.index(depth));
+            }
+            node.addSlot(slot);
+        }
+    }
+
+    /**
+     * Compile the paths; the value of {@code keyPaths.get(i)} is extracted into slot i
+     */
+    public static KeyPathSet of(List<KeyPath> keyPaths) {
+        return new KeyPathSet(keyPaths);
+    }
+
+    public int size() {
+        return keyPaths.size();
+    }
+
+    public KeyPath keyPath(int slot) {
+        return keyPaths.get(slot);
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * One step of the trie: the children reached through a field name or an array index, and the
+     * slots of the paths that end here
+     */
+    static final class Node {
+
+        private static final int[] NO_SLOTS = new int[0];
+
+        private final Map<String, Node> fields = new HashMap<>();
+        private final Map<Integer, Node> elements = new HashMap<>();
+        private int[] slots = NO_SLOTS;
+        private int pathsBelow;
+
+        private Node child(String segment, int index) {
+            pathsBelow++;
+            Node child = fields.computeIfAbsent(segment, s -> new Node());
+            if (index >= 0) {
+                // A numeric segment addresses an array element as well as an object field
+                elements.putIfAbsent(index, child);
+            }
+            return child;
+        }
+
+        private void addSlot(int slot) {
+            int[] extended = new int[slots.length + 1];
+            System.arraycopy(slots, 0, extended, 0, slots.length);
+            extended[slots.length] = slot;
+            slots = extended;
+        }
+
+        Node field(String name) {
+            return fields.get(name);
+        }
+
+        Node element(int index) {
+            return elements.isEmpty() ? null : elements.get(index);
+        }
+
+        int[] slots() {
+            return slots;
+        }
+
+        boolean hasChildren() {
+            return pathsBelow > 0;
+        }
+
+        boolean hasElements() {
+            return !elements.isEmpty();
+        }
+    }
+}
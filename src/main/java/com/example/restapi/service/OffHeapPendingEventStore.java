@@ -0,0 +1,331 @@
+package com.example.restapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap store of pending events for the correlation index, kept in a memory-mapped file.
+ * <p>
+ * The file holds an open-addressing hash table (linear probing, backward-shift deletion) of fixed-size
+ * slots: a 64-bit hash of (key of interest name, key of interest value), the event id and the creation
+ * time in epoch milliseconds. Key strings are not stored, so tens of millions of pending events cost no
+ * heap and create no GC work; a match is confirmed against the row when it is stored. The table is split
+ * into independently locked segments, each mapped separately, which also keeps every mapping under the
+ * 2 GB limit of a {@link MappedByteBuffer}.
+ * <p>
+ * A clean shutdown marks the file as consistent, so the next start reuses it instead of reloading the
+ * index from the database. After a crash the file is discarded and rebuilt.
+ */
+public final class OffHeapPendingEventStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapPendingEventStore.class);
+
+    private static final long MAGIC = 0x4B434D50454E4401L;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SEGMENTS_OFFSET = 16;
+    private static final int SIZE_OFFSET = 24;
+    private static final int CLEAN_OFFSET = 32;
+
+    private static final int SLOT_BYTES = 24;
+    private static final int MIN_SEGMENT_SLOTS = 1 << 10;
+    private static final int MAX_SEGMENT_SLOTS = 1 << 25;
+    private static final int MIN_SEGMENTS = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * A claimed pending event
+     */
+    public record Claimed(long id, long createdAtMillis) {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final long capacity;
+    private final boolean restored;
+    private final AtomicLong size = new AtomicLong();
+
+    private OffHeapPendingEventStore(Path file, FileChannel channel, MappedByteBuffer header, long capacity,
+                                     int segmentCount, boolean restored) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.header = header;
+        this.capacity = capacity;
+        this.restored = restored;
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        int segmentSlots = (int) (capacity / segmentCount);
+        long segmentBytes = (long) segmentSlots * SLOT_BYTES;
+        for (int i = 0; i < segmentCount; i++) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + i * segmentBytes, segmentBytes);
+            segments[i] = new Segment(buffer, segmentSlots);
+        }
+        if (restored) {
+            for (Segment segment : segments) {
+                size.addAndGet(segment.countSlots());
+            }
+        }
+    }
+
+    /**
+     * Open the store, reusing the file if it was closed cleanly with the same capacity
+     *
+     * @param capacity number of slots; rounded up to a power of two, at most 75% of them are used
+     */
+    public static OffHeapPendingEventStore open(Path file, long capacity) throws IOException {
+        long slots = Math.max(Long.highestOneBit(Math.max(capacity, 1) - 1) << 1, (long) MIN_SEGMENTS * MIN_SEGMENT_SLOTS);
+        int segmentCount = (int) Math.max(MIN_SEGMENTS, slots / MAX_SEGMENT_SLOTS);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fileBytes = HEADER_BYTES + slots * SLOT_BYTES;
+            boolean reusable = channel.size() == fileBytes;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            reusable = reusable
+                && header.getLong(MAGIC_OFFSET) == MAGIC
+                && header.getLong(CAPACITY_OFFSET) == slots
+                && header.getInt(SEGMENTS_OFFSET) == segmentCount
+                && header.getInt(CLEAN_OFFSET) == 1;
+            if (!reusable) {
+                // Start from an empty sparse file; the index is reloaded from the database
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(1), fileBytes - 1);
+                header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                header.putLong(MAGIC_OFFSET, MAGIC);
+                header.putLong(CAPACITY_OFFSET, slots);
+                header.putInt(SEGMENTS_OFFSET, segmentCount);
+                header.putLong(SIZE_OFFSET, 0);
+            }
+            // Until the next clean close the file may not match the database
+            header.putInt(CLEAN_OFFSET, 0);
+            header.force();
+            OffHeapPendingEventStore store = new OffHeapPendingEventStore(file, channel, header, slots, segmentCount, reusable);
+            logger.info("Opened off-heap pending event store '{}' with {} slots in {} segments ({} restored pending events)",
+                file, slots, segmentCount, reusable ? store.size() : 0);
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 64-bit hash of a key of interest; 0 marks an empty slot, so it is never returned
+     */
+    public static long keyHash(String keyOfInterestName, String keyOfInterestValue) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < keyOfInterestName.length(); i++) {
+            hash = (hash ^ keyOfInterestName.charAt(i)) * 0x100000001b3L;
+        }
+        hash *= 0x100000001b3L;
+        for (int i = 0; i < keyOfInterestValue.length(); i++) {
+            hash = (hash ^ keyOfInterestValue.charAt(i)) * 0x100000001b3L;
+        }
+        // Finalise so both the segment (high bits) and the slot (low bits) are well distributed
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Whether the pending events were restored from the file of a clean shutdown
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Add a pending event
+     *
+     * @return false if the event's segment is full
+     */
+    public boolean add(long keyHash, long id, long createdAtMillis) {
+        if (segmentFor(keyHash).add(keyHash, id, createdAtMillis)) {
+            size.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove and return the most recent pending event for the key hash, or null if none is pending
+     */
+    public Claimed claimMostRecent(long keyHash) {
+        Claimed claimed = segmentFor(keyHash).claimMostRecent(keyHash);
+        if (claimed != null) {
+            size.decrementAndGet();
+        }
+        return claimed;
+    }
+
+    /**
+     * Remove the pending event with the given id
+     */
+    public boolean remove(long keyHash, long id) {
+        if (segmentFor(keyHash).remove(keyHash, id)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Flush the table to disk and mark the file as consistent
+     */
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.force();
+        }
+        header.putLong(SIZE_OFFSET, size.get());
+        header.putInt(CLEAN_OFFSET, 1);
+        header.force();
+        channel.close();
+        logger.info("Closed off-heap pending event store '{}' with {} pending events", file, size.get());
+    }
+
+    private Segment segmentFor(long keyHash) {
+        return segments[(int) (keyHash >>> segmentShift)];
+    }
+
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+        private final int mask;
+        private final int maxSize;
+        private int size;
+
+        Segment(MappedByteBuffer buffer, int slots) {
+            this.buffer = buffer;
+            this.mask = slots - 1;
+            this.maxSize = (int) (slots * MAX_LOAD_FACTOR);
+        }
+
+        synchronized int countSlots() {
+            size = 0;
+            for (int slot = 0; slot <= mask; slot++) {
+                if (hashAt(slot) != 0) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        synchronized boolean add(long keyHash, long id, long createdAtMillis) {
+            if (size >= maxSize) {
+                return false;
+            }
+            int slot = (int) keyHash & mask;
+            while (hashAt(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            write(slot, keyHash, id, createdAtMillis);
+            size++;
+            return true;
+        }
+
+        synchronized Claimed claimMostRecent(long keyHash) {
+            int best = -1;
+            long bestId = 0;
+            long bestCreatedAt = 0;
+            for (int slot = (int) keyHash & mask; hashAt(slot) != 0; slot = (slot + 1) & mask) {
+                if (hashAt(slot) != keyHash) {
+                    continue;
+                }
+                long id = buffer.getLong(offset(slot) + 8);
+                long createdAt = buffer.getLong(offset(slot) + 16);
+                if (best < 0 || createdAt > bestCreatedAt || (createdAt == bestCreatedAt && id > bestId)) {
+                    best = slot;
+                    bestId = id;
+                    bestCreatedAt = createdAt;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            delete(best);
+            return new Claimed(bestId, bestCreatedAt);
+        }
+
+        synchronized boolean remove(long keyHash, long id) {
+            for (int slot = (int) keyHash & mask; hashAt(slot) != 0; slot = (slot + 1) & mask) {
+                if (hashAt(slot) == keyHash && buffer.getLong(offset(slot) + 8) == id) {
+                    delete(slot);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void force() {
+            buffer.force();
+        }
+
+        /**
+         * Empty the slot and shift later entries of the probe run back, so lookups never need tombstones
+         */
+        private void delete(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                long keyHash = hashAt(next);
+                if (keyHash == 0) {
+                    break;
+                }
+                int home = (int) keyHash & mask;
+                // The entry may move into the hole unless its home lies cyclically in (hole, next]
+                boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+                if (!stays) {
+                    write(hole, keyHash, buffer.getLong(offset(next) + 8), buffer.getLong(offset(next) + 16));
+                    hole = next;
+                }
+            }
+            write(hole, 0, 0, 0);
+            size--;
+        }
+
+        private long hashAt(int slot) {
+            return buffer.getLong(offset(slot));
+        }
+
+        private void write(int slot, long keyHash, long id, long createdAtMillis) {
+            int offset = offset(slot);
+            buffer.putLong(offset, keyHash);
+            buffer.putLong(offset + 8, id);
+            buffer.putLong(offset + 16, createdAtMillis);
+        }
+
+        private static int offset(int slot) {
+            return slot * SLOT_BYTES;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.restapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SequencedSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded buffer of correlated messages that arrived before the interesting event they belong to.
+ * <p>
+ * A correlated record without a pending match is parked here, keyed by (key of interest name, key of
+ * interest value), instead of being dropped. When the original event arrives later, the insert claims the
+ * oldest parked message for its key and stores the event already correlated, so both arrival orders end
+ * in a match with a hash lookup and no extra query. Parked messages expire after {@code ttl-seconds}; once
+ * {@code max-size} messages are parked, the oldest one of the key's stripe is evicted to make room.
+ * <p>
+ * Keys are spread over lock stripes, each holding its keys' messages in arrival order, so parks and
+ * claims for different keys rarely contend. A claimed message is unlinked from its stripe at once.
+ * <p>
+ * The buffer only closes the window between two records that are handled one after the other. Two
+ * records of a pair processed at the same moment on different threads can still miss each other; the
+ * {@code sharded} processing mode runs both sides of a key on one thread and avoids that.
+ */
+@Component
+public class OrphanCorrelationBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanCorrelationBuffer.class);
+
+    private static final int STRIPES = 64;
+
+    /**
+     * A parked correlated message; correlatedAt is the record's event time for pairs correlating on
+     * event time, null otherwise
+     */
+    public record Orphan(String correlatedMessage, Instant arrivedAt, Instant correlatedAt) {
+    }
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder parkedTotal = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @Autowired
+    public OrphanCorrelationBuffer(@Value("${persistence.orphan-buffer.enabled:true}") boolean enabled,
+                                   @Value("${persistence.orphan-buffer.max-size:100000}") int maxSize,
+                                   @Value("${persistence.orphan-buffer.ttl-seconds:300}") long ttlSeconds) {
+        this(enabled, maxSize, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    OrphanCorrelationBuffer(boolean enabled, int maxSize, Duration ttl, Clock clock) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Park a correlated message that found no pending event
+     */
+    public void park(String keyOfInterestName, String keyOfInterestValue, String correlatedMessage) {
+        park(keyOfInterestName, keyOfInterestValue, correlatedMessage, null);
+    }
+
+    /**
+     * Park a correlated message that found no pending event, keeping the event time it was correlated at
+     */
+    public void park(String keyOfInterestName, String keyOfInterestValue, String correlatedMessage,
+                     Instant correlatedAt) {
+        if (!enabled) {
+            return;
+        }
+        Instant now = clock.instant();
+        Key key = new Key(keyOfInterestName, keyOfInterestValue);
+        int index = stripeIndex(key);
+        Stripe stripe = stripes[index];
+        synchronized (stripe) {
+            expire(stripe, now);
+        }
+        reserve(index);
+        Parked parked = new Parked(key, new Orphan(correlatedMessage, now, correlatedAt));
+        synchronized (stripe) {
+            stripe.byKey.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(parked);
+            stripe.byArrival.add(parked);
+        }
+        parkedTotal.increment();
+    }
+
+    /**
+     * Remove and return the oldest parked message for the key, or null if none is waiting
+     */
+    public Orphan claim(String keyOfInterestName, String keyOfInterestValue) {
+        if (!enabled || size.get() == 0) {
+            return null;
+        }
+        Instant now = clock.instant();
+        Key key = new Key(keyOfInterestName, keyOfInterestValue);
+        Stripe stripe = stripes[stripeIndex(key)];
+        Parked claimed;
+        synchronized (stripe) {
+            expire(stripe, now);
+            Deque<Parked> parked = stripe.byKey.get(key);
+            if (parked == null) {
+                return null;
+            }
+            claimed = parked.pollFirst();
+            if (parked.isEmpty()) {
+                stripe.byKey.remove(key);
+            }
+            stripe.byArrival.remove(claimed);
+        }
+        size.decrementAndGet();
+        matched.increment();
+        return claimed.orphan;
+    }
+
+    /**
+     * Drop parked messages whose TTL has passed, so an idle buffer does not hold them until the next insert
+     */
+    @Scheduled(fixedDelayString = "${persistence.orphan-buffer.sweep-interval-ms:1000}")
+    public void expireOrphans() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = clock.instant();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                expire(stripe, now);
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Parked message count and counters, for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("size", size.get());
+        status.put("maxSize", maxSize);
+        status.put("ttlSeconds", ttl.toSeconds());
+        status.put("parked", parkedTotal.sum());
+        status.put("matched", matched.sum());
+        status.put("expired", expired.sum());
+        status.put("evicted", evicted.sum());
+        return status;
+    }
+
+    private static int stripeIndex(Key key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Take a slot for a new message, evicting the oldest message of the stripe, or of the next non-empty
+     * stripe, while the buffer is full
+     */
+    private void reserve(int preferred) {
+        while (true) {
+            int current = size.get();
+            if (current < maxSize) {
+                if (size.compareAndSet(current, current + 1)) {
+                    return;
+                }
+            } else if (evictOldest(preferred)) {
+                evicted.increment();
+            } else {
+                // Every slot is held by a park still in progress, go over the limit rather than spin
+                size.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private boolean evictOldest(int preferred) {
+        for (int i = 0; i < STRIPES; i++) {
+            Stripe stripe = stripes[(preferred + i) & (STRIPES - 1)];
+            synchronized (stripe) {
+                if (!stripe.byArrival.isEmpty()) {
+                    removeOldest(stripe);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void expire(Stripe stripe, Instant now) {
+        Instant cutoff = now.minus(ttl);
+        while (!stripe.byArrival.isEmpty() && stripe.byArrival.getFirst().orphan.arrivedAt().isBefore(cutoff)) {
+            Parked head = removeOldest(stripe);
+            logger.warn("Dropping correlated message for key: '{}' with value: '{}', no interesting event arrived within {} seconds",
+                head.key.keyOfInterestName(), head.key.keyOfInterestValue(), ttl.toSeconds());
+            expired.increment();
+        }
+    }
+
+    private Parked removeOldest(Stripe stripe) {
+        Parked oldest = stripe.byArrival.removeFirst();
+        // The oldest message of the stripe is also the oldest of its key
+        Deque<Parked> parked = stripe.byKey.get(oldest.key);
+        parked.pollFirst();
+        if (parked.isEmpty()) {
+            stripe.byKey.remove(oldest.key);
+        }
+        size.decrementAndGet();
+        return oldest;
+    }
+
+    private record Key(String keyOfInterestName, String keyOfInterestValue) {
+    }
+
+    /**
+     * Keys hashing to one lock stripe, and their parked messages in arrival order
+     */
+    private static final class Stripe {
+
+        private final Map<Key, Deque<Parked>> byKey = new HashMap<>();
+        private final SequencedSet<Parked> byArrival = new LinkedHashSet<>();
+    }
+
+    /**
+     * A parked message, compared by identity so a claim unlinks exactly this one from the arrival order
+     */
+    private static final class Parked {
+
+        private final Key key;
+        private final Orphan orphan;
+
+        private Parked(Key key, Orphan orphan) {
+            this.key = key;
+            this.orphan = orphan;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up topic partition counts with an AdminClient, used to size consumer concurrency
+ * for topics configured with {@code concurrency: auto}
+ */
+@Service
+public class PartitionCountResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionCountResolver.class);
+
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaTopicConfig kafkaTopicConfig;
+
+    @Autowired
+    public PartitionCountResolver(KafkaAdmin kafkaAdmin, KafkaTopicConfig kafkaTopicConfig) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.kafkaTopicConfig = kafkaTopicConfig;
+    }
+
+    /**
+     * Partition count per topic; topics that cannot be described (missing, or broker unreachable
+     * within the lookup timeout) are left out of the result
+     */
+    public Map<String, Integer> partitionCounts(Collection<String> topics) {
+        Map<String, Integer> partitionCounts = new HashMap<>();
+        if (topics.isEmpty()) {
+            return partitionCounts;
+        }
+
+        // One deadline for the whole lookup, so an unreachable broker delays startup only once
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(kafkaTopicConfig.getPartitionLookupTimeoutMs());
+        AdminClient adminClient = null;
+        try {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+            Map<String, KafkaFuture<TopicDescription>> descriptions = adminClient.describeTopics(topics).topicNameValues();
+            for (Map.Entry<String, KafkaFuture<TopicDescription>> entry : descriptions.entrySet()) {
+                try {
+                    long remainingNanos = Math.max(0, deadline - System.nanoTime());
+                    TopicDescription description = entry.getValue().get(remainingNanos, TimeUnit.NANOSECONDS);
+                    partitionCounts.put(entry.getKey(), description.partitions().size());
+                    logger.info("Topic '{}' has {} partitions", entry.getKey(), description.partitions().size());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted while looking up partition count for topic: '{}'", entry.getKey());
+                    return partitionCounts;
+                } catch (Exception e) {
+                    logger.warn("Could not look up partition count for topic: '{}': {}", entry.getKey(), e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error looking up partition counts for topics: {}", topics, (Object) e);
+        } finally {
+            if (adminClient != null) {
+                // Do not wait for lookups that already missed the deadline
+                adminClient.close(Duration.ZERO);
+            }
+        }
+        return partitionCounts;
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.restapi.service;
+
+import com.example.restapi.repository.InterestingEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters over the key values of uncorrelated interesting events, one per key of interest name.
+ * <p>
+ * When correlation falls back to the database query, a correlated record whose key value the filter has
+ * never seen cannot have a pending event, so it skips the query entirely. Every insert adds its key value
+ * before the row is written, and the filters are built from the table at startup. A Bloom filter cannot
+ * forget a value, so correlated events keep answering "maybe" until the filters are rebuilt from the
+ * table every {@code rebuild-interval-seconds}. Values added while a rebuild reads the table go into the
+ * old and the new filters; the retired filters are still consulted until the next rebuild, so an event
+ * whose row was not yet committed when the table was read is never missed.
+ * <p>
+ * While the correlation index matches correlations the filters are never consulted, so they are neither
+ * filled nor rebuilt. Should an off-heap index overflow, every key may match until the next rebuild has
+ * read the table.
+ * <p>
+ * Lookups, definite misses and false positives (a "maybe" for which the query found nothing) are counted
+ * so {@code expected-keys} and {@code false-positive-rate} can be sized from them. Like the correlation
+ * index, the filters assume this instance is the only writer of the pending_events table.
+ */
+@Component
+public class PendingKeyFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingKeyFilter.class);
+
+    private final InterestingEventRepository interestingEventRepository;
+    private final CorrelationIndex correlationIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+
+    private volatile Generation active;
+    private volatile Generation retired;
+    private volatile Generation building;
+    private volatile boolean built;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    @Autowired
+    public PendingKeyFilter(InterestingEventRepository interestingEventRepository, CorrelationIndex correlationIndex,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${persistence.pending-key-filter.enabled:true}") boolean enabled,
+                            @Value("${persistence.pending-key-filter.expected-keys:1000000}") long expectedKeys,
+                            @Value("${persistence.pending-key-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Pending key filter needs expected-keys > 0 and a false-positive-rate between 0 and 1, got "
+                + expectedKeys + " and " + falsePositiveRate);
+        }
+        this.interestingEventRepository = interestingEventRepository;
+        this.correlationIndex = correlationIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.active = new Generation();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Build the filters from the uncorrelated events before the consumers start
+     */
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the filters from the table, dropping key values whose events have since been correlated or deleted.
+     * The keys are streamed from the table rather than read into a list.
+     */
+    @Scheduled(fixedDelayString = "${persistence.pending-key-filter.rebuild-interval-seconds:300}000",
+               initialDelayString = "${persistence.pending-key-filter.rebuild-interval-seconds:300}000")
+    public synchronized void rebuild() {
+        if (!enabled || correlationIndex.isEnabled()) {
+            return;
+        }
+        Generation next = new Generation();
+        building = next;
+        try {
+            long keys = transactionTemplate.execute(status -> {
+                try (Stream<Object[]> rows = interestingEventRepository.streamUncorrelatedKeys()) {
+                    long count = 0;
+                    for (Iterator<Object[]> iterator = rows.iterator(); iterator.hasNext(); count++) {
+                        Object[] row = iterator.next();
+                        next.add((String) row[0], (String) row[1]);
+                    }
+                    return count;
+                }
+            });
+            retired = active;
+            active = next;
+            built = true;
+            rebuilds.increment();
+            logger.info("Built pending key filters from {} uncorrelated interesting events", keys);
+        } catch (Exception e) {
+            // Keep the current filters, they still hold every pending key
+            logger.error("Error rebuilding pending key filters", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Record the key value of an event about to be inserted uncorrelated
+     */
+    public void add(String keyOfInterestName, String keyOfInterestValue) {
+        if (!enabled || keyOfInterestName == null || keyOfInterestValue == null || correlationIndex.isEnabled()) {
+            return;
+        }
+        Generation next = building;
+        if (next != null) {
+            next.add(keyOfInterestName, keyOfInterestValue);
+        }
+        active.add(keyOfInterestName, keyOfInterestValue);
+    }
+
+    /**
+     * Whether an uncorrelated event may exist for the key; false means there definitely is none.
+     * Every key may exist until the filters have been built from the table.
+     */
+    public boolean mightContain(String keyOfInterestName, String keyOfInterestValue) {
+        if (!enabled || !built) {
+            return true;
+        }
+        lookups.increment();
+        Generation previous = retired;
+        boolean found = active.mightContain(keyOfInterestName, keyOfInterestValue)
+            || (previous != null && previous.mightContain(keyOfInterestName, keyOfInterestValue));
+        if (!found) {
+            definiteMisses.increment();
+        }
+        return found;
+    }
+
+    /**
+     * Count a lookup the filter let through for which the query found no uncorrelated event
+     */
+    public void falsePositive() {
+        if (enabled) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Lookup counters and the fill of each key name's filter, for sizing
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        long lookupCount = lookups.sum();
+        long misses = definiteMisses.sum();
+        long positives = falsePositives.sum();
+        status.put("enabled", enabled);
+        status.put("built", built);
+        status.put("lookups", lookupCount);
+        status.put("definiteMisses", misses);
+        status.put("hits", lookupCount - misses);
+        status.put("falsePositives", positives);
+        status.put("missRate", lookupCount > 0 ? (double) misses / lookupCount : 0.0);
+        status.put("falsePositiveRate", lookupCount > 0 ? (double) positives / lookupCount : 0.0);
+        status.put("expectedKeys", expectedKeys);
+        status.put("targetFalsePositiveRate", falsePositiveRate);
+        status.put("rebuilds", rebuilds.sum());
+        Map<String, Object> filters = new TreeMap<>();
+        active.filters.forEach((keyName, filter) -> {
+            Map<String, Object> filterStatus = new LinkedHashMap<>();
+            filterStatus.put("keys", filter.insertions.sum());
+            filterStatus.put("bits", filter.bits);
+            filterStatus.put("hashes", filter.hashes);
+            filters.put(keyName, filterStatus);
+        });
+        status.put("filters", filters);
+        return status;
+    }
+
+    /**
+     * One filter per key name, built by one rebuild
+     */
+    private final class Generation {
+
+        private final ConcurrentMap<String, Bloom> filters = new ConcurrentHashMap<>();
+
+        void add(String keyOfInterestName, String keyOfInterestValue) {
+            Bloom filter = filters.get(keyOfInterestName);
+            if (filter == null) {
+                filter = filters.computeIfAbsent(keyOfInterestName, name -> new Bloom(expectedKeys, falsePositiveRate));
+            }
+            filter.add(keyOfInterestValue);
+        }
+
+        boolean mightContain(String keyOfInterestName, String keyOfInterestValue) {
+            Bloom filter = filters.get(keyOfInterestName);
+            return filter != null && filter.mightContain(keyOfInterestValue);
+        }
+    }
+
+    /**
+     * Lock-free Bloom filter over strings, probed with double hashing of one 64-bit hash
+     */
+    static final class Bloom {
+
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+        private final LongAdder insertions = new LongAdder();
+
+        Bloom(long expectedKeys, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+            this.words = new AtomicLongArray(wordCount);
+            this.bits = (long) wordCount << 6;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / expectedKeys * Math.log(2)));
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            long h1 = (int) hash;
+            long h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(h1 + i * h2);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (current, set) -> current | set);
+                }
+            }
+            insertions.increment();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            long h1 = (int) hash;
+            long h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long index(long combined) {
+            return (combined & Long.MAX_VALUE) % bits;
+        }
+
+        /**
+         * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks how far persistence is behind consumption and decides when consumption should pause.
+ * <p>
+ * Listeners report every unit of persistence work (started, finished) and the database latency of
+ * each call. The latency is smoothed into an exponentially weighted moving average; pending work is
+ * counted per topic. {@link #evaluate()} applies high/low water mark hysteresis to both signals, so
+ * partitions are not flapped between paused and resumed on every check. Pause time is accounted per topic.
+ */
+@Component
+public class PersistenceBackpressure {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceBackpressure.class);
+
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    /**
+     * A topic with persistence work in this window counts as feeding the database
+     */
+    private static final long ACTIVITY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final KafkaTopicConfig.BackpressureConfig config;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, TopicState> topics = new ConcurrentHashMap<>();
+    private final AtomicLong latencyAverageBits = new AtomicLong(Double.doubleToLongBits(0));
+    private final AtomicLong latencySamples = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile boolean overloaded;
+    private long lastEvaluatedSamples;
+
+    @Autowired
+    public PersistenceBackpressure(KafkaTopicConfig kafkaTopicConfig) {
+        this(kafkaTopicConfig.getBackpressure(), System::nanoTime);
+    }
+
+    PersistenceBackpressure(KafkaTopicConfig.BackpressureConfig config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * A record of the topic was handed to persistence
+     */
+    public void persistenceStarted(String topic) {
+        TopicState state = topic(topic);
+        state.pending.incrementAndGet();
+        state.lastActivityNanos = nanoClock.getAsLong();
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Persistence of a record of the topic finished, successfully or not
+     */
+    public void persistenceFinished(String topic) {
+        topic(topic).pending.decrementAndGet();
+        pending.decrementAndGet();
+    }
+
+    /**
+     * Latency of a single database call made for a record
+     */
+    public void recordLatency(long nanos) {
+        latencySamples.incrementAndGet();
+        latencyAverageBits.getAndUpdate(bits -> {
+            double average = Double.longBitsToDouble(bits);
+            double updated = average == 0 ? nanos : average + LATENCY_WEIGHT * (nanos - average);
+            return Double.doubleToLongBits(updated);
+        });
+    }
+
+    /**
+     * Re-evaluate the overload state; called periodically by the consumer service
+     *
+     * @return true if consumption of active topics should be paused
+     */
+    public synchronized boolean evaluate() {
+        long samples = latencySamples.get();
+        if (samples == lastEvaluatedSamples && pending.get() == 0) {
+            // No database calls since the last check (typically because everything is paused):
+            // let the average decay so consumption resumes and latency is measured again
+            latencyAverageBits.getAndUpdate(bits -> Double.doubleToLongBits(Double.longBitsToDouble(bits) / 2));
+        }
+        lastEvaluatedSamples = samples;
+
+        double latencyMs = latencyAverageMs();
+        int pendingWork = pending.get();
+        if (!overloaded && (latencyMs > config.getLatencyHighWaterMs() || pendingWork > config.getPendingHighWater())) {
+            overloaded = true;
+            logger.warn("Persistence is falling behind (database latency average: {} ms, pending records: {}), pausing active topics",
+                Math.round(latencyMs), pendingWork);
+        } else if (overloaded && latencyMs < config.getLatencyLowWaterMs() && pendingWork < config.getPendingLowWater()) {
+            overloaded = false;
+            logger.info("Persistence caught up (database latency average: {} ms, pending records: {}), resuming topics",
+                Math.round(latencyMs), pendingWork);
+        }
+        return overloaded;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Whether the topic currently feeds the database, i.e. has pending or recent persistence work
+     */
+    public boolean isActive(String topic) {
+        TopicState state = topics.get(topic);
+        return state != null
+            && (state.pending.get() > 0 || nanoClock.getAsLong() - state.lastActivityNanos < ACTIVITY_WINDOW_NANOS);
+    }
+
+    /**
+     * Record whether any partition of the topic is currently paused by backpressure
+     */
+    public void setTopicPaused(String topic, boolean paused) {
+        TopicState state = topic(topic);
+        synchronized (state) {
+            long now = nanoClock.getAsLong();
+            if (paused && !state.paused) {
+                state.pausedSinceNanos = now;
+                state.pauseCount++;
+            } else if (!paused && state.paused) {
+                state.totalPausedNanos += now - state.pausedSinceNanos;
+            }
+            state.paused = paused;
+        }
+    }
+
+    public double latencyAverageMs() {
+        return Double.longBitsToDouble(latencyAverageBits.get()) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Overload signals and per topic pause accounting, for the consumers backpressure endpoint
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", config.isEnabled());
+        status.put("overloaded", overloaded);
+        status.put("databaseLatencyAverageMs", Math.round(latencyAverageMs() * 100) / 100.0);
+        status.put("pendingRecords", pending.get());
+
+        Map<String, Object> topicStatus = new TreeMap<>();
+        long now = nanoClock.getAsLong();
+        topics.forEach((topic, state) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            synchronized (state) {
+                long pausedNanos = state.totalPausedNanos + (state.paused ? now - state.pausedSinceNanos : 0);
+                entry.put("paused", state.paused);
+                entry.put("pauseCount", state.pauseCount);
+                entry.put("totalPausedMs", TimeUnit.NANOSECONDS.toMillis(pausedNanos));
+            }
+            entry.put("pendingRecords", state.pending.get());
+            topicStatus.put(topic, entry);
+        });
+        status.put("topics", topicStatus);
+        return status;
+    }
+
+    private TopicState topic(String topic) {
+        return topics.computeIfAbsent(topic, t -> new TopicState());
+    }
+
+    private static final class TopicState {
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long lastActivityNanos;
+        private boolean paused;
+        private long pausedSinceNanos;
+        private long totalPausedNanos;
+        private int pauseCount;
+    }
+}
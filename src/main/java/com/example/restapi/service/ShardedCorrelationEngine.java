@@ -0,0 +1,217 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer correlation engine: keys of interest are hash-partitioned across a fixed number of
+ * shards and every shard is owned by one thread.
+ * <p>
+ * Inserts (main topic) and correlations (correlated topic) for the same key always land on the same
+ * shard and run one after another on its thread, whichever listener thread received them, so the two
+ * sides of a pair never race for a key. Listener threads hand work over through a queue per shard, on
+ * which an idle shard thread blocks until the next hand-off. Shards never share state, so throughput
+ * grows with the number of shards as long as the database keeps up.
+ * <p>
+ * The shard threads are only started once a pair with the sharded processing mode registers.
+ */
+@Component
+public class ShardedCorrelationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedCorrelationEngine.class);
+
+    private final int shardCount;
+    private volatile Shard[] shards;
+    private boolean shutDown;
+
+    @Autowired
+    public ShardedCorrelationEngine(KafkaTopicConfig kafkaTopicConfig) {
+        this(kafkaTopicConfig.getCorrelationShards() > 0
+            ? kafkaTopicConfig.getCorrelationShards()
+            : Runtime.getRuntime().availableProcessors());
+    }
+
+    ShardedCorrelationEngine(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Start the shard threads, if not started yet; called when a pair with the sharded processing mode registers
+     *
+     * @throws IllegalStateException if the engine is shut down
+     */
+    public synchronized void start() {
+        if (shards != null) {
+            return;
+        }
+        if (shutDown) {
+            throw new IllegalStateException("Sharded correlation engine is shut down");
+        }
+        Shard[] started = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            started[i] = new Shard(i);
+        }
+        shards = started;
+        logger.info("Started sharded correlation engine with {} shards", shardCount);
+    }
+
+    /**
+     * Run a task on the shard that owns the key. The task runs on the shard thread; the returned future
+     * completes once the future returned by the task completes.
+     */
+    public CompletableFuture<Void> submit(String keyOfInterestName, String keyOfInterestValue,
+                                          Supplier<CompletableFuture<Void>> task) {
+        Shard[] started = shards;
+        if (started == null) {
+            start();
+            started = shards;
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        started[shardOf(keyOfInterestName, keyOfInterestValue)].handOff(() -> {
+            try {
+                task.get().whenComplete((value, failure) -> {
+                    if (failure != null) {
+                        result.completeExceptionally(failure);
+                    } else {
+                        result.complete(null);
+                    }
+                });
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Shard owning a key; both sides of a pair pass the main topic's key name, so they agree
+     */
+    int shardOf(String keyOfInterestName, String keyOfInterestValue) {
+        int hash = 31 * keyOfInterestName.hashCode() + keyOfInterestValue.hashCode();
+        // Spread the high bits, as HashMap does, before reducing to a shard
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isStarted() {
+        return shards != null;
+    }
+
+    /**
+     * Queue depth and processed task count of every shard, for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        List<Map<String, Object>> shardStatus = new ArrayList<>();
+        int queued = 0;
+        Shard[] started = shards;
+        if (started != null) {
+            for (Shard shard : started) {
+                Map<String, Object> status = new LinkedHashMap<>();
+                status.put("shard", shard.index);
+                status.put("queued", shard.queue.size());
+                status.put("processed", shard.processed.get());
+                shardStatus.add(status);
+                queued += shard.queue.size();
+            }
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("shards", shardCount);
+        status.put("started", started != null);
+        status.put("queued", queued);
+        status.put("shardStatus", shardStatus);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        Shard[] started;
+        synchronized (this) {
+            shutDown = true;
+            started = shards;
+        }
+        if (started == null) {
+            return;
+        }
+        logger.info("Shutting down sharded correlation engine");
+        for (Shard shard : started) {
+            shard.stop();
+        }
+        for (Shard shard : started) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private static final class Shard {
+
+        /**
+         * Queued by {@link #stop()} behind the tasks already handed off
+         */
+        private static final Runnable STOP = () -> { };
+
+        private final int index;
+        private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        private final AtomicLong processed = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Shard(int index) {
+            this.index = index;
+            this.thread = Thread.ofPlatform().name("correlation-shard-" + index).daemon().start(this::run);
+        }
+
+        void handOff(Runnable task) {
+            if (!running) {
+                throw new IllegalStateException("Correlation shard " + index + " is shut down");
+            }
+            queue.add(task);
+        }
+
+        void stop() {
+            running = false;
+            queue.add(STOP);
+        }
+
+        private void run() {
+            try {
+                Runnable task;
+                while ((task = queue.take()) != STOP) {
+                    execute(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // A hand-off racing with stop() may have queued behind it
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                execute(task);
+            }
+        }
+
+        private void execute(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                logger.error("Unexpected error in correlation shard {}", index, (Object) e);
+            }
+            processed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+
+/**
+ * Resolved routing rule for a single Kafka topic.
+ * Everything the listener needs to handle a record is resolved once at startup,
+ * so no configuration lookup or string comparison happens per message.
+ */
+public final class TopicRoute {
+
+    /**
+     * Side of the correlation pair the topic belongs to, or a stage of a correlation chain
+     */
+    public enum Role {
+        MAIN,
+        CORRELATED,
+        STAGE
+    }
+
+    private final String topic;
+    private final Role role;
+    private final String keyName;
+    private final KeyPath keyPath;
+    private final String originalKeyName;
+    private final String consumerGroup;
+    private final KafkaTopicConfig.TopicConfig topicConfig;
+    private final int stageIndex;
+
+    private TopicRoute(String topic, Role role, String keyName, String originalKeyName,
+                       String consumerGroup, KafkaTopicConfig.TopicConfig topicConfig) {
+        this(topic, role, -1, keyName, originalKeyName, consumerGroup, topicConfig);
+    }
+
+    private TopicRoute(String topic, Role role, int stageIndex, String keyName, String originalKeyName,
+                       String consumerGroup, KafkaTopicConfig.TopicConfig topicConfig) {
+        this.topic = topic;
+        this.role = role;
+        this.stageIndex = stageIndex;
+        this.keyName = keyName;
+        this.keyPath = keyName != null ? KeyPath.compile(keyName) : null;
+        this.originalKeyName = originalKeyName;
+        this.consumerGroup = consumerGroup;
+        this.topicConfig = topicConfig;
+    }
+
+    /**
+     * Route for the main topic of a pair: extracts and persists the key of interest
+     */
+    public static TopicRoute forMainTopic(KafkaTopicConfig.TopicConfig topicConfig) {
+        return new TopicRoute(topicConfig.getName(), Role.MAIN, topicConfig.getKeyOfInterest(),
+            topicConfig.getKeyOfInterest(), topicConfig.getConsumerGroup(), topicConfig);
+    }
+
+    /**
+     * Route for the correlated topic of a pair: extracts the correlated key of interest
+     * and matches it against events stored under the original key name
+     */
+    public static TopicRoute forCorrelatedTopic(KafkaTopicConfig.TopicConfig topicConfig) {
+        return new TopicRoute(topicConfig.getCorrelatedTopic(), Role.CORRELATED, topicConfig.getCorrelatedKeyOfInterest(),
+            topicConfig.getKeyOfInterest(), topicConfig.getConsumerGroup() + "-correlated", topicConfig);
+    }
+
+    /**
+     * Route for one stage of a correlation chain: extracts the stage's key of interest and advances
+     * the chain state kept under the first stage's key name
+     */
+    public static TopicRoute forChainStage(KafkaTopicConfig.TopicConfig topicConfig, int stageIndex) {
+        String keyName = switch (stageIndex) {
+            case 0 -> topicConfig.getKeyOfInterest();
+            case 1 -> topicConfig.getCorrelatedKeyOfInterest();
+            default -> topicConfig.getNextStages().get(stageIndex - 2).getKeyOfInterest();
+        };
+        return new TopicRoute(topicConfig.getTopicNames().get(stageIndex), Role.STAGE, stageIndex, keyName,
+            topicConfig.getKeyOfInterest(), stageConsumerGroup(topicConfig, stageIndex), topicConfig);
+    }
+
+    /**
+     * Consumer group of a stage's dedicated container: the pair's groups for the first two stages,
+     * then the consumer group suffixed with the stage number
+     */
+    public static String stageConsumerGroup(KafkaTopicConfig.TopicConfig topicConfig, int stageIndex) {
+        return switch (stageIndex) {
+            case 0 -> topicConfig.getConsumerGroup();
+            case 1 -> topicConfig.getConsumerGroup() + "-correlated";
+            default -> topicConfig.getConsumerGroup() + "-stage-" + stageIndex;
+        };
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public boolean isCorrelated() {
+        return role == Role.CORRELATED;
+    }
+
+    /**
+     * Position of the topic in its correlation chain, or -1 for the topics of a pair
+     */
+    public int getStageIndex() {
+        return stageIndex;
+    }
+
+    /**
+     * Key of interest expression (field name or JSON Pointer) to extract from records of this topic
+     */
+    public String getKeyName() {
+        return keyName;
+    }
+
+    /**
+     * Key of interest expression compiled once for the streaming extractor; null if no key is configured
+     */
+    public KeyPath getKeyPath() {
+        return keyPath;
+    }
+
+    /**
+     * Key name interesting events are stored under (the main topic's key of interest)
+     */
+    public String getOriginalKeyName() {
+        return originalKeyName;
+    }
+
+    /**
+     * Consumer group label used for the topic's container and in log output
+     */
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public KafkaTopicConfig.TopicConfig getTopicConfig() {
+        return topicConfig;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicRoute{" +
+                "topic='" + topic + '\'' +
+                ", role=" + role +
+                (role == Role.STAGE ? ", stageIndex=" + stageIndex : "") +
+                ", keyName='" + keyName + '\'' +
+                ", originalKeyName='" + originalKeyName + '\'' +
+                ", consumerGroup='" + consumerGroup + '\'' +
+                '}';
+    }
+}
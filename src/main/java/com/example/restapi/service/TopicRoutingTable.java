@@ -0,0 +1,167 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Topic to {@link TopicRules} table compiled from {@link KafkaTopicConfig} at startup.
+ * A topic referenced by more than one topic configuration gets one route per configuration; the first
+ * configuration owns the topic and consumes it on behalf of all of them.
+ * <p>
+ * Lookups read an immutable snapshot without locking; adding or removing a correlation pair at
+ * runtime compiles a new snapshot and publishes it atomically.
+ */
+@Component
+public class TopicRoutingTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicRoutingTable.class);
+
+    private final List<KafkaTopicConfig.TopicConfig> topicConfigs;
+    private volatile Map<String, TopicRules> rules;
+
+    @Autowired
+    public TopicRoutingTable(KafkaTopicConfig kafkaTopicConfig) {
+        this(kafkaTopicConfig.getTopics());
+    }
+
+    TopicRoutingTable(List<KafkaTopicConfig.TopicConfig> topics) {
+        this.topicConfigs = topics != null ? new ArrayList<>(topics) : new ArrayList<>();
+        this.rules = compile(this.topicConfigs);
+        logger.info("Compiled topic routing table with {} routes", size());
+    }
+
+    /**
+     * Resolve the primary route for a topic, or null if the topic is not configured
+     */
+    public TopicRoute route(String topic) {
+        TopicRules topicRules = rules.get(topic);
+        return topicRules != null ? topicRules.primary() : null;
+    }
+
+    /**
+     * Resolve every rule referencing a topic, or null if the topic is not configured
+     */
+    public TopicRules rules(String topic) {
+        return rules.get(topic);
+    }
+
+    /**
+     * Configuration owning a topic, whose containers consume it, or null if the topic is not configured
+     */
+    public KafkaTopicConfig.TopicConfig owner(String topic) {
+        TopicRules topicRules = rules.get(topic);
+        return topicRules != null ? topicRules.owner() : null;
+    }
+
+    /**
+     * Configuration of the pair or chain with the given name (its main topic), or null if it is not routed
+     */
+    public KafkaTopicConfig.TopicConfig pair(String name) {
+        TopicRules topicRules = rules.get(name);
+        if (topicRules == null) {
+            return null;
+        }
+        for (TopicRoute route : topicRules.getRoutes()) {
+            if (Objects.equals(route.getTopicConfig().getName(), name)) {
+                return route.getTopicConfig();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * All compiled routes, in configuration order per topic
+     */
+    public Collection<TopicRoute> routes() {
+        List<TopicRoute> routes = new ArrayList<>();
+        for (TopicRules topicRules : rules.values()) {
+            routes.addAll(topicRules.getRoutes());
+        }
+        return routes;
+    }
+
+    public int size() {
+        int size = 0;
+        for (TopicRules topicRules : rules.values()) {
+            size += topicRules.getRoutes().size();
+        }
+        return size;
+    }
+
+    /**
+     * Add the routes of a correlation pair or chain. Topics already routed by other pairs stay owned
+     * by them; the new pair's rules are evaluated on the records those pairs consume.
+     *
+     * @throws IllegalStateException if a pair with the same name is already routed
+     */
+    public synchronized void addPair(KafkaTopicConfig.TopicConfig topicConfig) {
+        for (KafkaTopicConfig.TopicConfig existing : topicConfigs) {
+            if (Objects.equals(existing.getName(), topicConfig.getName())) {
+                throw new IllegalStateException("Topic pair '" + topicConfig.getName() + "' is already routed");
+            }
+        }
+        topicConfigs.add(topicConfig);
+        rules = compile(topicConfigs);
+        logger.info("Added routes for topic pair {}; routing table now has {} routes",
+            String.join(" / ", topicConfig.getTopicNames()), size());
+    }
+
+    /**
+     * Remove the routes of the correlation pair whose main topic is the given topic
+     *
+     * @return true if the pair was routed
+     */
+    public synchronized boolean removePair(String name) {
+        boolean removed = topicConfigs.removeIf(topicConfig -> Objects.equals(topicConfig.getName(), name));
+        if (removed) {
+            rules = compile(topicConfigs);
+            logger.info("Removed routes for topic pair '{}'; routing table now has {} routes", name, size());
+        }
+        return removed;
+    }
+
+    private static Map<String, TopicRules> compile(List<KafkaTopicConfig.TopicConfig> topics) {
+        Map<String, List<TopicRoute>> compiled = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (KafkaTopicConfig.TopicConfig topicConfig : topics) {
+            if (!names.add(topicConfig.getName())) {
+                logger.warn("Topic pair '{}' is configured more than once; ignoring duplicate configuration", topicConfig.getName());
+                continue;
+            }
+            if (topicConfig.isChain()) {
+                for (int stage = 0; stage < topicConfig.getStageCount(); stage++) {
+                    register(compiled, TopicRoute.forChainStage(topicConfig, stage));
+                }
+                continue;
+            }
+            register(compiled, TopicRoute.forMainTopic(topicConfig));
+            register(compiled, TopicRoute.forCorrelatedTopic(topicConfig));
+        }
+        Map<String, TopicRules> rules = new LinkedHashMap<>();
+        compiled.forEach((topic, routes) -> rules.put(topic, new TopicRules(topic, routes)));
+        return Collections.unmodifiableMap(rules);
+    }
+
+    private static void register(Map<String, List<TopicRoute>> compiled, TopicRoute route) {
+        List<TopicRoute> routes = compiled.computeIfAbsent(route.getTopic(), topic -> new ArrayList<>());
+        if (!routes.isEmpty()) {
+            TopicRoute owner = routes.get(0);
+            logger.info("Topic '{}' is routed as {} for consumer group '{}' and also as {} for consumer group '{}'; both rules are evaluated on each record",
+                route.getTopic(), owner.getRole(), owner.getConsumerGroup(), route.getRole(), route.getConsumerGroup());
+        }
+        routes.add(route);
+    }
+}
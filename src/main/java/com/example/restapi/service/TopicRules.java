@@ -0,0 +1,87 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every {@link TopicRoute} that references one topic, in configuration order.
+ * <p>
+ * A topic may take part in several correlation pairs or chains, each with its own key of interest. The
+ * key paths of all of them are compiled into one {@link KeyPathSet}, so a record is parsed once and every
+ * rule is evaluated against that single result. The first rule's pair owns the topic: only its
+ * containers subscribe to it, so each record is consumed once however many rules reference the topic.
+ */
+public final class TopicRules {
+
+    private final String topic;
+    private final List<TopicRoute> routes;
+    private final KeyPathSet keyPaths;
+    private final int[] slots;
+
+    TopicRules(String topic, List<TopicRoute> routes) {
+        this.topic = topic;
+        this.routes = List.copyOf(routes);
+        this.slots = new int[routes.size()];
+        List<KeyPath> paths = new ArrayList<>();
+        for (int i = 0; i < routes.size(); i++) {
+            KeyPath keyPath = routes.get(i).getKeyPath();
+            slots[i] = keyPath != null ? paths.size() : -1;
+            if (keyPath != null) {
+                paths.add(keyPath);
+            }
+        }
+        this.keyPaths = KeyPathSet.of(paths);
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Rules of the topic, in configuration order
+     */
+    public List<TopicRoute> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * The first rule; its pair owns the topic
+     */
+    public TopicRoute primary() {
+        return routes.get(0);
+    }
+
+    public KafkaTopicConfig.TopicConfig owner() {
+        return primary().getTopicConfig();
+    }
+
+    /**
+     * Key paths of every rule with a key of interest, extracted together in one pass
+     */
+    public KeyPathSet getKeyPaths() {
+        return keyPaths;
+    }
+
+    /**
+     * Value extracted for a rule, or null if the rule has no key of interest or the key is missing
+     *
+     * @param values result of extracting {@link #getKeyPaths()}
+     * @param routeIndex position of the rule in {@link #getRoutes()}
+     */
+    public String keyOf(String[] values, int routeIndex) {
+        int slot = slots[routeIndex];
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicRules{" +
+                "topic='" + topic + '\'' +
+                ", routes=" + routes +
+                ", slots=" + Arrays.toString(slots) +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+-- Split interesting_events into a narrow table of pending events, the only rows correlation looks up,
+-- and a table of correlated events holding the correlated messages
+
+-- Event ids are drawn from a named sequence, so an event whose correlated message arrived first can
+-- reserve its id and be stored straight into correlated_events
+CREATE SEQUENCE event_id_seq AS BIGINT START WITH 1;
+
+CREATE TABLE pending_events (
+    id BIGINT GENERATED BY DEFAULT AS SEQUENCE event_id_seq PRIMARY KEY,
+    topic_name VARCHAR(100) NOT NULL,
+    key_of_interest_name VARCHAR(100) NOT NULL,
+    key_of_interest_value VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Correlation lookups: most recent pending event of a key, within the correlation window
+CREATE INDEX idx_pending_events_key_name_value_created_at ON pending_events(key_of_interest_name, key_of_interest_value, created_at);
+
+-- Monitor: pending events of a topic older than the age threshold
+CREATE INDEX idx_pending_events_topic_name_created_at ON pending_events(topic_name, created_at);
+
+-- Ids are assigned by pending_events and kept when an event is correlated
+CREATE TABLE correlated_events (
+    id BIGINT PRIMARY KEY,
+    topic_name VARCHAR(100) NOT NULL,
+    key_of_interest_name VARCHAR(100) NOT NULL,
+    key_of_interest_value VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    correlated_message VARCHAR(1000),
+    correlation_timestamp TIMESTAMP NOT NULL
+);
+
+-- Create indexes on topic_name and created_at for the REST API queries
+CREATE INDEX idx_correlated_events_topic_name ON correlated_events(topic_name);
+CREATE INDEX idx_correlated_events_created_at ON correlated_events(created_at);
+
+-- Existing events are renumbered by the sequence as they are copied, since it only restarts with a
+-- literal, so new ids continue after them. The old id is kept meanwhile to copy the correlated events.
+ALTER TABLE pending_events ADD COLUMN interesting_event_id BIGINT;
+
+INSERT INTO pending_events (topic_name, key_of_interest_name, key_of_interest_value, created_at, interesting_event_id)
+SELECT topic_name, key_of_interest_name, key_of_interest_value, COALESCE(created_at, CURRENT_TIMESTAMP), id
+FROM interesting_events
+ORDER BY id;
+
+INSERT INTO correlated_events (id, topic_name, key_of_interest_name, key_of_interest_value, created_at,
+                               correlated_message, correlation_timestamp)
+SELECT pe.id, ie.topic_name, ie.key_of_interest_name, ie.key_of_interest_value, pe.created_at,
+       ie.correlated_message, COALESCE(ie.correlation_timestamp, pe.created_at)
+FROM interesting_events ie
+JOIN pending_events pe ON pe.interesting_event_id = ie.id
+WHERE ie.is_correlated = TRUE;
+
+DELETE FROM pending_events WHERE id IN (SELECT id FROM correlated_events);
+
+ALTER TABLE pending_events DROP COLUMN interesting_event_id;
+
+DROP TABLE interesting_events;
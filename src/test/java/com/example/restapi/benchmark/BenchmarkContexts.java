@@ -0,0 +1,36 @@
+package com.example.restapi.benchmark;
+
+import com.example.restapi.RestApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application for benchmarks without the web layer and with lazy initialization,
+ * so only the persistence beans requested by a benchmark are created and no Kafka consumers are started.
+ * The settings are passed as command line arguments, so they take precedence over application.yml
+ * and benchmarks never touch the application's own database.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.lazy-initialization=true",
+                "--spring.datasource.url=jdbc:hsqldb:file:target/benchmark/" + databaseName + ";shutdown=true",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.restapi=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(RestApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.restapi.benchmark;
+
+/**
+ * Builds realistic JSON payloads of a given size for the extraction benchmarks:
+ * nested objects and arrays as padding, with the key of interest first or last.
+ */
+final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    static String json(int targetSize, String keyField, boolean keyFirst) {
+        StringBuilder json = new StringBuilder(targetSize + 256);
+        json.append('{');
+        if (keyFirst) {
+            json.append(keyField).append(',');
+        }
+        json.append("\"type\":\"order-created\",\"version\":3");
+        int item = 0;
+        while (json.length() < targetSize) {
+            json.append(",\"item").append(item).append("\":{")
+                .append("\"sku\":\"SKU-").append(100000 + item).append("\",")
+                .append("\"quantity\":").append(item % 7 + 1).append(',')
+                .append("\"price\":").append(item * 3 + 0.99).append(',')
+                .append("\"tags\":[\"fragile\",\"gift\",\"express\"],")
+                .append("\"warehouse\":{\"id\":").append(item % 11).append(",\"region\":\"eu-west-1\"}}");
+            item++;
+        }
+        if (!keyFirst) {
+            json.append(',').append(keyField);
+        }
+        json.append('}');
+        return json.toString();
+    }
+}
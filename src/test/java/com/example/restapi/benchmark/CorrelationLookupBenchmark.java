@@ -0,0 +1,112 @@
+package com.example.restapi.benchmark;
+
+import com.example.restapi.repository.InterestingEventRepository;
+import com.example.restapi.service.CorrelationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the pending event for a random key among {@code pendingEvents} uncorrelated events, through
+ * the on-heap correlation index, the off-heap store and the JPA correlation query on pending_events in a
+ * file-backed HSQLDB. Index lookups claim the event and put it back, as a match followed by a new insert would.
+ * Sample time mode reports the latency percentiles (p99 included); the heap retained by the populated
+ * backend is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CorrelationLookupBenchmark {
+
+    @Param({"heap", "off-heap", "jpa"})
+    private String backend;
+
+    @Param({"100000", "1000000"})
+    private int pendingEvents;
+
+    private ConfigurableApplicationContext context;
+    private CorrelationIndex correlationIndex;
+    private InterestingEventRepository interestingEventRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start("correlation-lookup-" + backend,
+            "persistence.correlation-index.enabled=" + !"jpa".equals(backend),
+            "persistence.correlation-index.store=" + backend,
+            "persistence.correlation-index.off-heap.file=target/benchmark/correlation-index.bin",
+            "persistence.correlation-index.off-heap.capacity=" + 2L * pendingEvents);
+        long heapBefore = usedHeap();
+        if ("jpa".equals(backend)) {
+            interestingEventRepository = context.getBean(InterestingEventRepository.class);
+            populateTable(context.getBean(JdbcTemplate.class));
+        } else {
+            correlationIndex = context.getBean(CorrelationIndex.class);
+            Instant createdAt = Instant.now();
+            for (int i = correlationIndex.size() > 0 ? pendingEvents : 0; i < pendingEvents; i++) {
+                correlationIndex.add(CorrelationIndex.Entry.persisted((long) i, "bench-topic", "userId", "user-" + i, createdAt));
+            }
+        }
+        System.out.printf("%n%s backend retains %.1f MB of heap for %d pending events%n",
+            backend, (usedHeap() - heapBefore) / (1024.0 * 1024.0), pendingEvents);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object lookup() {
+        String keyValue = "user-" + ThreadLocalRandom.current().nextInt(pendingEvents);
+        if (correlationIndex == null) {
+            return interestingEventRepository.findMostRecentForCorrelation("userId", keyValue, Instant.EPOCH, PageRequest.of(0, 1));
+        }
+        CorrelationIndex.Entry match = correlationIndex.claimMostRecent("userId", keyValue);
+        correlationIndex.add(match);
+        return match;
+    }
+
+    private void populateTable(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("DELETE FROM pending_events");
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < pendingEvents; i++) {
+            rows.add(new Object[]{"bench-topic", "userId", "user-" + i, createdAt});
+            if (rows.size() == 10000 || i == pendingEvents - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO pending_events " +
+                    "(topic_name, key_of_interest_name, key_of_interest_value, created_at) VALUES (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.restapi.benchmark;
+
+import com.example.restapi.service.JsonKeyExtractor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the full {@code JsonNode} tree with {@code readTree} against the streaming
+ * {@link JsonKeyExtractor}, across payload sizes and with the key of interest placed first or last.
+ * The byte array variants compare the String ingest mode (decode the value, then extract) with the
+ * byte array ingest mode (extract straight from the UTF-8 bytes).
+ * Run with {@code -prof gc} to compare allocation per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyExtractionBenchmark {
+
+    private static final String KEY_NAME = "userId";
+
+    @Param({"256", "4096", "65536"})
+    private int payloadSize;
+
+    @Param({"FIRST", "LAST"})
+    private String keyPosition;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonKeyExtractor jsonKeyExtractor = new JsonKeyExtractor();
+    private String message;
+    private byte[] messageBytes;
+
+    @Setup
+    public void setUp() {
+        message = BenchmarkPayloads.json(payloadSize, "\"" + KEY_NAME + "\":\"user-42\"", "FIRST".equals(keyPosition));
+        messageBytes = message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String readTree() throws IOException {
+        JsonNode jsonNode = objectMapper.readTree(message);
+        return jsonNode.has(KEY_NAME) ? jsonNode.get(KEY_NAME).asText() : null;
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        return jsonKeyExtractor.extract(message, KEY_NAME);
+    }
+
+    @Benchmark
+    public String decodeThenStreaming() throws IOException {
+        return jsonKeyExtractor.extract(new String(messageBytes, StandardCharsets.UTF_8), KEY_NAME);
+    }
+
+    @Benchmark
+    public String streamingBytes() throws IOException {
+        return jsonKeyExtractor.extract(messageBytes, KEY_NAME);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.restapi.benchmark;
+
+import com.example.restapi.service.JsonKeyExtractor;
+import com.example.restapi.service.KeyPath;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares extracting a top-level key with extracting a key three levels deep through a
+ * compiled JSON Pointer, both placed at the end of the payload. {@code readTree().at(pointer)}
+ * is included as the tree-based reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyPathBenchmark {
+
+    @Param({"4096", "65536"})
+    private int payloadSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonKeyExtractor jsonKeyExtractor = new JsonKeyExtractor();
+    private final KeyPath topLevelPath = KeyPath.compile("requestId");
+    private final KeyPath nestedPath = KeyPath.compile("/header/trace/requestId");
+    private final JsonPointer nestedPointer = JsonPointer.compile("/header/trace/requestId");
+    private String topLevelMessage;
+    private String nestedMessage;
+
+    @Setup
+    public void setUp() {
+        topLevelMessage = BenchmarkPayloads.json(payloadSize, "\"requestId\":\"req-42\"", false);
+        nestedMessage = BenchmarkPayloads.json(payloadSize,
+            "\"header\":{\"source\":\"api\",\"trace\":{\"spanId\":\"s-1\",\"requestId\":\"req-42\"}}", false);
+    }
+
+    @Benchmark
+    public String topLevel() throws IOException {
+        return jsonKeyExtractor.extract(topLevelMessage, topLevelPath);
+    }
+
+    @Benchmark
+    public String nested() throws IOException {
+        return jsonKeyExtractor.extract(nestedMessage, nestedPath);
+    }
+
+    @Benchmark
+    public String readTreeAt() throws IOException {
+        return objectMapper.readTree(nestedMessage).at(nestedPointer).asText(null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.restapi.benchmark;
+
+import com.example.restapi.service.InterestingEventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-record listener path (one transaction per record) with the batch
+ * listener path (one transaction per poll) against a file-backed HSQLDB.
+ * Throughput is reported in polls per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ListenerModeBenchmark {
+
+    @Param({"50", "500"})
+    private int pollSize;
+
+    private ConfigurableApplicationContext context;
+    private InterestingEventService interestingEventService;
+    private TransactionTemplate transactionTemplate;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start("listener-mode");
+        interestingEventService = context.getBean(InterestingEventService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void recordMode() {
+        for (int i = 0; i < pollSize; i++) {
+            interestingEventService.saveInterestingEvent("bench-topic", "userId", "user-" + sequence++);
+        }
+    }
+
+    @Benchmark
+    public void batchMode() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < pollSize; i++) {
+                interestingEventService.saveInterestingEvent("bench-topic", "userId", "user-" + sequence++);
+            }
+        });
+    }
+}
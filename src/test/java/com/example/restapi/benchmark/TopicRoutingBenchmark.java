@@ -0,0 +1,74 @@
+package com.example.restapi.benchmark;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import com.example.restapi.service.TopicRoute;
+import com.example.restapi.service.TopicRoutingTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former per-message stream scan over the topic configurations with a
+ * routing table lookup, for a small and a large number of configured topic pairs.
+ * The topic looked up is the correlated topic of the last pair, the worst case for the scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicRoutingBenchmark {
+
+    @Param({"4", "400"})
+    private int pairs;
+
+    private KafkaTopicConfig kafkaTopicConfig;
+    private TopicRoutingTable topicRoutingTable;
+    private String topic;
+
+    @Setup
+    public void setUp() {
+        List<KafkaTopicConfig.TopicConfig> topics = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            KafkaTopicConfig.TopicConfig topicConfig = new KafkaTopicConfig.TopicConfig();
+            topicConfig.setName("topic-" + i);
+            topicConfig.setCorrelatedTopic("topic-" + i + "-correlated");
+            topicConfig.setConsumerGroup("group-" + i);
+            topicConfig.setKeyOfInterest("userId");
+            topicConfig.setCorrelatedKeyOfInterest("correlationId");
+            topics.add(topicConfig);
+        }
+        kafkaTopicConfig = new KafkaTopicConfig();
+        kafkaTopicConfig.setTopics(topics);
+        topicRoutingTable = new TopicRoutingTable(kafkaTopicConfig);
+        topic = "topic-" + (pairs - 1) + "-correlated";
+    }
+
+    @Benchmark
+    public boolean streamScan() {
+        KafkaTopicConfig.TopicConfig topicConfig = kafkaTopicConfig.getTopics().stream()
+            .filter(config -> config.getName().equals(topic) || config.getCorrelatedTopic().equals(topic))
+            .findFirst()
+            .orElse(null);
+        return topicConfig != null && topic.equals(topicConfig.getCorrelatedTopic());
+    }
+
+    @Benchmark
+    public boolean routingTable() {
+        TopicRoute route = topicRoutingTable.route(topic);
+        return route != null && route.isCorrelated();
+    }
+}
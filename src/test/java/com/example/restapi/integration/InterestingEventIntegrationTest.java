@@ -1,7 +1,9 @@
 package com.example.restapi.integration;
 
 import com.example.restapi.entity.InterestingEvent;
+import com.example.restapi.repository.CorrelatedEventRepository;
 import com.example.restapi.repository.InterestingEventRepository;
+import com.example.restapi.repository.PendingEventRepository;
 import com.example.restapi.service.InterestingEventService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
@@ -53,6 +55,12 @@ class InterestingEventIntegrationTest {
     @Autowired
     private InterestingEventRepository interestingEventRepository;
 
+    @Autowired
+    private PendingEventRepository pendingEventRepository;
+
+    @Autowired
+    private CorrelatedEventRepository correlatedEventRepository;
+
     @Autowired
     private InterestingEventService interestingEventService;
 
@@ -64,15 +72,15 @@ class InterestingEventIntegrationTest {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
         objectMapper = new ObjectMapper();
         // Clean up database before each test
-        interestingEventRepository.deleteAll();
-        interestingEventRepository.flush();
+        pendingEventRepository.deleteAllInBatch();
+        correlatedEventRepository.deleteAllInBatch();
     }
     
     @AfterEach
     void tearDown() {
         // Clean up database after each test
-        interestingEventRepository.deleteAll();
-        interestingEventRepository.flush();
+        pendingEventRepository.deleteAllInBatch();
+        correlatedEventRepository.deleteAllInBatch();
     }
 
     @Test
@@ -0,0 +1,101 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ChainCorrelationTracker Unit Tests")
+class ChainCorrelationTrackerTest {
+
+    private List<TopicRoute> stages;
+
+    @BeforeEach
+    void setUp() {
+        KafkaTopicConfig.TopicConfig chain = new KafkaTopicConfig.TopicConfig();
+        chain.setName("orders");
+        chain.setConsumerGroup("orders-group");
+        chain.setKeyOfInterest("orderId");
+        chain.setCorrelatedTopic("payments");
+        chain.setCorrelatedKeyOfInterest("orderId");
+        List<KafkaTopicConfig.StageConfig> nextStages = new ArrayList<>();
+        for (String topic : List.of("shipments", "deliveries")) {
+            KafkaTopicConfig.StageConfig stage = new KafkaTopicConfig.StageConfig();
+            stage.setTopic(topic);
+            stage.setKeyOfInterest("orderId");
+            nextStages.add(stage);
+        }
+        chain.setNextStages(nextStages);
+        chain.setCorrelationTimeoutSeconds(60);
+
+        stages = new ArrayList<>();
+        for (int stage = 0; stage < chain.getStageCount(); stage++) {
+            stages.add(TopicRoute.forChainStage(chain, stage));
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete a chain once every stage arrived, in any order")
+    void shouldCompleteChainWhenAllStagesArrive() {
+        // Given
+        ChainCorrelationTracker tracker = new ChainCorrelationTracker(300, Clock.systemUTC());
+
+        // When
+        boolean afterThree = tracker.advance(stages.get(2), "order-1")
+            | tracker.advance(stages.get(0), "order-1")
+            | tracker.advance(stages.get(3), "order-1");
+        boolean afterFour = tracker.advance(stages.get(1), "order-1");
+
+        // Then
+        assertFalse(afterThree);
+        assertTrue(afterFour);
+        assertEquals(Map.of("pending", 0L, "completed", 1L, "expired", 0L, "duplicateStages", 0L),
+            tracker.getStatus().get("orders"));
+    }
+
+    @Test
+    @DisplayName("Should count a repeated stage as a duplicate and keep the key pending")
+    void shouldIgnoreRepeatedStage() {
+        // Given
+        ChainCorrelationTracker tracker = new ChainCorrelationTracker(300, Clock.systemUTC());
+        tracker.advance(stages.get(0), "order-1");
+
+        // When
+        boolean completed = tracker.advance(stages.get(0), "order-1");
+
+        // Then
+        assertFalse(completed);
+        assertEquals(Map.of("pending", 1L, "completed", 0L, "expired", 0L, "duplicateStages", 1L),
+            tracker.getStatus().get("orders"));
+    }
+
+    @Test
+    @DisplayName("Should expire chains past their timeout and keep the ones within it")
+    void shouldExpireIncompleteChain() {
+        // Given: a chain without its own timeout, so the tracker default applies
+        stages.get(0).getTopicConfig().setCorrelationTimeoutSeconds(0);
+        ChainCorrelationTracker expiring = new ChainCorrelationTracker(0, Clock.systemUTC());
+        ChainCorrelationTracker waiting = new ChainCorrelationTracker(300, Clock.systemUTC());
+        for (ChainCorrelationTracker tracker : List.of(expiring, waiting)) {
+            tracker.advance(stages.get(0), "order-1");
+            tracker.advance(stages.get(1), "order-2");
+        }
+
+        // When
+        expiring.expireIncompleteChains();
+        waiting.expireIncompleteChains();
+
+        // Then
+        assertEquals(Map.of("pending", 0L, "completed", 0L, "expired", 2L, "duplicateStages", 0L),
+            expiring.getStatus().get("orders"));
+        assertEquals(Map.of("pending", 2L, "completed", 0L, "expired", 0L, "duplicateStages", 0L),
+            waiting.getStatus().get("orders"));
+    }
+}
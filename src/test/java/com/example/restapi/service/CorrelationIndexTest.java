@@ -0,0 +1,140 @@
+package com.example.restapi.service;
+
+import com.example.restapi.repository.InterestingEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CorrelationIndex Unit Tests")
+class CorrelationIndexTest {
+
+    @Mock
+    private InterestingEventRepository interestingEventRepository;
+
+    private CorrelationIndex correlationIndex;
+
+    @BeforeEach
+    void setUp() {
+        correlationIndex = new CorrelationIndex(interestingEventRepository, true);
+    }
+
+    @Test
+    @DisplayName("Should load uncorrelated events and match the most recent one first")
+    void shouldLoadAndMatchMostRecentFirst() {
+        // Given
+        Instant now = Instant.now();
+        when(interestingEventRepository.findUncorrelatedForIndex()).thenReturn(List.of(
+            new Object[]{1L, "test-topic", "userId", "user123", now.minusSeconds(10)},
+            new Object[]{2L, "test-topic", "userId", "user123", now},
+            new Object[]{3L, "test-topic", "userId", "user456", now}));
+
+        // When
+        correlationIndex.load();
+
+        // Then
+        assertEquals(3, correlationIndex.size());
+        assertEquals(2L, correlationIndex.claimMostRecent("userId", "user123").id());
+        assertEquals(1L, correlationIndex.claimMostRecent("userId", "user123").id());
+        assertNull(correlationIndex.claimMostRecent("userId", "user123"));
+        assertEquals(1, correlationIndex.size());
+    }
+
+    @Test
+    @DisplayName("Should claim the youngest event in the window, not the most recently added one, ties going to the highest id")
+    void shouldClaimYoungestEventInWindow() {
+        // Given: a backfilled event, still in the window, is added after younger ones
+        Instant eventTime = Instant.parse("2024-01-01T10:00:00Z");
+        correlationIndex.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", eventTime));
+        correlationIndex.add(CorrelationIndex.Entry.persisted(3L, "test-topic", "userId", "user123", eventTime));
+        correlationIndex.add(CorrelationIndex.Entry.persisted(2L, "test-topic", "userId", "user123", eventTime.minusSeconds(60)));
+
+        // When / Then
+        Instant notBefore = eventTime.minusSeconds(300);
+        assertEquals(3L, correlationIndex.claimMostRecent("userId", "user123", notBefore).id());
+        assertEquals(1L, correlationIndex.claimMostRecent("userId", "user123", notBefore).id());
+        assertEquals(2L, correlationIndex.claimMostRecent("userId", "user123", notBefore).id());
+        assertNull(correlationIndex.claimMostRecent("userId", "user123", notBefore));
+    }
+
+    @Test
+    @DisplayName("Should remove deleted events by id")
+    void shouldRemoveDeletedEventsById() {
+        // Given
+        correlationIndex.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", Instant.now()));
+
+        // When
+        correlationIndex.remove("userId", "user123", 1L);
+
+        // Then
+        assertEquals(0, correlationIndex.size());
+        assertNull(correlationIndex.claimMostRecent("userId", "user123"));
+    }
+
+    @Test
+    @DisplayName("Should keep committed events off the heap and move flushed write-behind events there")
+    void shouldUseOffHeapStoreForCommittedEvents(@TempDir Path tempDir) throws Exception {
+        // Given
+        CorrelationIndex offHeap = new CorrelationIndex(interestingEventRepository, true,
+            OffHeapPendingEventStore.open(tempDir.resolve("index.bin"), 1 << 14), null);
+        InterestingEventWriteBehind.PendingEvent queued =
+            new InterestingEventWriteBehind.PendingEvent("test-topic", "userId", "user123", Instant.now());
+        CorrelationIndex.Entry queuedEntry = CorrelationIndex.Entry.queued(queued);
+        offHeap.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", Instant.now().minusSeconds(10)));
+        offHeap.add(queuedEntry);
+
+        // When: the queued event is flushed as row 2
+        queued.startFlush();
+        queued.assignId(2L);
+        offHeap.flushed(queuedEntry);
+
+        // Then
+        assertEquals(2, offHeap.size());
+        assertEquals(2L, offHeap.claimMostRecent("userId", "user123").id());
+        assertEquals(1L, offHeap.claimMostRecent("userId", "user123").id());
+        assertNull(offHeap.claimMostRecent("userId", "user123"));
+        offHeap.close();
+    }
+
+    @Test
+    @DisplayName("Should only claim events within the window and expire the ones left behind")
+    void shouldClaimWithinWindowAndExpireBeforeCutoff() {
+        // Given: under event time a backfilled event can be added after a younger one
+        Instant eventTime = Instant.parse("2024-01-01T10:00:00Z");
+        correlationIndex.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", eventTime));
+        correlationIndex.add(CorrelationIndex.Entry.persisted(2L, "test-topic", "userId", "user123", eventTime.minusSeconds(600)));
+        correlationIndex.add(CorrelationIndex.Entry.persisted(3L, "other-topic", "userId", "user456", eventTime.minusSeconds(600)));
+
+        // When / Then
+        assertEquals(1L, correlationIndex.claimMostRecent("userId", "user123", eventTime.minusSeconds(300)).id());
+        assertNull(correlationIndex.claimMostRecent("userId", "user123", eventTime.minusSeconds(300)));
+        assertEquals(1, correlationIndex.expireBefore("test-topic", eventTime.minusSeconds(300)));
+        assertNull(correlationIndex.claimMostRecent("userId", "user123"));
+        assertEquals(1, correlationIndex.size());
+    }
+
+    @Test
+    @DisplayName("Should not load anything when disabled")
+    void shouldNotLoadWhenDisabled() {
+        // Given
+        CorrelationIndex disabled = new CorrelationIndex(interestingEventRepository, false);
+
+        // When
+        disabled.load();
+
+        // Then
+        assertFalse(disabled.isEnabled());
+        verifyNoInteractions(interestingEventRepository);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.restapi.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CorrelationLatencyRecorder Unit Tests")
+class CorrelationLatencyRecorderTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T10:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private CorrelationLatencyRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new CorrelationLatencyRecorder(meterRegistry, 60, 3);
+    }
+
+    @Test
+    @DisplayName("Should record latency on a timer per pair")
+    void shouldRecordLatencyPerPair() {
+        // When
+        for (int i = 1; i <= 100; i++) {
+            recorder.record("orders", T0, T0.plusMillis(i * 10L));
+        }
+        recorder.record("users", T0, T0.plusSeconds(2));
+
+        // Then
+        Timer orders = meterRegistry.get(CorrelationLatencyRecorder.METER_NAME).tag("pair", "orders").timer();
+        assertEquals(100, orders.count());
+        assertEquals(1000, orders.max(TimeUnit.MILLISECONDS), 0.001);
+
+        Map<String, Object> status = recorder.getStatus();
+        assertEquals(2, status.size());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> ordersStatus = (Map<String, Object>) status.get("orders");
+        assertEquals(100L, ordersStatus.get("totalCount"));
+        assertTrue((Double) ordersStatus.get("p50") > 0);
+        assertTrue((Double) ordersStatus.get("p99") >= (Double) ordersStatus.get("p90"));
+        assertEquals(60L, ordersStatus.get("windowSeconds"));
+    }
+
+    @Test
+    @DisplayName("Should count a correlated message that arrived before its event as zero latency")
+    void shouldClampNegativeLatencyToZero() {
+        // When
+        recorder.record("orders", T0, T0.minusSeconds(5));
+        recorder.record("orders", null, T0);
+
+        // Then
+        Timer orders = meterRegistry.get(CorrelationLatencyRecorder.METER_NAME).tag("pair", "orders").timer();
+        assertEquals(1, orders.count());
+        assertEquals(0, orders.max(TimeUnit.MILLISECONDS), 0.001);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CorrelationMatchSink Unit Tests")
+class CorrelationMatchSinkTest {
+
+    @Mock
+    private KafkaService kafkaService;
+
+    private static KafkaTopicConfig.TopicConfig pair(String name, KafkaTopicConfig.OnMatch onMatch, String matchOutputTopic) {
+        KafkaTopicConfig.TopicConfig topicConfig = new KafkaTopicConfig.TopicConfig();
+        topicConfig.setName(name);
+        topicConfig.setCorrelatedTopic(name + "-correlated");
+        topicConfig.setConsumerGroup(name + "-group");
+        topicConfig.setKeyOfInterest("userId");
+        topicConfig.setCorrelatedKeyOfInterest("correlationId");
+        topicConfig.setOnMatch(onMatch);
+        topicConfig.setMatchOutputTopic(matchOutputTopic);
+        return topicConfig;
+    }
+
+    @Test
+    @DisplayName("Should publish a matched pair as JSON keyed by the key of interest value")
+    void shouldPublishMatchedPairToOutputTopic() {
+        // Given
+        CorrelationMatchSink sink = new CorrelationMatchSink(new TopicRoutingTable(List.of(
+            pair("orders", KafkaTopicConfig.OnMatch.DELETE, "orders-matched"))), kafkaService);
+        when(kafkaService.sendMessage(anyString(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        sink.emit("orders", "userId", "user-1", Instant.parse("2024-01-01T10:00:00Z"), "{\"correlationId\":\"user-1\"}",
+            Instant.parse("2024-01-01T10:00:05Z"));
+
+        // Then
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(kafkaService).sendMessage(eq("orders-matched"), eq("user-1"), json.capture());
+        assertTrue(json.getValue().contains("\"createdAt\":\"2024-01-01T10:00:00Z\""));
+        assertTrue(json.getValue().contains("\"correlatedMessage\":\"{\\\"correlationId\\\":\\\"user-1\\\"}\""));
+        assertEquals(1L, sink.getStatus().get("published"));
+    }
+
+    @Test
+    @DisplayName("Should only log a matched pair when the pair has no output topic")
+    void shouldLogMatchedPairWithoutOutputTopic() {
+        // Given
+        CorrelationMatchSink sink = new CorrelationMatchSink(new TopicRoutingTable(List.of(
+            pair("orders", KafkaTopicConfig.OnMatch.DELETE, null),
+            pair("payments", KafkaTopicConfig.OnMatch.UPDATE, null))), kafkaService);
+
+        // When
+        sink.emit("orders", "userId", "user-1", Instant.now(), "{}", Instant.now());
+
+        // Then
+        assertTrue(sink.deletesOnMatch("orders"));
+        assertFalse(sink.deletesOnMatch("payments"));
+        assertFalse(sink.deletesOnMatch("unknown"));
+        assertEquals(1L, sink.getStatus().get("emitted"));
+        verifyNoInteractions(kafkaService);
+    }
+}
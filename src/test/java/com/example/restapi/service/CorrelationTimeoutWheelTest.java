@@ -0,0 +1,128 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CorrelationTimeoutWheel Unit Tests")
+class CorrelationTimeoutWheelTest {
+
+    private CorrelationTimeoutWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new CorrelationTimeoutWheel(true, 10, 8, topic -> "slow-topic".equals(topic)
+            ? Duration.ofSeconds(60)
+            : Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        wheel.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should count events past their topic's deadline and not the ones still within it")
+    void shouldCountExpiredEventsPerTopic() throws Exception {
+        // Given: one event already past its deadline, one due after several rotations, one with a long timeout
+        CorrelationTimeoutWheel.Timeout overdue = wheel.schedule("test-topic", Instant.now().minusSeconds(1));
+        CorrelationTimeoutWheel.Timeout due = wheel.schedule("test-topic", Instant.now().plusMillis(200));
+        CorrelationTimeoutWheel.Timeout waiting = wheel.schedule("slow-topic", Instant.now());
+
+        // When
+        awaitTrue(due::isExpired);
+
+        // Then
+        assertTrue(overdue.isExpired());
+        assertFalse(waiting.isExpired());
+        assertEquals(Map.of("test-topic", 2L), wheel.getExpiredPendingCounts());
+        assertEquals(2, wheel.getExpiredTotal());
+    }
+
+    @Test
+    @DisplayName("Should not expire an event cancelled before its deadline")
+    void shouldNotExpireCancelledTimeout() throws Exception {
+        // Given
+        CorrelationTimeoutWheel.Timeout correlated = wheel.schedule("test-topic", Instant.now());
+        CorrelationTimeoutWheel.Timeout pending = wheel.schedule("test-topic", Instant.now());
+
+        // When
+        correlated.cancel();
+        awaitTrue(pending::isExpired);
+
+        // Then
+        assertFalse(correlated.isExpired());
+        assertEquals(Map.of("test-topic", 1L), wheel.getExpiredPendingCounts());
+    }
+
+    @Test
+    @DisplayName("Should stop counting an expired event once it is correlated late")
+    void shouldDecrementExpiredCountOnLateCorrelation() throws Exception {
+        // Given
+        CorrelationTimeoutWheel.Timeout timeout = wheel.schedule("test-topic", Instant.now().minusSeconds(1));
+        awaitTrue(timeout::isExpired);
+
+        // When
+        timeout.cancel();
+
+        // Then
+        assertTrue(wheel.getExpiredPendingCounts().isEmpty());
+        assertEquals(1, wheel.getExpiredTotal());
+    }
+
+    @Test
+    @DisplayName("Should keep expired counts consistent when events are correlated the moment they expire")
+    void shouldCancelWhileExpiring() throws Exception {
+        // Given: a new topic, so its counter does not exist before the first event expires
+        List<CorrelationTimeoutWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            timeouts.add(wheel.schedule("racing-topic", Instant.now().minusSeconds(1)));
+        }
+
+        // When: each event is correlated as soon as it is seen expired
+        CompletableFuture<Void> correlator = CompletableFuture.runAsync(() -> {
+            for (CorrelationTimeoutWheel.Timeout timeout : timeouts) {
+                while (!timeout.isExpired()) {
+                    Thread.onSpinWait();
+                }
+                timeout.cancel();
+            }
+        });
+        correlator.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(wheel.getExpiredPendingCounts().isEmpty());
+        assertEquals(200, wheel.getExpiredTotal());
+    }
+
+    @Test
+    @DisplayName("Should not schedule anything when disabled")
+    void shouldNotScheduleWhenDisabled() throws Exception {
+        // Given
+        CorrelationTimeoutWheel disabled = new CorrelationTimeoutWheel(false, 10, 8, topic -> Duration.ZERO);
+
+        // When / Then
+        assertNull(disabled.schedule("test-topic", Instant.now()));
+        disabled.shutdown();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the wheel");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CorrelationWatermarks Unit Tests")
+class CorrelationWatermarksTest {
+
+    private static final long T0 = Instant.parse("2024-01-01T10:00:00Z").toEpochMilli();
+
+    @Mock
+    private CorrelationIndex correlationIndex;
+
+    private KafkaTopicConfig.TopicConfig pair;
+    private TopicRoutingTable topicRoutingTable;
+    private CorrelationWatermarks watermarks;
+
+    @BeforeEach
+    void setUp() {
+        pair = new KafkaTopicConfig.TopicConfig();
+        pair.setName("orders");
+        pair.setCorrelatedTopic("payments");
+        pair.setConsumerGroup("orders-group");
+        pair.setKeyOfInterest("orderId");
+        pair.setCorrelatedKeyOfInterest("orderId");
+        pair.setTimeSemantics(KafkaTopicConfig.TimeSemantics.EVENT);
+        pair.setCorrelationWindowSeconds(300);
+        topicRoutingTable = new TopicRoutingTable(List.of(pair));
+        watermarks = new CorrelationWatermarks(topicRoutingTable, correlationIndex);
+    }
+
+    @Test
+    @DisplayName("Should hold the watermark at the slowest partition once every topic has delivered")
+    void shouldTrackLowestPartitionOnceEveryTopicDelivered() {
+        // Given
+        TopicRoute main = topicRoutingTable.route("orders");
+        TopicRoute correlated = topicRoutingTable.route("payments");
+
+        // When
+        Instant eventTime = watermarks.observe(main, 0, T0 + 60_000);
+        watermarks.observe(main, 1, T0 + 30_000);
+
+        // Then: the correlated topic has not delivered yet
+        assertEquals(Instant.ofEpochMilli(T0 + 60_000), eventTime);
+        assertNull(watermarks.watermark("orders"));
+
+        // When
+        watermarks.observe(correlated, 0, T0 + 90_000);
+        watermarks.observe(main, 1, T0 + 10_000);
+
+        // Then: an older record does not move a partition back
+        assertEquals(Instant.ofEpochMilli(T0 + 30_000), watermarks.watermark("orders"));
+        assertTrue(watermarks.isEventTime("orders"));
+    }
+
+    @Test
+    @DisplayName("Should expire indexed events that fell out of the window behind the watermark")
+    void shouldExpireEventsBehindWatermark() {
+        // Given
+        when(correlationIndex.isEnabled()).thenReturn(true);
+        when(correlationIndex.expireBefore("orders", Instant.ofEpochMilli(T0 + 600_000).minusSeconds(300))).thenReturn(2);
+        watermarks.observe(topicRoutingTable.route("orders"), 0, T0 + 600_000);
+        watermarks.observe(topicRoutingTable.route("payments"), 0, T0 + 700_000);
+
+        // When
+        watermarks.expireBehindWatermarks();
+
+        // Then
+        verify(correlationIndex).expireBefore("orders", Instant.ofEpochMilli(T0 + 300_000));
+        assertEquals(2L, ((Map<?, ?>) watermarks.getStatus().get("orders")).get("expired"));
+    }
+
+    @Test
+    @DisplayName("Should leave processing time pairs to the wall clock")
+    void shouldIgnoreProcessingTimePairs() {
+        // Given
+        pair.setTimeSemantics(KafkaTopicConfig.TimeSemantics.PROCESSING);
+
+        // When / Then
+        assertNull(watermarks.observe(topicRoutingTable.route("orders"), 0, T0));
+        assertFalse(watermarks.isEventTime("orders"));
+        assertTrue(watermarks.getStatus().isEmpty());
+    }
+}
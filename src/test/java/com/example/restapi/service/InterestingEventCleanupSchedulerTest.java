@@ -1,20 +1,14 @@
 package com.example.restapi.service;
 
-import com.example.restapi.entity.InterestingEvent;
 import com.example.restapi.repository.InterestingEventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.time.Instant;
-import java.util.Arrays;
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -26,89 +20,67 @@ class InterestingEventCleanupSchedulerTest {
     @Mock
     private InterestingEventRepository interestingEventRepository;
 
-    @InjectMocks
-    private InterestingEventCleanupScheduler cleanupScheduler;
+    @Mock
+    private PersistenceBackpressure persistenceBackpressure;
 
-    private InterestingEvent correlatedEvent;
-    private InterestingEvent uncorrelatedEvent;
+    private InterestingEventCleanupScheduler cleanupScheduler;
 
     @BeforeEach
     void setUp() {
-        correlatedEvent = new InterestingEvent("test-topic", "userId", "user123");
-        correlatedEvent.setId(1L);
-        correlatedEvent.setCreatedAt(Instant.now());
-        correlatedEvent.setCorrelatedMessage("{\"correlationId\":\"user123\"}");
-        correlatedEvent.setIsCorrelated(true);
-        correlatedEvent.setCorrelationTimestamp(Instant.now());
-
-        uncorrelatedEvent = new InterestingEvent("test-topic", "userId", "user456");
-        uncorrelatedEvent.setId(2L);
-        uncorrelatedEvent.setCreatedAt(Instant.now());
-        uncorrelatedEvent.setIsCorrelated(false);
+        cleanupScheduler = new InterestingEventCleanupScheduler(interestingEventRepository, persistenceBackpressure, 100);
     }
 
     @Test
-    @DisplayName("Should cleanup correlated events successfully")
-    void shouldCleanupCorrelatedEventsSuccessfully() {
+    @DisplayName("Should delete correlated events in chunks until a chunk comes back short")
+    void shouldCleanupCorrelatedEventsInChunks() {
         // Given
-        long correlatedCount = 5L;
-        long deletedCount = 5L;
-        
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenReturn(correlatedCount);
-        when(interestingEventRepository.deleteByIsCorrelatedTrue())
-            .thenReturn(deletedCount);
+        when(interestingEventRepository.deleteCorrelatedChunk(100))
+            .thenReturn(100)
+            .thenReturn(100)
+            .thenReturn(42);
 
         // When
         cleanupScheduler.cleanupCorrelatedEvents();
 
         // Then
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
-        verify(interestingEventRepository, times(1)).deleteByIsCorrelatedTrue();
+        verify(interestingEventRepository, times(3)).deleteCorrelatedChunk(100);
+        verify(interestingEventRepository, never()).countCorrelated();
     }
 
     @Test
     @DisplayName("Should handle cleanup when no correlated events exist")
     void shouldHandleCleanupWhenNoCorrelatedEventsExist() {
         // Given
-        long correlatedCount = 0L;
-        
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenReturn(correlatedCount);
+        when(interestingEventRepository.deleteCorrelatedChunk(100)).thenReturn(0);
 
         // When
         cleanupScheduler.cleanupCorrelatedEvents();
 
         // Then
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
-        verify(interestingEventRepository, never()).deleteByIsCorrelatedTrue();
+        verify(interestingEventRepository, times(1)).deleteCorrelatedChunk(100);
+        verifyNoInteractions(persistenceBackpressure);
     }
 
     @Test
-    @DisplayName("Should handle repository exception during cleanup")
-    void shouldHandleRepositoryExceptionDuringCleanup() {
+    @DisplayName("Should stop after the current chunk while persistence is overloaded")
+    void shouldYieldToIngestUnderBackpressure() {
         // Given
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenThrow(new RuntimeException("Database error"));
+        when(interestingEventRepository.deleteCorrelatedChunk(100)).thenReturn(100);
+        when(persistenceBackpressure.isOverloaded()).thenReturn(false).thenReturn(true);
 
-        // When & Then
-        assertDoesNotThrow(() -> {
-            cleanupScheduler.cleanupCorrelatedEvents();
-        });
+        // When
+        cleanupScheduler.cleanupCorrelatedEvents();
 
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
-        verify(interestingEventRepository, never()).deleteByIsCorrelatedTrue();
+        // Then
+        verify(interestingEventRepository, times(2)).deleteCorrelatedChunk(100);
     }
 
     @Test
     @DisplayName("Should handle repository exception during deletion")
     void shouldHandleRepositoryExceptionDuringDeletion() {
         // Given
-        long correlatedCount = 5L;
-        
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenReturn(correlatedCount);
-        when(interestingEventRepository.deleteByIsCorrelatedTrue())
+        when(interestingEventRepository.deleteCorrelatedChunk(100))
+            .thenReturn(100)
             .thenThrow(new RuntimeException("Delete error"));
 
         // When & Then
@@ -116,25 +88,23 @@ class InterestingEventCleanupSchedulerTest {
             cleanupScheduler.cleanupCorrelatedEvents();
         });
 
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
-        verify(interestingEventRepository, times(1)).deleteByIsCorrelatedTrue();
+        verify(interestingEventRepository, times(2)).deleteCorrelatedChunk(100);
     }
 
     @Test
-    @DisplayName("Should use configured cleanup interval")
-    void shouldUseConfiguredCleanupInterval() {
+    @DisplayName("Should use configured cleanup interval and chunk size")
+    void shouldUseConfiguredCleanupIntervalAndChunkSize() {
         // Given
         int expectedInterval = 120; // 2 minutes
+        cleanupScheduler = new InterestingEventCleanupScheduler(interestingEventRepository, persistenceBackpressure, 500);
         ReflectionTestUtils.setField(cleanupScheduler, "cleanupIntervalSeconds", expectedInterval);
-        
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenReturn(0L);
+        when(interestingEventRepository.deleteCorrelatedChunk(anyInt())).thenReturn(0);
 
         // When
         cleanupScheduler.cleanupCorrelatedEvents();
 
         // Then
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
+        verify(interestingEventRepository, times(1)).deleteCorrelatedChunk(500);
         
         // Verify the interval is set correctly
         Integer actualInterval = (Integer) ReflectionTestUtils.getField(cleanupScheduler, "cleanupIntervalSeconds");
@@ -142,42 +112,12 @@ class InterestingEventCleanupSchedulerTest {
     }
 
     @Test
-    @DisplayName("Should handle partial deletion success")
-    void shouldHandlePartialDeletionSuccess() {
-        // Given
-        long correlatedCount = 10L;
-        long deletedCount = 7L; // Some records couldn't be deleted
-        
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenReturn(correlatedCount);
-        when(interestingEventRepository.deleteByIsCorrelatedTrue())
-            .thenReturn(deletedCount);
-
-        // When
-        cleanupScheduler.cleanupCorrelatedEvents();
-
-        // Then
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
-        verify(interestingEventRepository, times(1)).deleteByIsCorrelatedTrue();
-    }
-
-    @Test
-    @DisplayName("Should handle zero deletion count")
-    void shouldHandleZeroDeletionCount() {
-        // Given
-        long correlatedCount = 5L;
-        long deletedCount = 0L;
-        
-        when(interestingEventRepository.countByIsCorrelatedTrue())
-            .thenReturn(correlatedCount);
-        when(interestingEventRepository.deleteByIsCorrelatedTrue())
-            .thenReturn(deletedCount);
-
-        // When
-        cleanupScheduler.cleanupCorrelatedEvents();
-
-        // Then
-        verify(interestingEventRepository, times(1)).countByIsCorrelatedTrue();
-        verify(interestingEventRepository, times(1)).deleteByIsCorrelatedTrue();
+    @DisplayName("Should reject a chunk size that is not positive")
+    void shouldRejectNonPositiveChunkSize() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+            () -> new InterestingEventCleanupScheduler(interestingEventRepository, persistenceBackpressure, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new InterestingEventCleanupScheduler(interestingEventRepository, persistenceBackpressure, -1));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.example.restapi.service;
+
+import com.example.restapi.repository.InterestingEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InterestingEventMonitorScheduler Unit Tests")
+class InterestingEventMonitorSchedulerTest {
+
+    @Mock
+    private InterestingEventRepository interestingEventRepository;
+
+    @Mock
+    private CorrelationIndex correlationIndex;
+
+    @Mock
+    private CorrelationTimeoutWheel correlationTimeoutWheel;
+
+    @Mock
+    private CorrelationWatermarks correlationWatermarks;
+
+    @InjectMocks
+    private InterestingEventMonitorScheduler monitorScheduler;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(monitorScheduler, "ageThresholdSeconds", 300);
+    }
+
+    @Test
+    @DisplayName("Should count event time pairs against their watermark when the timing wheel tracks timeouts")
+    void shouldCountEventTimePairsOnWheelPath() {
+        // Given
+        Instant watermark = Instant.parse("2024-01-01T10:00:00Z");
+        when(correlationIndex.tracksTimeouts()).thenReturn(true);
+        when(correlationTimeoutWheel.getExpiredPendingCounts()).thenReturn(Map.of("wall-clock-topic", 2L));
+        when(correlationWatermarks.getPairNames()).thenReturn(Set.of("orders", "shipments"));
+        when(correlationWatermarks.watermark("orders")).thenReturn(watermark);
+        when(correlationWatermarks.watermark("shipments")).thenReturn(null);
+        when(interestingEventRepository.countPendingByTopicCreatedBefore(
+            "orders", watermark.minusSeconds(300))).thenReturn(3L);
+
+        // When
+        monitorScheduler.monitorUncorrelatedEvents();
+
+        // Then: a pair without a watermark yet is not queried, and the wall clock query is skipped
+        verify(interestingEventRepository).countPendingByTopicCreatedBefore(
+            "orders", watermark.minusSeconds(300));
+        verify(interestingEventRepository, never()).countPendingByTopicCreatedBefore(
+            eq("shipments"), any());
+        verify(interestingEventRepository, never()).findUncorrelatedEventsOlderThanGroupedByTopic(any());
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.restapi.service;
 
 import com.example.restapi.entity.InterestingEvent;
+import com.example.restapi.entity.PendingEvent;
 import com.example.restapi.repository.InterestingEventRepository;
+import com.example.restapi.repository.PendingEventClaims;
+import com.example.restapi.repository.PendingEventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -13,11 +18,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,6 +41,24 @@ class InterestingEventServiceTest {
     @Mock
     private InterestingEventRepository interestingEventRepository;
 
+    @Mock
+    private PendingEventRepository pendingEventRepository;
+
+    @Mock
+    private CorrelationIndex correlationIndex;
+
+    @Mock
+    private OrphanCorrelationBuffer orphanCorrelationBuffer;
+
+    @Mock
+    private CorrelationLatencyRecorder correlationLatencyRecorder;
+
+    @Mock
+    private PendingKeyFilter pendingKeyFilter;
+
+    @Mock
+    private CorrelationMatchSink correlationMatchSink;
+
     @InjectMocks
     private InterestingEventService interestingEventService;
 
@@ -38,6 +67,7 @@ class InterestingEventServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(pendingKeyFilter.mightContain(anyString(), anyString())).thenReturn(true);
         sampleEvent = new InterestingEvent("test-topic", "userId", "user123");
         sampleEvent.setId(1L);
         sampleEvent.setCreatedAt(Instant.now());
@@ -58,14 +88,18 @@ class InterestingEventServiceTest {
         String keyName = "userId";
         String keyValue = "user123";
         
-        when(interestingEventRepository.save(any(InterestingEvent.class)))
-            .thenReturn(sampleEvent);
+        when(pendingEventRepository.save(any(PendingEvent.class))).thenAnswer(invocation -> {
+            PendingEvent pendingEvent = invocation.getArgument(0);
+            pendingEvent.setId(1L);
+            return pendingEvent;
+        });
 
         // When
         InterestingEvent result = interestingEventService.saveInterestingEvent(topicName, keyName, keyValue);
 
         // Then
         assertNotNull(result);
+        assertEquals(1L, result.getId());
         assertEquals(topicName, result.getTopicName());
         assertEquals(keyName, result.getKeyOfInterestName());
         assertEquals(keyValue, result.getKeyOfInterestValue());
@@ -73,7 +107,9 @@ class InterestingEventServiceTest {
         assertNull(result.getCorrelatedMessage());
         assertNull(result.getCorrelationTimestamp());
         
-        verify(interestingEventRepository, times(1)).save(any(InterestingEvent.class));
+        verify(pendingEventRepository, times(1)).save(any(PendingEvent.class));
+        verify(interestingEventRepository, never()).correlateById(anyLong(), anyString(), anyString(), anyString(),
+            any(Instant.class), anyString(), any(Instant.class));
     }
 
     @Test
@@ -97,25 +133,74 @@ class InterestingEventServiceTest {
     }
 
     @Test
-    @DisplayName("Should check and update correlation successfully")
+    @DisplayName("Should move the most recent pending event to the correlated events")
     void shouldCheckAndUpdateCorrelation() {
         // Given
         String keyName = "userId";
         String keyValue = "user123";
         String correlatedMessage = "{\"correlationId\":\"user123\"}";
-        List<InterestingEvent> events = Arrays.asList(sampleEvent);
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00Z");
         
-        when(interestingEventRepository.findByKeyNameAndValueForCorrelation(keyName, keyValue))
-            .thenReturn(events);
-        when(interestingEventRepository.save(any(InterestingEvent.class)))
-            .thenReturn(correlatedEvent);
+        when(interestingEventRepository.claimMostRecent(eq(keyName), eq(keyValue), eq(Instant.EPOCH), eq(correlatedMessage),
+                any(Instant.class)))
+            .thenReturn(new PendingEventClaims.ClaimedEvent(1L, "test-topic", createdAt));
 
         // When
         interestingEventService.checkAndUpdateCorrelation(keyName, keyValue, correlatedMessage);
 
         // Then
-        verify(interestingEventRepository, times(1)).findByKeyNameAndValueForCorrelation(keyName, keyValue);
-        verify(interestingEventRepository, times(1)).save(any(InterestingEvent.class));
+        verify(interestingEventRepository, times(1)).claimMostRecent(eq(keyName), eq(keyValue), eq(Instant.EPOCH),
+            eq(correlatedMessage), any(Instant.class));
+        verify(interestingEventRepository, never()).findMostRecentForCorrelation(anyString(), anyString(),
+            any(Instant.class), any(Pageable.class));
+        verify(interestingEventRepository, never()).deleteUncorrelatedById(anyLong(), anyString(), anyString());
+        verify(pendingEventRepository, never()).save(any(PendingEvent.class));
+        verify(pendingKeyFilter, never()).falsePositive();
+        verify(correlationLatencyRecorder, times(1)).record(eq("test-topic"), eq(createdAt), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should claim the event in one set-based call and record the latency with the timestamp it stored")
+    void shouldRecordLatencyWithStoredCorrelationTimestamp() {
+        // Given
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00Z");
+        when(interestingEventRepository.claimMostRecent(eq("userId"), eq("user123"), eq(Instant.EPOCH), anyString(),
+                any(Instant.class)))
+            .thenReturn(new PendingEventClaims.ClaimedEvent(1L, "test-topic", createdAt));
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+
+        // Then: no read round trip before the claim
+        ArgumentCaptor<Instant> correlationTimestamp = ArgumentCaptor.forClass(Instant.class);
+        verify(interestingEventRepository).claimMostRecent(eq("userId"), eq("user123"), eq(Instant.EPOCH), anyString(),
+            correlationTimestamp.capture());
+        verifyNoMoreInteractions(interestingEventRepository);
+        verify(correlationLatencyRecorder).record("test-topic", createdAt, correlationTimestamp.getValue());
+    }
+
+    @Test
+    @DisplayName("Should correlate on event time only within the pair's window")
+    void shouldCorrelateOnEventTimeWithinWindow() {
+        // Given: the pending event was created at 10:00 by its record's timestamp
+        Instant eventTime = Instant.parse("2024-01-01T10:00:00Z");
+        when(interestingEventRepository.claimMostRecent(eq("userId"), eq("user123"), any(Instant.class), anyString(),
+                any(Instant.class)))
+            .thenAnswer(invocation -> eventTime.isBefore(invocation.getArgument(2))
+                ? null : new PendingEventClaims.ClaimedEvent(1L, "test-topic", eventTime));
+
+        // When: one correlated record is 90 seconds too late, the next one is within the window
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", () -> "late",
+            eventTime.plusSeconds(390), Duration.ofSeconds(300));
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", () -> "on time",
+            eventTime.plusSeconds(120), Duration.ofSeconds(300));
+
+        // Then: the window is applied by the lookup and the latency is measured in event time
+        verify(interestingEventRepository).claimMostRecent("userId", "user123", eventTime.plusSeconds(90), "late",
+            eventTime.plusSeconds(390));
+        verify(interestingEventRepository).claimMostRecent("userId", "user123", eventTime.minusSeconds(180), "on time",
+            eventTime.plusSeconds(120));
+        verify(correlationLatencyRecorder, times(1)).record("test-topic", eventTime, eventTime.plusSeconds(120));
     }
 
     @Test
@@ -126,15 +211,315 @@ class InterestingEventServiceTest {
         String keyValue = "nonexistent";
         String correlatedMessage = "{\"correlationId\":\"nonexistent\"}";
         
-        when(interestingEventRepository.findByKeyNameAndValueForCorrelation(keyName, keyValue))
-            .thenReturn(Arrays.asList());
+        when(interestingEventRepository.claimMostRecent(eq(keyName), eq(keyValue), any(Instant.class), eq(correlatedMessage),
+                any(Instant.class)))
+            .thenReturn(null);
 
         // When
         interestingEventService.checkAndUpdateCorrelation(keyName, keyValue, correlatedMessage);
 
         // Then
-        verify(interestingEventRepository, times(1)).findByKeyNameAndValueForCorrelation(keyName, keyValue);
-        verify(interestingEventRepository, never()).save(any(InterestingEvent.class));
+        verify(pendingKeyFilter, times(1)).falsePositive();
+        verify(correlationLatencyRecorder, never()).record(anyString(), any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should not materialise correlated message when the pending key filter rules out a match")
+    @SuppressWarnings("unchecked")
+    void shouldNotMaterialiseCorrelatedMessageWhenNoCorrelationFound() {
+        // Given
+        String keyName = "userId";
+        String keyValue = "nonexistent";
+        Supplier<String> correlatedMessage = mock(Supplier.class);
+        when(pendingKeyFilter.mightContain(keyName, keyValue)).thenReturn(false);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation(keyName, keyValue, correlatedMessage);
+
+        // Then
+        verify(correlatedMessage, never()).get();
+        verify(interestingEventRepository, never()).claimMostRecent(anyString(), anyString(), any(Instant.class),
+            any(), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should skip the correlation query for a key the pending key filter has never seen")
+    void shouldSkipQueryOnDefiniteFilterMiss() {
+        // Given
+        when(pendingKeyFilter.mightContain("userId", "nonexistent")).thenReturn(false);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "nonexistent", "{\"correlationId\":\"nonexistent\"}");
+
+        // Then
+        verify(interestingEventRepository, never()).claimMostRecent(anyString(), anyString(), any(Instant.class),
+            anyString(), any(Instant.class));
+        verify(pendingKeyFilter, never()).falsePositive();
+    }
+
+    @Test
+    @DisplayName("Should correlate an indexed event by id with no lookup query")
+    void shouldCorrelateIndexedEventWithSingleUpdate() {
+        // Given
+        String correlatedMessage = "{\"correlationId\":\"user123\"}";
+        when(correlationIndex.isEnabled()).thenReturn(true);
+        when(correlationIndex.claimMostRecent("userId", "user123", null))
+            .thenReturn(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", Instant.now()));
+        when(interestingEventRepository.correlateById(eq(1L), eq("test-topic"), eq("userId"), eq("user123"),
+                any(Instant.class), eq(correlatedMessage), any(Instant.class)))
+            .thenReturn(1);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", correlatedMessage);
+
+        // Then
+        verify(interestingEventRepository, times(1)).correlateById(eq(1L), eq("test-topic"), eq("userId"), eq("user123"),
+                any(Instant.class), eq(correlatedMessage), any(Instant.class));
+        verify(interestingEventRepository, never()).findMostRecentForCorrelation(anyString(), anyString(),
+            any(Instant.class), any(Pageable.class));
+        verify(pendingEventRepository, never()).save(any(PendingEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should put a claimed index entry back when the surrounding batch transaction rolls back")
+    void shouldRestoreClaimedEntryOnRollback() {
+        // Given: a batch transaction is in progress
+        CorrelationIndex index = new CorrelationIndex(interestingEventRepository, true);
+        InterestingEventService service = new InterestingEventService(interestingEventRepository, pendingEventRepository,
+            index, orphanCorrelationBuffer, correlationLatencyRecorder, pendingKeyFilter, correlationMatchSink);
+        index.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", Instant.now()));
+        when(interestingEventRepository.correlateById(eq(1L), eq("test-topic"), eq("userId"), eq("user123"),
+                any(Instant.class), anyString(), any(Instant.class)))
+            .thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+            assertEquals(0, index.size());
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then: the replayed record can claim it again
+        assertEquals(1L, index.claimMostRecent("userId", "user123").id());
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when the index has no pending event")
+    @SuppressWarnings("unchecked")
+    void shouldNotTouchDatabaseOnIndexMiss() {
+        // Given
+        Supplier<String> correlatedMessage = mock(Supplier.class);
+        when(correlationIndex.isEnabled()).thenReturn(true);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "nonexistent", correlatedMessage);
+
+        // Then
+        verifyNoInteractions(interestingEventRepository);
+        verify(correlatedMessage, never()).get();
+    }
+
+    @Test
+    @DisplayName("Should attach the correlation to an event still queued for write-behind")
+    void shouldCorrelateQueuedEventInMemory() throws Exception {
+        // Given
+        InterestingEventWriteBehind.PendingEvent queued =
+            new InterestingEventWriteBehind.PendingEvent("test-topic", "userId", "user123", Instant.now());
+        when(correlationIndex.isEnabled()).thenReturn(true);
+        when(correlationIndex.claimMostRecent("userId", "user123", null)).thenReturn(CorrelationIndex.Entry.queued(queued));
+
+        // When
+        CompletableFuture<Void> correlated =
+            interestingEventService.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+
+        // Then: the correlated record is only durable once the queued event's insert commits
+        verifyNoInteractions(interestingEventRepository);
+        assertEquals("{\"correlationId\":\"user123\"}", queued.correlatedRow()[5]);
+        assertFalse(correlated.isDone());
+        verify(correlationLatencyRecorder, never()).record(anyString(), any(Instant.class), any(Instant.class));
+
+        // When
+        queued.result().complete(null);
+
+        // Then
+        assertTrue(correlated.isDone() && !correlated.isCompletedExceptionally());
+        verify(correlationLatencyRecorder, times(1)).record(eq("test-topic"), any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should park a correlated message without a pending event until the event arrives")
+    void shouldParkCorrelatedMessageOnIndexMiss() {
+        // Given
+        when(correlationIndex.isEnabled()).thenReturn(true);
+        when(orphanCorrelationBuffer.isEnabled()).thenReturn(true);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+
+        // Then
+        verify(orphanCorrelationBuffer, times(1)).park("userId", "user123", "{\"correlationId\":\"user123\"}", null);
+        verifyNoInteractions(interestingEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should save an event already correlated when its correlated message arrived first")
+    void shouldSaveEventCorrelatedWithParkedMessage() {
+        // Given
+        when(orphanCorrelationBuffer.claim("userId", "user123"))
+            .thenReturn(new OrphanCorrelationBuffer.Orphan("{\"correlationId\":\"user123\"}", Instant.now(), null));
+        when(interestingEventRepository.reserveEventId()).thenReturn(1L);
+
+        // When
+        InterestingEvent result = interestingEventService.saveInterestingEvent("test-topic", "userId", "user123");
+
+        // Then: inserted straight into the correlated events under a reserved id
+        assertEquals(1L, result.getId());
+        assertTrue(result.getIsCorrelated());
+        assertEquals("{\"correlationId\":\"user123\"}", result.getCorrelatedMessage());
+        assertNotNull(result.getCorrelationTimestamp());
+        verify(interestingEventRepository, times(1)).insertCorrelated(1L, "test-topic", "userId", "user123",
+            result.getCreatedAt(), "{\"correlationId\":\"user123\"}", result.getCorrelationTimestamp());
+        verify(pendingEventRepository, never()).save(any(PendingEvent.class));
+        verify(correlationIndex, never()).add(any());
+    }
+
+    @Test
+    @DisplayName("Should emit the pair without storing the event when its pair deletes on match")
+    void shouldNotStoreEventMatchedByParkedMessageOnDeleteOnMatch() {
+        // Given
+        when(correlationMatchSink.deletesOnMatch("test-topic")).thenReturn(true);
+        when(orphanCorrelationBuffer.claim("userId", "user123"))
+            .thenReturn(new OrphanCorrelationBuffer.Orphan("{\"correlationId\":\"user123\"}", Instant.now(), null));
+
+        // When
+        InterestingEvent result = interestingEventService.saveInterestingEvent("test-topic", "userId", "user123");
+
+        // Then
+        assertTrue(result.getIsCorrelated());
+        verify(correlationMatchSink, times(1)).emit(eq("test-topic"), eq("userId"), eq("user123"), any(Instant.class),
+            eq("{\"correlationId\":\"user123\"}"), any(Instant.class));
+        verifyNoInteractions(interestingEventRepository, pendingEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should delete an indexed event on match instead of updating it when its pair deletes on match")
+    void shouldDeleteIndexedEventOnMatch() {
+        // Given
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00Z");
+        when(correlationIndex.isEnabled()).thenReturn(true);
+        when(correlationMatchSink.deletesOnMatch("test-topic")).thenReturn(true);
+        when(correlationIndex.claimMostRecent("userId", "user123", null))
+            .thenReturn(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", createdAt));
+        when(interestingEventRepository.deleteUncorrelatedById(1L, "userId", "user123")).thenReturn(1);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+
+        // Then
+        verify(interestingEventRepository, never()).correlateById(anyLong(), anyString(), anyString(), anyString(),
+            any(Instant.class), anyString(), any(Instant.class));
+        verify(correlationMatchSink, times(1)).emit(eq("test-topic"), eq("userId"), eq("user123"), eq(createdAt),
+            eq("{\"correlationId\":\"user123\"}"), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should delete an event from the off-heap index on match, taking its pair from the row")
+    void shouldDeleteOffHeapEventOnMatch(@TempDir Path tempDir) throws Exception {
+        // Given: the off-heap store does not keep the topic of its events
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00.123456Z");
+        CorrelationIndex offHeapIndex = new CorrelationIndex(interestingEventRepository, true,
+            OffHeapPendingEventStore.open(tempDir.resolve("index.bin"), 1 << 14), null);
+        InterestingEventService service = new InterestingEventService(interestingEventRepository, pendingEventRepository,
+            offHeapIndex, orphanCorrelationBuffer, correlationLatencyRecorder, pendingKeyFilter, correlationMatchSink);
+        offHeapIndex.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", createdAt));
+        when(correlationMatchSink.deletesOnMatchForKey("userId")).thenReturn(true);
+        when(interestingEventRepository.findPendingById(1L, "userId", "user123"))
+            .thenReturn(List.<Object[]>of(new Object[]{"test-topic", createdAt}));
+        when(correlationMatchSink.deletesOnMatch("test-topic")).thenReturn(true);
+        when(interestingEventRepository.deleteUncorrelatedById(1L, "userId", "user123")).thenReturn(1);
+
+        // When
+        try {
+            service.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+        } finally {
+            offHeapIndex.close();
+        }
+
+        // Then
+        verify(interestingEventRepository, never()).correlateById(anyLong(), anyString(), anyString(), anyString(),
+            any(Instant.class), anyString(), any(Instant.class));
+        verify(correlationMatchSink, times(1)).emit(eq("test-topic"), eq("userId"), eq("user123"), eq(createdAt),
+            eq("{\"correlationId\":\"user123\"}"), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should claim an off-heap match by id and record its latency under the topic and creation time of its row")
+    void shouldRecordLatencyOfOffHeapMatch(@TempDir Path tempDir) throws Exception {
+        // Given: the off-heap store keeps neither the topic nor sub-millisecond creation times
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00.123456Z");
+        CorrelationIndex offHeapIndex = new CorrelationIndex(interestingEventRepository, true,
+            OffHeapPendingEventStore.open(tempDir.resolve("index.bin"), 1 << 14), null);
+        InterestingEventService service = new InterestingEventService(interestingEventRepository, pendingEventRepository,
+            offHeapIndex, orphanCorrelationBuffer, correlationLatencyRecorder, pendingKeyFilter, correlationMatchSink);
+        offHeapIndex.add(CorrelationIndex.Entry.persisted(1L, "test-topic", "userId", "user123", createdAt));
+        when(interestingEventRepository.claimById(eq(1L), eq("userId"), eq("user123"), anyString(), any(Instant.class)))
+            .thenReturn(new PendingEventClaims.ClaimedEvent(1L, "test-topic", createdAt));
+
+        // When
+        try {
+            service.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+        } finally {
+            offHeapIndex.close();
+        }
+
+        // Then
+        verify(interestingEventRepository, never()).findPendingById(anyLong(), anyString(), anyString());
+        verify(correlationLatencyRecorder, times(1)).record(eq("test-topic"), eq(createdAt), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should drop an event still queued for write-behind when its pair deletes on match")
+    void shouldDiscardQueuedEventOnDeleteOnMatch() {
+        // Given
+        InterestingEventWriteBehind.PendingEvent queued =
+            new InterestingEventWriteBehind.PendingEvent("test-topic", "userId", "user123", Instant.now());
+        when(correlationIndex.isEnabled()).thenReturn(true);
+        when(correlationMatchSink.deletesOnMatch("test-topic")).thenReturn(true);
+        when(correlationIndex.claimMostRecent("userId", "user123", null)).thenReturn(CorrelationIndex.Entry.queued(queued));
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+
+        // Then
+        assertTrue(queued.isDiscarded());
+        assertTrue(queued.result().isDone());
+        verifyNoInteractions(interestingEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should look up and delete the pending event when its pair deletes on match")
+    void shouldDeleteQueriedEventOnMatch() {
+        // Given
+        Instant createdAt = Instant.parse("2024-01-01T10:00:00Z");
+        when(correlationMatchSink.deletesOnMatchForKey("userId")).thenReturn(true);
+        when(correlationMatchSink.deletesOnMatch("test-topic")).thenReturn(true);
+        when(interestingEventRepository.findMostRecentForCorrelation(eq("userId"), eq("user123"), eq(Instant.EPOCH), any(Pageable.class)))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, "test-topic", createdAt}));
+        when(interestingEventRepository.deleteUncorrelatedById(1L, "userId", "user123")).thenReturn(1);
+
+        // When
+        interestingEventService.checkAndUpdateCorrelation("userId", "user123", "{\"correlationId\":\"user123\"}");
+
+        // Then
+        verify(interestingEventRepository, never()).correlateById(anyLong(), anyString(), anyString(), anyString(),
+            any(Instant.class), anyString(), any(Instant.class));
+        verify(correlationMatchSink, times(1)).emit(eq("test-topic"), eq("userId"), eq("user123"), eq(createdAt),
+            eq("{\"correlationId\":\"user123\"}"), any(Instant.class));
+        verify(correlationLatencyRecorder, times(1)).record(eq("test-topic"), eq(createdAt), any(Instant.class));
     }
 
     @Test
@@ -145,7 +530,7 @@ class InterestingEventServiceTest {
         String keyName = "userId";
         String keyValue = "user123";
         
-        when(interestingEventRepository.save(any(InterestingEvent.class)))
+        when(pendingEventRepository.save(any(PendingEvent.class)))
             .thenThrow(new RuntimeException("Database error"));
 
         // When & Then
@@ -153,7 +538,7 @@ class InterestingEventServiceTest {
             interestingEventService.saveInterestingEvent(topicName, keyName, keyValue);
         });
         
-        verify(interestingEventRepository, times(1)).save(any(InterestingEvent.class));
+        verify(pendingEventRepository, times(1)).save(any(PendingEvent.class));
     }
 
     @Test
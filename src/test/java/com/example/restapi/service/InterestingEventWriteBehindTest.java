@@ -0,0 +1,255 @@
+package com.example.restapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import com.example.restapi.repository.InterestingEventRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InterestingEventWriteBehind Unit Tests")
+class InterestingEventWriteBehindTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PersistenceBackpressure persistenceBackpressure;
+
+    @Mock
+    private InterestingEventRepository interestingEventRepository;
+
+    @Mock
+    private CorrelationMatchSink correlationMatchSink;
+
+    private CorrelationIndex correlationIndex;
+    private OrphanCorrelationBuffer orphanCorrelationBuffer;
+    private CorrelationLatencyRecorder latencyRecorder;
+    private PendingKeyFilter pendingKeyFilter;
+    private InterestingEventWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        correlationIndex = new CorrelationIndex(interestingEventRepository, true);
+        orphanCorrelationBuffer = new OrphanCorrelationBuffer(true, 100, Duration.ofMinutes(5), Clock.systemUTC());
+        latencyRecorder = new CorrelationLatencyRecorder(new SimpleMeterRegistry(), 60, 3);
+        pendingKeyFilter = new PendingKeyFilter(interestingEventRepository, correlationIndex, transactionManager, false, 1000, 0.01);
+        writeBehind = new InterestingEventWriteBehind(jdbcTemplate, transactionManager, persistenceBackpressure,
+            correlationIndex, orphanCorrelationBuffer, latencyRecorder, pendingKeyFilter, correlationMatchSink, false, 500, 5, 100, 1000);
+    }
+
+    /**
+     * Answer batch inserts like a driver would: run the setter for every row and return ids 1..n
+     */
+    private void stubBatchInsert(PreparedStatement ps) {
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+            .thenAnswer(invocation -> {
+                BatchPreparedStatementSetter setter = invocation.getArgument(1);
+                KeyHolder keyHolder = invocation.getArgument(2);
+                for (int i = 0; i < setter.getBatchSize(); i++) {
+                    setter.setValues(ps, i);
+                    keyHolder.getKeyList().add(Map.of("ID", (long) i + 1));
+                }
+                return new int[setter.getBatchSize()];
+            });
+    }
+
+    private void verifyMovedToCorrelated(Long id, String correlatedMessage) {
+        verify(jdbcTemplate).batchUpdate(eq(InterestingEventWriteBehind.CORRELATED_INSERT_SQL), ArgumentMatchers.<List<Object[]>>argThat(
+            rows -> rows.size() == 1 && id.equals(rows.get(0)[0]) && correlatedMessage.equals(rows.get(0)[5])));
+        verify(jdbcTemplate).batchUpdate(eq(InterestingEventWriteBehind.PENDING_DELETE_SQL), ArgumentMatchers.<List<Object[]>>argThat(
+            ids -> ids.size() == 1 && id.equals(ids.get(0)[0])));
+    }
+
+    private static List<InterestingEventWriteBehind.PendingEvent> events(String... values) {
+        return Arrays.stream(values)
+            .map(value -> new InterestingEventWriteBehind.PendingEvent("test-topic", "userId", value, Instant.now()))
+            .toList();
+    }
+
+    @Test
+    @DisplayName("Should insert a batch in one JDBC batch and complete every event")
+    void shouldFlushBatchInOneJdbcBatch() {
+        // Given
+        List<InterestingEventWriteBehind.PendingEvent> batch = events("user-1", "user-2", "user-3");
+        stubBatchInsert(mock(PreparedStatement.class));
+
+        // When
+        writeBehind.flush(batch);
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        verify(transactionManager, times(1)).commit(any());
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        verify(jdbcTemplate, never()).batchUpdate(eq(InterestingEventWriteBehind.CORRELATED_INSERT_SQL), anyList());
+        batch.forEach(event -> assertTrue(event.result().isDone() && !event.result().isCompletedExceptionally()));
+        assertEquals(List.of(1L, 2L, 3L), batch.stream().map(InterestingEventWriteBehind.PendingEvent::id).toList());
+        assertEquals(1L, writeBehind.getStatus().get("flushes"));
+        assertEquals(3L, writeBehind.getStatus().get("writtenEvents"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to per-event inserts when the batch fails")
+    void shouldFallBackToPerEventInserts() {
+        // Given
+        List<InterestingEventWriteBehind.PendingEvent> batch = events("user-1", "bad-row");
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+            .thenThrow(new RuntimeException("Batch failed"));
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+            .thenReturn(1)
+            .thenThrow(new RuntimeException("Value too long"));
+
+        // When
+        writeBehind.flush(batch);
+
+        // Then
+        CompletableFuture<Void> good = batch.get(0).result();
+        CompletableFuture<Void> bad = batch.get(1).result();
+        assertTrue(good.isDone() && !good.isCompletedExceptionally());
+        assertTrue(bad.isCompletedExceptionally());
+        assertEquals(1L, writeBehind.getStatus().get("writtenEvents"));
+        assertEquals(1L, writeBehind.getStatus().get("failedEvents"));
+    }
+
+    @Test
+    @DisplayName("Should move an event correlated while still queued to the correlated events with its insert")
+    void shouldInsertQueuedCorrelationWithEvent() throws Exception {
+        // Given
+        List<InterestingEventWriteBehind.PendingEvent> batch = events("user-1");
+        PreparedStatement ps = mock(PreparedStatement.class);
+        stubBatchInsert(ps);
+        assertTrue(batch.get(0).correlate("{\"userId\":\"user-1\"}", Instant.now()));
+
+        // When
+        writeBehind.flush(batch);
+
+        // Then
+        verify(ps).setString(3, "user-1");
+        verifyMovedToCorrelated(1L, "{\"userId\":\"user-1\"}");
+        verify(transactionManager, times(1)).commit(any());
+        assertFalse(batch.get(0).correlate("too late", Instant.now()));
+    }
+
+    @Test
+    @DisplayName("Should park the correlation attached to a queued event again when its insert fails")
+    void shouldParkQueuedCorrelationWhenInsertFails() {
+        // Given
+        List<InterestingEventWriteBehind.PendingEvent> batch = events("user-1");
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+            .thenThrow(new RuntimeException("Batch failed"));
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+            .thenThrow(new RuntimeException("Database down"));
+        Instant correlatedAt = Instant.parse("2024-01-01T10:00:00Z");
+        assertTrue(batch.get(0).correlate("{\"userId\":\"user-1\"}", correlatedAt));
+
+        // When
+        writeBehind.flush(batch);
+
+        // Then: the next insert for the key picks the correlated message up
+        assertTrue(batch.get(0).result().isCompletedExceptionally());
+        OrphanCorrelationBuffer.Orphan orphan = orphanCorrelationBuffer.claim("userId", "user-1");
+        assertNotNull(orphan);
+        assertEquals("{\"userId\":\"user-1\"}", orphan.correlatedMessage());
+        assertEquals(correlatedAt, orphan.correlatedAt());
+    }
+
+    @Test
+    @DisplayName("Should not insert an event dropped on match while still queued")
+    void shouldSkipDiscardedEventsInBatch() throws Exception {
+        // Given
+        List<InterestingEventWriteBehind.PendingEvent> batch = events("user-1", "user-2");
+        PreparedStatement ps = mock(PreparedStatement.class);
+        stubBatchInsert(ps);
+        assertTrue(batch.get(0).discard());
+
+        // When
+        writeBehind.flush(batch);
+
+        // Then
+        verify(ps, times(1)).setString(3, "user-2");
+        verify(ps, never()).setString(3, "user-1");
+        assertEquals(1L, writeBehind.getStatus().get("writtenEvents"));
+        assertTrue(batch.get(0).result().isDone() && !batch.get(0).result().isCompletedExceptionally());
+        assertFalse(batch.get(1).discard());
+    }
+
+    @Test
+    @DisplayName("Should reject events when write-behind is not running")
+    void shouldRejectEventsWhenNotRunning() {
+        // When
+        CompletableFuture<Void> result = writeBehind.enqueue("test-topic", "userId", "user-1");
+
+        // Then
+        assertTrue(result.isCompletedExceptionally());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should group events queued by several threads into a committed flush")
+    void shouldGroupCommitQueuedEvents() throws Exception {
+        // Given
+        InterestingEventWriteBehind running = new InterestingEventWriteBehind(jdbcTemplate, transactionManager,
+            persistenceBackpressure, correlationIndex, orphanCorrelationBuffer, latencyRecorder, pendingKeyFilter, correlationMatchSink, true, 500, 50, 100, 1000);
+        stubBatchInsert(mock(PreparedStatement.class));
+        running.start();
+
+        // When
+        CompletableFuture<Void> first = CompletableFuture.supplyAsync(() -> running.enqueue("test-topic", "userId", "user-1")).join();
+        CompletableFuture<Void> second = CompletableFuture.supplyAsync(() -> running.enqueue("test-topic", "userId", "user-2")).join();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        running.shutdown();
+
+        // Then
+        assertEquals(2L, running.getStatus().get("writtenEvents"));
+        assertEquals(2, correlationIndex.size());
+        assertNotNull(correlationIndex.claimMostRecent("userId", "user-1").id());
+        verify(persistenceBackpressure, atLeastOnce()).recordLatency(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should queue an event already correlated when its correlated message arrived first")
+    void shouldQueueEventCorrelatedWithWaitingOrphan() throws Exception {
+        // Given
+        InterestingEventWriteBehind running = new InterestingEventWriteBehind(jdbcTemplate, transactionManager,
+            persistenceBackpressure, correlationIndex, orphanCorrelationBuffer, latencyRecorder, pendingKeyFilter, correlationMatchSink, true, 500, 5, 100, 1000);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        stubBatchInsert(ps);
+        orphanCorrelationBuffer.park("userId", "user-1", "{\"userId\":\"user-1\"}");
+        running.start();
+
+        // When
+        running.enqueue("test-topic", "userId", "user-1").get(5, TimeUnit.SECONDS);
+        running.shutdown();
+
+        // Then
+        verifyMovedToCorrelated(1L, "{\"userId\":\"user-1\"}");
+        assertEquals(0, orphanCorrelationBuffer.size());
+        assertNull(correlationIndex.claimMostRecent("userId", "user-1"));
+    }
+}
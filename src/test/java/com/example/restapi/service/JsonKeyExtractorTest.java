@@ -0,0 +1,146 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JsonKeyExtractor Unit Tests")
+class JsonKeyExtractorTest {
+
+    private final JsonKeyExtractor jsonKeyExtractor = new JsonKeyExtractor();
+
+    @Test
+    @DisplayName("Should extract top-level string field")
+    void shouldExtractTopLevelStringField() throws IOException {
+        // Given
+        String message = "{\"userId\":\"user123\",\"message\":\"Test message\"}";
+
+        // When & Then
+        assertEquals("user123", jsonKeyExtractor.extract(message, "userId"));
+    }
+
+    @Test
+    @DisplayName("Should skip nested fields with the same name")
+    void shouldSkipNestedFieldsWithSameName() throws IOException {
+        // Given
+        String message = "{\"payload\":{\"userId\":\"nested\",\"items\":[{\"userId\":\"deeper\"}]},\"userId\":\"top\"}";
+
+        // When & Then
+        assertEquals("top", jsonKeyExtractor.extract(message, "userId"));
+    }
+
+    @Test
+    @DisplayName("Should return scalar values as text")
+    void shouldReturnScalarValuesAsText() throws IOException {
+        // Given
+        String message = "{\"id\":12345,\"active\":true,\"missing\":null}";
+
+        // When & Then
+        assertEquals("12345", jsonKeyExtractor.extract(message, "id"));
+        assertEquals("true", jsonKeyExtractor.extract(message, "active"));
+        assertEquals("null", jsonKeyExtractor.extract(message, "missing"));
+    }
+
+    @Test
+    @DisplayName("Should return empty text for object and array values")
+    void shouldReturnEmptyTextForContainerValues() throws IOException {
+        // Given
+        String message = "{\"user\":{\"id\":1},\"tags\":[1,2]}";
+
+        // When & Then
+        assertEquals("", jsonKeyExtractor.extract(message, "user"));
+        assertEquals("", jsonKeyExtractor.extract(message, "tags"));
+    }
+
+    @Test
+    @DisplayName("Should return null when field is absent or message is not an object")
+    void shouldReturnNullWhenFieldAbsent() throws IOException {
+        // When & Then
+        assertNull(jsonKeyExtractor.extract("{\"other\":\"value\"}", "userId"));
+        assertNull(jsonKeyExtractor.extract("[{\"userId\":\"user123\"}]", "userId"));
+        assertNull(jsonKeyExtractor.extract("\"userId\"", "userId"));
+        assertNull(jsonKeyExtractor.extract("", "userId"));
+    }
+
+    @Test
+    @DisplayName("Should fail on malformed JSON before the key")
+    void shouldFailOnMalformedJsonBeforeKey() {
+        // When & Then
+        assertThrows(IOException.class, () -> jsonKeyExtractor.extract("{\"a\":tru", "userId"));
+    }
+
+    @Test
+    @DisplayName("Should extract field straight from UTF-8 bytes")
+    void shouldExtractFieldFromUtf8Bytes() throws IOException {
+        // Given
+        byte[] message = "{\"note\":\"caf\u00e9\",\"userId\":\"us\u00e9r-\u00fc123\"}".getBytes(StandardCharsets.UTF_8);
+
+        // When & Then
+        assertEquals("us\u00e9r-\u00fc123", jsonKeyExtractor.extract(message, "userId"));
+        assertNull(jsonKeyExtractor.extract(message, "missing"));
+    }
+
+    @Test
+    @DisplayName("Should extract nested value with JSON Pointer")
+    void shouldExtractNestedValueWithJsonPointer() throws IOException {
+        // Given
+        String message = "{\"body\":{\"requestId\":\"wrong\"},\"header\":{\"source\":\"api\",\"trace\":{\"spans\":[1,2],\"requestId\":\"req-42\"}}}";
+
+        // When & Then
+        assertEquals("req-42", jsonKeyExtractor.extract(message, KeyPath.compile("/header/trace/requestId")));
+        assertNull(jsonKeyExtractor.extract(message, KeyPath.compile("/header/missing/requestId")));
+        assertNull(jsonKeyExtractor.extract(message, KeyPath.compile("/header/source/requestId")));
+    }
+
+    @Test
+    @DisplayName("Should extract array element with JSON Pointer")
+    void shouldExtractArrayElementWithJsonPointer() throws IOException {
+        // Given
+        String message = "{\"items\":[{\"sku\":\"A\"},{\"sku\":\"B\",\"tags\":[\"x\"]},{\"sku\":\"C\"}]}";
+
+        // When & Then
+        assertEquals("C", jsonKeyExtractor.extract(message, KeyPath.compile("/items/2/sku")));
+        assertNull(jsonKeyExtractor.extract(message, KeyPath.compile("/items/3/sku")));
+        assertNull(jsonKeyExtractor.extract(message, KeyPath.compile("/items/first/sku")));
+    }
+
+    @Test
+    @DisplayName("Should extract every path of a set from one pass")
+    void shouldExtractEveryPathOfSetInOnePass() throws IOException {
+        // Given
+        String message = "{\"userId\":\"user123\",\"order\":{\"id\":\"o-1\",\"lines\":[{\"sku\":\"A\"},{\"sku\":\"B\"}]},"
+            + "\"payload\":{\"userId\":\"nested\"}}";
+        KeyPathSet keyPaths = KeyPathSet.of(List.of(
+            KeyPath.compile("userId"), KeyPath.compile("/order/id"), KeyPath.compile("/order/lines/1/sku"),
+            KeyPath.compile("/order"), KeyPath.compile("/order/missing"), KeyPath.compile("userId")));
+
+        // When
+        String[] values = jsonKeyExtractor.extractAll(message, keyPaths);
+
+        // Then
+        assertArrayEquals(new String[] {"user123", "o-1", "B", "", null, "user123"}, values);
+        assertArrayEquals(values, jsonKeyExtractor.extractAll(message.getBytes(StandardCharsets.UTF_8), keyPaths));
+    }
+
+    @Test
+    @DisplayName("Should match single path extraction for every path of a set")
+    void shouldMatchSinglePathExtraction() throws IOException {
+        // Given
+        String message = "[{\"id\":7,\"tags\":[\"x\",\"y\"]},{\"0\":\"field\"}]";
+        List<KeyPath> paths = List.of(KeyPath.compile("/0/id"), KeyPath.compile("/0/tags/1"), KeyPath.compile("/1/0"),
+            KeyPath.compile("/2"), KeyPath.compile("id"));
+
+        // When
+        String[] values = jsonKeyExtractor.extractAll(message, KeyPathSet.of(paths));
+
+        // Then
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(jsonKeyExtractor.extract(message, paths.get(i)), values[i], paths.get(i).toString());
+        }
+    }
+}
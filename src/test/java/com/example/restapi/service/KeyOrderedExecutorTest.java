@@ -0,0 +1,105 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("KeyOrderedExecutor Unit Tests")
+class KeyOrderedExecutorTest {
+
+    private KeyOrderedExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new KeyOrderedExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should run tasks for the same key in submission order")
+    void shouldRunTasksForSameKeyInOrder() throws Exception {
+        // Given
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        CompletableFuture<Void> first = executor.submit("user-1", () -> {
+            await(release);
+            executed.add(1);
+        });
+        CompletableFuture<Void> second = executor.submit("user-1", () -> executed.add(2));
+        CompletableFuture<Void> third = executor.submit("user-1", () -> executed.add(3));
+        release.countDown();
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(List.of(1, 2, 3), executed);
+    }
+
+    @Test
+    @DisplayName("Should not block other keys while a key is busy")
+    void shouldRunDifferentKeysInParallel() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocked = executor.submit("user-1", () -> await(release));
+
+        // When
+        CompletableFuture<Void> other = executor.submit("user-2", () -> { });
+
+        // Then
+        other.get(5, TimeUnit.SECONDS);
+        assertFalse(blocked.isDone());
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should keep running tasks for a key after a failure and release idle keys")
+    void shouldContinueAfterFailure() throws Exception {
+        // Given
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        // When
+        CompletableFuture<Void> failing = executor.submit("user-1", () -> {
+            throw new IllegalStateException("Database error");
+        });
+        CompletableFuture<Void> next = executor.submit("user-1", () -> executed.add("next"));
+        next.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(failing.isCompletedExceptionally());
+        assertEquals(List.of("next"), executed);
+        waitUntilIdle();
+        assertEquals(0, executor.inFlight());
+        assertEquals(0, executor.activeKeys());
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((executor.inFlight() > 0 || executor.activeKeys() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("KeyPath Unit Tests")
+class KeyPathTest {
+
+    @Test
+    @DisplayName("Should treat plain names as a single top-level field")
+    void shouldTreatPlainNamesAsTopLevelField() {
+        // When
+        KeyPath keyPath = KeyPath.compile("user.id");
+
+        // Then
+        assertEquals(1, keyPath.depth());
+        assertEquals("user.id", keyPath.segment(0));
+        assertEquals(-1, keyPath.index(0));
+    }
+
+    @Test
+    @DisplayName("Should compile JSON Pointer into segments")
+    void shouldCompileJsonPointerIntoSegments() {
+        // When
+        KeyPath keyPath = KeyPath.compile("/header/trace/requestId");
+
+        // Then
+        assertEquals(List.of("header", "trace", "requestId"), keyPath.segments());
+        assertEquals("/header/trace/requestId", keyPath.getExpression());
+    }
+
+    @Test
+    @DisplayName("Should resolve array indexes and escape sequences")
+    void shouldResolveArrayIndexesAndEscapes() {
+        // When
+        KeyPath keyPath = KeyPath.compile("/items/10/a~1b~0c/01");
+
+        // Then
+        assertEquals(List.of("items", "10", "a/b~c", "01"), keyPath.segments());
+        assertEquals(-1, keyPath.index(0));
+        assertEquals(10, keyPath.index(1));
+        assertEquals(-1, keyPath.index(3));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed JSON Pointer")
+    void shouldRejectMalformedJsonPointer() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> KeyPath.compile("/header/~2"));
+        assertThrows(IllegalArgumentException.class, () -> KeyPath.compile("/header~"));
+        assertThrows(IllegalArgumentException.class, () -> KeyPath.compile(null));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OffHeapPendingEventStore Unit Tests")
+class OffHeapPendingEventStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should claim the most recent event of a key and keep colliding probes intact")
+    void shouldClaimMostRecentAndKeepProbesIntact() throws Exception {
+        try (OffHeapPendingEventStore store = OffHeapPendingEventStore.open(tempDir.resolve("index.bin"), 1 << 14)) {
+            // Given
+            long hash = OffHeapPendingEventStore.keyHash("userId", "user123");
+            store.add(hash, 1L, 1000L);
+            store.add(hash, 2L, 3000L);
+            store.add(hash, 3L, 2000L);
+
+            // When
+            OffHeapPendingEventStore.Claimed first = store.claimMostRecent(hash);
+            boolean removed = store.remove(hash, 1L);
+
+            // Then
+            assertEquals(new OffHeapPendingEventStore.Claimed(2L, 3000L), first);
+            assertTrue(removed);
+            assertEquals(3L, store.claimMostRecent(hash).id());
+            assertNull(store.claimMostRecent(hash));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should match a reference map through random adds, claims and removes")
+    void shouldMatchReferenceUnderRandomOperations() throws Exception {
+        try (OffHeapPendingEventStore store = OffHeapPendingEventStore.open(tempDir.resolve("index.bin"), 1 << 14)) {
+            // Given: few distinct keys, so probe runs overlap and deletions shift entries back
+            Random random = new Random(42);
+            Map<Long, List<Long>> reference = new HashMap<>();
+            long nextId = 1;
+
+            // When & Then
+            for (int i = 0; i < 20000; i++) {
+                long hash = OffHeapPendingEventStore.keyHash("userId", "user-" + random.nextInt(500));
+                List<Long> ids = reference.computeIfAbsent(hash, h -> new ArrayList<>());
+                int operation = random.nextInt(3);
+                if (operation == 0 || ids.isEmpty()) {
+                    assertTrue(store.add(hash, nextId, nextId));
+                    ids.add(nextId++);
+                } else if (operation == 1) {
+                    assertEquals(ids.remove(ids.size() - 1), store.claimMostRecent(hash).id());
+                } else {
+                    Long id = ids.remove(random.nextInt(ids.size()));
+                    assertTrue(store.remove(hash, id));
+                }
+            }
+            assertEquals(reference.values().stream().mapToLong(List::size).sum(), store.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should restore pending events after a clean close and discard them otherwise")
+    void shouldRestoreOnlyAfterCleanClose() throws Exception {
+        // Given
+        Path file = tempDir.resolve("index.bin");
+        long hash = OffHeapPendingEventStore.keyHash("userId", "user123");
+        try (OffHeapPendingEventStore store = OffHeapPendingEventStore.open(file, 1 << 14)) {
+            store.add(hash, 7L, 1000L);
+        }
+
+        // When
+        OffHeapPendingEventStore restored = OffHeapPendingEventStore.open(file, 1 << 14);
+        OffHeapPendingEventStore.Claimed claimed = restored.claimMostRecent(hash);
+        restored.add(hash, 8L, 2000L);
+        // Not closed: simulates a crash, so the file must not be trusted on the next start
+        OffHeapPendingEventStore afterCrash = OffHeapPendingEventStore.open(file, 1 << 14);
+
+        // Then
+        assertTrue(restored.isRestored());
+        assertEquals(7L, claimed.id());
+        assertFalse(afterCrash.isRestored());
+        assertEquals(0, afterCrash.size());
+        afterCrash.close();
+    }
+}
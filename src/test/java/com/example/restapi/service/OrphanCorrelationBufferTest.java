@@ -0,0 +1,121 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrphanCorrelationBuffer Unit Tests")
+class OrphanCorrelationBufferTest {
+
+    private MutableClock clock;
+    private OrphanCorrelationBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        buffer = new OrphanCorrelationBuffer(true, 3, Duration.ofSeconds(60), clock);
+    }
+
+    @Test
+    @DisplayName("Should hand out parked messages of a key oldest first")
+    void shouldClaimOldestMessageOfKey() {
+        // Given
+        buffer.park("userId", "user123", "first");
+        clock.advance(Duration.ofSeconds(1));
+        buffer.park("userId", "user123", "second");
+
+        // When / Then
+        assertEquals("first", buffer.claim("userId", "user123").correlatedMessage());
+        assertEquals("second", buffer.claim("userId", "user123").correlatedMessage());
+        assertNull(buffer.claim("userId", "user123"));
+        assertEquals(2L, buffer.getStatus().get("matched"));
+    }
+
+    @Test
+    @DisplayName("Should drop parked messages once their TTL has passed")
+    void shouldExpireMessagesAfterTtl() {
+        // Given
+        buffer.park("userId", "user123", "stale");
+        clock.advance(Duration.ofSeconds(30));
+        buffer.park("userId", "user456", "fresh");
+
+        // When
+        clock.advance(Duration.ofSeconds(31));
+        buffer.expireOrphans();
+
+        // Then
+        assertNull(buffer.claim("userId", "user123"));
+        assertEquals("fresh", buffer.claim("userId", "user456").correlatedMessage());
+        assertEquals(1L, buffer.getStatus().get("expired"));
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest parked message of the stripe when full, claimed ones being already gone")
+    void shouldEvictOldestWhenFull() {
+        // Given: one key, so every message lands on the same stripe
+        buffer.park("userId", "user-1", "one");
+        buffer.park("userId", "user-1", "two");
+        buffer.park("userId", "user-1", "three");
+        assertEquals("one", buffer.claim("userId", "user-1").correlatedMessage());
+        buffer.park("userId", "user-1", "four");
+
+        // When
+        buffer.park("userId", "user-1", "five");
+
+        // Then
+        assertEquals(3, buffer.size());
+        assertEquals("three", buffer.claim("userId", "user-1").correlatedMessage());
+        assertEquals("four", buffer.claim("userId", "user-1").correlatedMessage());
+        assertEquals("five", buffer.claim("userId", "user-1").correlatedMessage());
+        assertEquals(1L, buffer.getStatus().get("evicted"));
+    }
+
+    @Test
+    @DisplayName("Should never hold more than max-size messages across stripes")
+    void shouldBoundSizeAcrossStripes() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            buffer.park("userId", "user-" + i, "message-" + i);
+        }
+
+        // Then
+        assertEquals(3, buffer.size());
+        assertEquals(97L, buffer.getStatus().get("evicted"));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
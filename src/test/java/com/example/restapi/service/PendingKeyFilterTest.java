@@ -0,0 +1,107 @@
+package com.example.restapi.service;
+
+import com.example.restapi.repository.InterestingEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PendingKeyFilter Unit Tests")
+class PendingKeyFilterTest {
+
+    @Mock
+    private InterestingEventRepository interestingEventRepository;
+
+    @Mock
+    private CorrelationIndex correlationIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PendingKeyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new PendingKeyFilter(interestingEventRepository, correlationIndex, transactionManager, true, 10_000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should never miss a pending key and reject most unknown ones")
+    void shouldHaveNoFalseNegativesAndFewFalsePositives() {
+        // Given
+        when(interestingEventRepository.streamUncorrelatedKeys())
+            .thenReturn(Stream.<Object[]>of(new Object[]{"userId", "loaded"}));
+        filter.load();
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("userId", "user-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("userId", "other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertTrue(filter.mightContain("userId", "loaded"));
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("userId", "user-" + i));
+        }
+        assertFalse(filter.mightContain("orderId", "user-1"));
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        Map<String, Object> status = filter.getStatus();
+        assertEquals(20_002L, status.get("lookups"));
+    }
+
+    @Test
+    @DisplayName("Should drop correlated keys on rebuild but keep keys added while the table was read")
+    void shouldDropCorrelatedKeysOnRebuild() {
+        // Given
+        when(interestingEventRepository.streamUncorrelatedKeys()).thenAnswer(invocation -> Stream.empty());
+        filter.load();
+        filter.add("userId", "correlated");
+        filter.rebuild();
+        when(interestingEventRepository.streamUncorrelatedKeys()).thenAnswer(invocation -> {
+            // An insert racing the rebuild, not yet visible to the query
+            filter.add("userId", "in-flight");
+            return Stream.empty();
+        });
+
+        // When
+        filter.rebuild();
+
+        // Then
+        assertFalse(filter.mightContain("userId", "correlated"));
+        assertTrue(filter.mightContain("userId", "in-flight"));
+    }
+
+    @Test
+    @DisplayName("Should neither fill nor rebuild the filters while the correlation index matches, and let every key through")
+    void shouldStayIdleWhileCorrelationIndexIsEnabled() {
+        // Given
+        when(correlationIndex.isEnabled()).thenReturn(true);
+
+        // When
+        filter.load();
+        filter.add("userId", "user-1");
+        filter.rebuild();
+
+        // Then
+        verifyNoInteractions(interestingEventRepository, transactionManager);
+        assertTrue(filter.mightContain("userId", "never-seen"));
+        assertEquals(false, filter.getStatus().get("built"));
+        assertTrue(((Map<?, ?>) filter.getStatus().get("filters")).isEmpty());
+    }
+}
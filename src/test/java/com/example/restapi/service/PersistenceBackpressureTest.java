@@ -0,0 +1,111 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PersistenceBackpressure Unit Tests")
+class PersistenceBackpressureTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private PersistenceBackpressure backpressure;
+
+    @BeforeEach
+    void setUp() {
+        KafkaTopicConfig.BackpressureConfig config = new KafkaTopicConfig.BackpressureConfig();
+        config.setLatencyHighWaterMs(100);
+        config.setLatencyLowWaterMs(20);
+        config.setPendingHighWater(10);
+        config.setPendingLowWater(2);
+        backpressure = new PersistenceBackpressure(config, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should overload on high database latency and recover below the low water mark")
+    void shouldApplyLatencyHysteresis() {
+        // Given
+        backpressure.persistenceStarted("test-topic");
+        backpressure.recordLatency(TimeUnit.MILLISECONDS.toNanos(500));
+        backpressure.persistenceFinished("test-topic");
+
+        // When & Then
+        assertTrue(backpressure.evaluate());
+
+        // Latency between the water marks keeps the current state
+        for (int i = 0; i < 20; i++) {
+            backpressure.recordLatency(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertTrue(backpressure.evaluate());
+
+        for (int i = 0; i < 20; i++) {
+            backpressure.recordLatency(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertFalse(backpressure.evaluate());
+    }
+
+    @Test
+    @DisplayName("Should overload on pending work")
+    void shouldOverloadOnPendingWork() {
+        // Given
+        for (int i = 0; i < 11; i++) {
+            backpressure.persistenceStarted("test-topic");
+        }
+
+        // When & Then
+        assertTrue(backpressure.evaluate());
+        assertEquals(11, backpressure.pending());
+
+        for (int i = 0; i < 11; i++) {
+            backpressure.persistenceFinished("test-topic");
+        }
+        assertFalse(backpressure.evaluate());
+    }
+
+    @Test
+    @DisplayName("Should decay the latency average when no database calls are made")
+    void shouldDecayLatencyWhileIdle() {
+        // Given
+        backpressure.recordLatency(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(backpressure.evaluate());
+
+        // When: everything is paused, so no new latency samples arrive
+        boolean overloaded = true;
+        for (int i = 0; i < 10 && overloaded; i++) {
+            overloaded = backpressure.evaluate();
+        }
+
+        // Then
+        assertFalse(overloaded);
+    }
+
+    @Test
+    @DisplayName("Should account pause time per topic")
+    @SuppressWarnings("unchecked")
+    void shouldAccountPauseTimePerTopic() {
+        // Given
+        backpressure.persistenceStarted("test-topic");
+        assertTrue(backpressure.isActive("test-topic"));
+        assertFalse(backpressure.isActive("idle-topic"));
+
+        // When
+        backpressure.setTopicPaused("test-topic", true);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        backpressure.setTopicPaused("test-topic", false);
+        backpressure.setTopicPaused("test-topic", true);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // Then
+        Map<String, Object> topic = (Map<String, Object>) ((Map<String, Object>) backpressure.getStatus().get("topics")).get("test-topic");
+        assertEquals(true, topic.get("paused"));
+        assertEquals(2, topic.get("pauseCount"));
+        assertEquals(2000L, topic.get("totalPausedMs"));
+        assertEquals(1, topic.get("pendingRecords"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.restapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShardedCorrelationEngine Unit Tests")
+class ShardedCorrelationEngineTest {
+
+    private ShardedCorrelationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ShardedCorrelationEngine(4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should run every task for a key on the same shard thread in submission order")
+    void shouldSerialiseTasksForSameKeyOnOneThread() throws Exception {
+        // Given
+        List<Integer> executed = new ArrayList<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+
+        // When: no lock around the list, the shard is its only writer
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            results.add(engine.submit("userId", "user-1", () -> {
+                threads.add(Thread.currentThread().getName());
+                executed.add(sequence);
+                return CompletableFuture.completedFuture(null);
+            }));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1, threads.size());
+        assertEquals(1000, executed.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete only when the task's own future completes")
+    void shouldCompleteWithTaskFuture() throws Exception {
+        // Given
+        CompletableFuture<Void> insert = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<Void> result = engine.submit("userId", "user-1", () -> insert);
+        engine.submit("userId", "user-1", () -> CompletableFuture.completedFuture(null)).get(5, TimeUnit.SECONDS);
+
+        // Then: the shard moved on while the first task's future is still pending
+        assertFalse(result.isDone());
+        insert.complete(null);
+        result.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should spread keys across shards and surface task failures")
+    void shouldSpreadKeysAndSurfaceFailures() {
+        // Given
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            usedShards.add(engine.shardOf("userId", "user-" + i));
+        }
+
+        // When
+        CompletableFuture<Void> failed = engine.submit("userId", "user-1", () -> {
+            throw new IllegalStateException("Database error");
+        });
+
+        // Then
+        assertEquals(4, usedShards.size());
+        assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals(4, engine.getStatus().get("shards"));
+    }
+
+    @Test
+    @DisplayName("Should start no shard thread until the first sharded pair registers or submits")
+    void shouldStartShardsLazily() throws Exception {
+        // Given
+        ShardedCorrelationEngine idle = new ShardedCorrelationEngine(2);
+
+        try {
+            // Then
+            assertFalse(idle.isStarted());
+            assertEquals(false, idle.getStatus().get("started"));
+            assertEquals(2, idle.getStatus().get("shards"));
+
+            // When
+            idle.submit("userId", "user-1", () -> CompletableFuture.completedFuture(null)).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertTrue(idle.isStarted());
+            assertEquals(2, ((List<?>) idle.getStatus().get("shardStatus")).size());
+        } finally {
+            idle.shutdown();
+        }
+        assertThrows(IllegalStateException.class,
+            () -> idle.submit("userId", "user-1", () -> CompletableFuture.completedFuture(null)));
+    }
+}
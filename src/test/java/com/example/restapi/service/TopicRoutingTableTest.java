@@ -0,0 +1,172 @@
+package com.example.restapi.service;
+
+import com.example.restapi.config.KafkaTopicConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TopicRoutingTable Unit Tests")
+class TopicRoutingTableTest {
+
+    private static KafkaTopicConfig.TopicConfig topicConfig(String name, String correlatedTopic, String consumerGroup) {
+        KafkaTopicConfig.TopicConfig topicConfig = new KafkaTopicConfig.TopicConfig();
+        topicConfig.setName(name);
+        topicConfig.setCorrelatedTopic(correlatedTopic);
+        topicConfig.setConsumerGroup(consumerGroup);
+        topicConfig.setKeyOfInterest("userId");
+        topicConfig.setCorrelatedKeyOfInterest("correlationId");
+        return topicConfig;
+    }
+
+    @Test
+    @DisplayName("Should resolve main and correlated routes for a topic pair")
+    void shouldResolveMainAndCorrelatedRoutes() {
+        // Given
+        TopicRoutingTable table = new TopicRoutingTable(List.of(
+            topicConfig("test-topic", "test-topic-correlated", "test-consumer-group")));
+
+        // When
+        TopicRoute main = table.route("test-topic");
+        TopicRoute correlated = table.route("test-topic-correlated");
+
+        // Then
+        assertEquals(2, table.size());
+        assertEquals(TopicRoute.Role.MAIN, main.getRole());
+        assertEquals("userId", main.getKeyName());
+        assertEquals("userId", main.getOriginalKeyName());
+        assertEquals("test-consumer-group", main.getConsumerGroup());
+
+        assertEquals(TopicRoute.Role.CORRELATED, correlated.getRole());
+        assertEquals("correlationId", correlated.getKeyName());
+        assertEquals("userId", correlated.getOriginalKeyName());
+        assertEquals("test-consumer-group-correlated", correlated.getConsumerGroup());
+    }
+
+    @Test
+    @DisplayName("Should resolve a stage route for every topic of a correlation chain")
+    void shouldResolveStageRoutesForChain() {
+        // Given
+        KafkaTopicConfig.TopicConfig chain = topicConfig("orders", "payments", "orders-group");
+        KafkaTopicConfig.StageConfig shipments = new KafkaTopicConfig.StageConfig();
+        shipments.setTopic("shipments");
+        shipments.setKeyOfInterest("/order/id");
+        chain.setNextStages(List.of(shipments));
+
+        // When
+        TopicRoutingTable table = new TopicRoutingTable(List.of(chain));
+
+        // Then
+        assertEquals(3, table.size());
+        assertEquals(List.of(0, 1, 2), List.of(table.route("orders").getStageIndex(),
+            table.route("payments").getStageIndex(), table.route("shipments").getStageIndex()));
+        TopicRoute stage = table.route("shipments");
+        assertEquals(TopicRoute.Role.STAGE, stage.getRole());
+        assertEquals("/order/id", stage.getKeyName());
+        assertEquals("userId", stage.getOriginalKeyName());
+        assertEquals("orders-group-stage-2", stage.getConsumerGroup());
+        assertEquals("correlationId", table.route("payments").getKeyName());
+    }
+
+    @Test
+    @DisplayName("Should return null for unknown topic")
+    void shouldReturnNullForUnknownTopic() {
+        // Given
+        TopicRoutingTable table = new TopicRoutingTable(List.of(
+            topicConfig("test-topic", "test-topic-correlated", "test-consumer-group")));
+
+        // When & Then
+        assertNull(table.route("unknown-topic"));
+    }
+
+    @Test
+    @DisplayName("Should keep a rule per configuration when a topic is referenced twice")
+    void shouldKeepEveryRuleForDuplicateTopic() {
+        // Given
+        TopicRoutingTable table = new TopicRoutingTable(Arrays.asList(
+            topicConfig("orders", "payments", "orders-group"),
+            topicConfig("payments", "shipments", "payments-group")));
+
+        // When
+        TopicRules rules = table.rules("payments");
+
+        // Then
+        assertEquals(4, table.size());
+        assertEquals(2, rules.getRoutes().size());
+        assertEquals(TopicRoute.Role.CORRELATED, table.route("payments").getRole());
+        assertEquals("orders-group-correlated", table.route("payments").getConsumerGroup());
+        assertEquals(TopicRoute.Role.MAIN, rules.getRoutes().get(1).getRole());
+        assertEquals("orders", table.owner("payments").getName());
+        assertEquals("payments", table.owner("shipments").getName());
+
+        // Both rules extract their key from one pass over the record
+        assertEquals(2, rules.getKeyPaths().size());
+        String[] values = {"corr-1", "user-1"};
+        assertEquals("corr-1", rules.keyOf(values, 0));
+        assertEquals("user-1", rules.keyOf(values, 1));
+    }
+
+    @Test
+    @DisplayName("Should build an empty table when no topics are configured")
+    void shouldBuildEmptyTableWhenNoTopicsConfigured() {
+        // When
+        TopicRoutingTable table = new TopicRoutingTable((List<KafkaTopicConfig.TopicConfig>) null);
+
+        // Then
+        assertEquals(0, table.size());
+        assertTrue(table.routes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should add and remove the routes of a pair at runtime")
+    void shouldAddAndRemovePairRoutes() {
+        // Given
+        TopicRoutingTable table = new TopicRoutingTable(List.of(
+            topicConfig("test-topic", "test-topic-correlated", "test-consumer-group")));
+
+        // When
+        table.addPair(topicConfig("orders", "payments", "orders-group"));
+
+        // Then
+        assertEquals(4, table.size());
+        assertEquals(TopicRoute.Role.CORRELATED, table.route("payments").getRole());
+
+        // When
+        boolean removed = table.removePair("orders");
+
+        // Then
+        assertTrue(removed);
+        assertEquals(2, table.size());
+        assertNull(table.route("orders"));
+        assertNull(table.route("payments"));
+        assertNotNull(table.route("test-topic"));
+        assertFalse(table.removePair("orders"));
+    }
+
+    @Test
+    @DisplayName("Should add a rule to a routed topic and hand the topic over when its owner is removed")
+    void shouldAddRuleToRoutedTopic() {
+        // Given
+        TopicRoutingTable table = new TopicRoutingTable(List.of(
+            topicConfig("orders", "payments", "orders-group")));
+
+        // When
+        table.addPair(topicConfig("payments", "shipments", "payments-group"));
+
+        // Then
+        assertEquals(4, table.size());
+        assertEquals("orders", table.owner("payments").getName());
+        assertThrows(IllegalStateException.class,
+            () -> table.addPair(topicConfig("payments", "refunds", "refunds-group")));
+
+        // When
+        table.removePair("orders");
+
+        // Then
+        assertEquals(1, table.rules("payments").getRoutes().size());
+        assertEquals("payments", table.owner("payments").getName());
+    }
+}